@@ -14,6 +14,21 @@ export async function fetchPattern(patternId: string): Promise<PatternInfo> {
   return response.json()
 }
 
+// crypto.randomUUID only exists in secure contexts (HTTPS or localhost), not when the app is
+// served over plain HTTP; the server accepts any [A-Za-z0-9-]{8,64}, so 32 random hex digits do
+export function newExecutionId(): string {
+  if (typeof crypto !== 'undefined' && typeof crypto.randomUUID === 'function') {
+    return crypto.randomUUID()
+  }
+  const bytes = new Uint8Array(16)
+  if (typeof crypto !== 'undefined' && typeof crypto.getRandomValues === 'function') {
+    crypto.getRandomValues(bytes)
+  } else {
+    bytes.forEach((_, i) => { bytes[i] = Math.floor(Math.random() * 256) })
+  }
+  return Array.from(bytes, b => b.toString(16).padStart(2, '0')).join('')
+}
+
 export async function executePattern(request: ExecutionRequest): Promise<ExecutionResult> {
   const response = await fetch(`${API_BASE}/patterns/${request.patternId}/execute`, {
     method: 'POST',
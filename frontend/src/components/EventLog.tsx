@@ -26,6 +26,10 @@ const eventIcons: Record<AgentEvent['eventType'], React.ComponentType<{ classNam
   HUMAN_INPUT_RECEIVED: User,
   ERROR: XCircle,
   COMPLETED: CheckCircle,
+  TOKEN: Cpu,
+  BUDGET_EXHAUSTED: AlertCircle,
+  MODEL_RETRY: RefreshCw,
+  CIRCUIT_BREAKER: XCircle,
 }
 
 const eventColors: Record<AgentEvent['eventType'], string> = {
@@ -37,6 +41,10 @@ const eventColors: Record<AgentEvent['eventType'], string> = {
   HUMAN_INPUT_RECEIVED: 'text-orange-400 border-orange-400/30',
   ERROR: 'text-red-400 border-red-400/30',
   COMPLETED: 'text-matrix-primary border-matrix-primary/30',
+  TOKEN: 'text-cyan-400 border-cyan-400/30',
+  BUDGET_EXHAUSTED: 'text-amber-400 border-amber-400/30',
+  MODEL_RETRY: 'text-orange-400 border-orange-400/30',
+  CIRCUIT_BREAKER: 'text-red-400 border-red-400/30',
 }
 
 export default function EventLog({ events, maxHeight = '400px' }: EventLogProps) {
@@ -6,31 +6,97 @@ import { AgentEvent } from '../types'
 interface WebSocketContextType {
   connected: boolean
   events: AgentEvent[]
-  subscribe: (patternId: string | null) => void
+  subscribe: (executionId: string) => void
   unsubscribe: () => void
   clearEvents: () => void
 }
 
 const WebSocketContext = createContext<WebSocketContextType | null>(null)
 
+// Sequence numbers seen so far for the watched execution: everything up to highWater
+// except the gaps in missing. Events of parallel agents may arrive slightly out of order.
+interface SequenceTracker {
+  highWater: number
+  missing: Set<number>
+}
+
+function newTracker(): SequenceTracker {
+  return { highWater: 0, missing: new Set() }
+}
+
+// Returns true the first time a sequence number is seen
+function acceptSequence(tracker: SequenceTracker, sequence: number): boolean {
+  if (sequence > tracker.highWater) {
+    for (let s = tracker.highWater + 1; s < sequence; s++) {
+      tracker.missing.add(s)
+    }
+    tracker.highWater = sequence
+    return true
+  }
+  return tracker.missing.delete(sequence)
+}
+
+// Highest sequence up to which nothing is missing; what to ask the server to replay after
+function contiguousSequence(tracker: SequenceTracker): number {
+  return tracker.missing.size > 0 ? Math.min(...tracker.missing) - 1 : tracker.highWater
+}
+
+// Adds already deduplicated events to the list, copying it once per frame. Streamed tokens
+// are appended to one growing entry per model call, found through streams (streamId to index
+// in the list) instead of searching the list for every token
+function appendEvents(prev: AgentEvent[], incoming: AgentEvent[], streams: Map<string, number>): AgentEvent[] {
+  const next = prev.slice()
+  for (const event of incoming) {
+    if (event.eventType === 'TOKEN') {
+      const streamId = event.data.streamId as string
+      const index = streams.get(streamId)
+      if (index !== undefined && next[index]?.eventType === 'TOKEN' && next[index].data.streamId === streamId) {
+        next[index] = { ...next[index], message: next[index].message + event.message }
+        continue
+      }
+      streams.set(streamId, next.length)
+    }
+    next.push(event)
+  }
+  return next
+}
+
 export function WebSocketProvider({ children }: { children: ReactNode }) {
   const [connected, setConnected] = useState(false)
   const [events, setEvents] = useState<AgentEvent[]>([])
-  const [currentSubscription, setCurrentSubscription] = useState<string | null>(null)
+  const clientRef = useRef<Client | null>(null)
+  const executionIdRef = useRef<string | null>(null)
   const subscriptionRef = useRef<StompSubscription | null>(null)
+  const trackerRef = useRef<SequenceTracker>(newTracker())
+  const streamsRef = useRef<Map<string, number>>(new Map())
 
-  // Handler for incoming events - deduplicate by eventId
+  // Handler for incoming frames - a single event, or an array of events when the server batches
   const handleEvent = useCallback((message: { body: string }) => {
-    const event = JSON.parse(message.body) as AgentEvent
-    setEvents(prev => {
-      // Deduplicate: check if event with same eventId already exists
-      if (event.eventId && prev.some(e => e.eventId === event.eventId)) {
-        return prev
-      }
-      return [...prev, event]
-    })
+    const parsed = JSON.parse(message.body) as AgentEvent | AgentEvent[]
+    const tracker = trackerRef.current
+    const incoming = (Array.isArray(parsed) ? parsed : [parsed])
+      .filter(event => acceptSequence(tracker, event.sequence))
+    if (incoming.length === 0) {
+      return
+    }
+    if (tracker.missing.size > 0 && incoming.some(e => e.eventType === 'COMPLETED' || e.eventType === 'ERROR')) {
+      console.warn(`Execution finished with ${tracker.missing.size} missing event(s)`, [...tracker.missing])
+    }
+    setEvents(prev => appendEvents(prev, incoming, streamsRef.current))
   }, [])
 
+  // Subscribes to the execution's live topic, then asks the server once for the buffered
+  // events after the last one received; duplicates between the two are dropped by sequence
+  const watch = useCallback((client: Client, executionId: string) => {
+    subscriptionRef.current = client.subscribe(`/topic/executions/${executionId}`, handleEvent)
+    const replay = client.subscribe(`/app/executions/${executionId}/replay`, (message) => {
+      replay.unsubscribe()
+      if (executionIdRef.current === executionId) {
+        handleEvent(message)
+      }
+    }, { lastSequence: String(contiguousSequence(trackerRef.current)) })
+  }, [handleEvent])
+
   useEffect(() => {
     // Dynamically determine WebSocket URL based on current location
     const wsProtocol = window.location.protocol === 'https:' ? 'https:' : 'http:'
@@ -46,8 +112,10 @@ export function WebSocketProvider({ children }: { children: ReactNode }) {
         console.log('WebSocket connected')
         setConnected(true)
         
-        // Subscribe to global events only (pattern-specific subscription is handled separately)
-        subscriptionRef.current = stompClient.subscribe('/topic/events', handleEvent)
+        // (Re-)subscribe to the execution being watched, if any, and fetch what was missed meanwhile
+        if (executionIdRef.current) {
+          watch(stompClient, executionIdRef.current)
+        }
       },
       onDisconnect: () => {
         console.log('WebSocket disconnected')
@@ -58,27 +126,37 @@ export function WebSocketProvider({ children }: { children: ReactNode }) {
       },
     })
 
+    clientRef.current = stompClient
     stompClient.activate()
 
     return () => {
+      clientRef.current = null
       stompClient.deactivate()
     }
-  }, [handleEvent])
+  }, [watch])
 
-  const subscribe = useCallback((patternId: string | null) => {
-    // Pattern-specific subscription is now handled via filtering on the client side
-    // The global /topic/events subscription receives all events
-    // We just track which pattern we're interested in for potential future use
-    if (patternId !== currentSubscription) {
-      setCurrentSubscription(patternId)
+  // Watch a single execution: only its topic is delivered to this client, so subscribe
+  // before submitting it (with the same executionId) to receive all of its events
+  const subscribe = useCallback((executionId: string) => {
+    subscriptionRef.current?.unsubscribe()
+    subscriptionRef.current = null
+    executionIdRef.current = executionId
+    trackerRef.current = newTracker()
+    const client = clientRef.current
+    if (client?.connected) {
+      watch(client, executionId)
     }
-  }, [currentSubscription])
+  }, [watch])
 
   const unsubscribe = useCallback(() => {
-    setCurrentSubscription(null)
+    subscriptionRef.current?.unsubscribe()
+    subscriptionRef.current = null
+    executionIdRef.current = null
   }, [])
 
   const clearEvents = useCallback(() => {
+    trackerRef.current = newTracker()
+    streamsRef.current = new Map()
     setEvents([])
   }, [])
 
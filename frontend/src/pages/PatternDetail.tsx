@@ -11,7 +11,7 @@ import {
   Database 
 } from 'lucide-react'
 import { PatternInfo, AgentEvent, ExecutionResult } from '../types'
-import { executePattern, provideHumanInput } from '../api'
+import { executePattern, newExecutionId, provideHumanInput } from '../api'
 import { useWebSocket } from '../context/WebSocketContext'
 import WorkflowVisualization from '../components/WorkflowVisualization'
 import EventLog from '../components/EventLog'
@@ -35,13 +35,10 @@ export default function PatternDetail({ patterns }: PatternDetailProps) {
   const [handledRequestIds, setHandledRequestIds] = useState<Set<string>>(new Set())
   const [activeTab, setActiveTab] = useState<'visualization' | 'events' | 'scope'>('visualization')
 
-  const { events: wsEvents, subscribe, clearEvents } = useWebSocket()
+  const { events: wsEvents, subscribe, unsubscribe, clearEvents } = useWebSocket()
 
-  useEffect(() => {
-    if (patternId) {
-      subscribe(patternId)
-    }
-  }, [patternId, subscribe])
+  // Stop watching the last execution when leaving the pattern
+  useEffect(() => unsubscribe, [patternId, unsubscribe])
 
   // Update local events from WebSocket
   useEffect(() => {
@@ -52,9 +49,11 @@ export default function PatternDetail({ patterns }: PatternDetailProps) {
       // Update scope from events
       patternEvents.forEach(event => {
         if (event.eventType === 'STATE_UPDATED' && event.data) {
-          const key = event.data.key as string
-          const value = event.data.value
-          setScope(prev => ({ ...prev, [key]: value }))
+          // STATE_UPDATED carries only the keys that changed
+          const changes = event.data.changes as Record<string, unknown> | undefined
+          if (changes) {
+            setScope(prev => ({ ...prev, ...changes }))
+          }
         }
         
         // Check for human input request (only if not already handled)
@@ -98,10 +97,15 @@ export default function PatternDetail({ patterns }: PatternDetailProps) {
     setHandledRequestIds(new Set())
     clearEvents()
 
+    // Subscribe to the execution's topic before it starts so no event is missed
+    const executionId = newExecutionId()
+    subscribe(executionId)
+
     try {
       const executionResult = await executePattern({
         patternId: pattern.id,
         prompt: prompt.trim(),
+        executionId,
       })
       setResult(executionResult)
       if (executionResult.scopeSnapshot) {
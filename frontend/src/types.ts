@@ -21,9 +21,12 @@ export interface PatternInfo {
 
 export interface AgentEvent {
   eventId: string
+  executionId: string | null
+  sequence: number
+  traceId: string | null
   patternName: string
   agentName: string | null
-  eventType: 'STARTED' | 'AGENT_INVOKED' | 'AGENT_COMPLETED' | 'STATE_UPDATED' | 'HUMAN_INPUT_REQUIRED' | 'HUMAN_INPUT_RECEIVED' | 'ERROR' | 'COMPLETED'
+  eventType: 'STARTED' | 'AGENT_INVOKED' | 'AGENT_COMPLETED' | 'STATE_UPDATED' | 'HUMAN_INPUT_REQUIRED' | 'HUMAN_INPUT_RECEIVED' | 'ERROR' | 'COMPLETED' | 'TOKEN' | 'BUDGET_EXHAUSTED' | 'MODEL_RETRY' | 'CIRCUIT_BREAKER'
   message: string
   data: Record<string, unknown>
   timestamp: string
@@ -32,17 +35,36 @@ export interface AgentEvent {
 export interface ExecutionResult {
   executionId: string
   patternId: string
-  status: 'COMPLETED' | 'ERROR' | 'PENDING_HUMAN_INPUT'
+  status: 'RUNNING' | 'COMPLETED' | 'ERROR' | 'PENDING_HUMAN_INPUT'
   result: string
   events: AgentEvent[]
   scopeSnapshot: Record<string, unknown>
   startTime: string
   endTime: string | null
   durationMs: number
+  traceId: string | null
+  tokens: TokenReport | null
+}
+
+export interface AgentTokens {
+  inputTokens: number
+  outputTokens: number
+  calls: number
+}
+
+export interface TokenReport {
+  inputTokens: number
+  outputTokens: number
+  totalTokens: number
+  calls: number
+  budget: number
+  exhausted: boolean
+  agents: Record<string, AgentTokens>
 }
 
 export interface ExecutionRequest {
   patternId: string
   prompt: string
   parameters?: Record<string, unknown>
+  executionId?: string
 }
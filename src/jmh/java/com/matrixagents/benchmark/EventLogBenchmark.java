@@ -0,0 +1,134 @@
+package com.matrixagents.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
+import com.matrixagents.service.EventLog;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Many producers appending to one execution's event log, as parallel sub-agents do:
+ * the lock-free EventLog against the Collections.synchronizedList it replaced. Each
+ * iteration is 8 threads appending APPENDS_PER_THREAD events each to a fresh log.
+ *
+ * Doubles as a stress test. Every producer appends its own numbered frames, and after each
+ * iteration the log is checked: the number of events must match what the producers appended
+ * and each producer's frames must appear in the order it appended them. A violation fails
+ * the run with an IllegalStateException. The same guarantees, with readers racing the
+ * producers, are covered by EventLogTest in the regular test run.
+ *
+ * Run with: mvn -Pbenchmark verify -Djmh.args="EventLogBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = EventLogBenchmark.APPENDS_PER_THREAD)
+@Measurement(iterations = 20, batchSize = EventLogBenchmark.APPENDS_PER_THREAD)
+@Threads(8)
+@Fork(1)
+public class EventLogBenchmark {
+
+    static final int APPENDS_PER_THREAD = 100_000;
+    private static final int FRAMES_PER_PRODUCER = 4096;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final AtomicInteger producerIds = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Producer> producers = new ConcurrentLinkedQueue<>();
+    private EventLog eventLog;
+    private List<EventFrame> synchronizedList;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        eventLog = new EventLog();
+        synchronizedList = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        long appended = producers.stream().mapToLong(producer -> producer.appended).sum();
+        List<EventFrame> events = eventLog.size() > 0 ? eventLog.snapshot() : List.copyOf(synchronizedList);
+        if (events.size() != appended) {
+            throw new IllegalStateException("Appended " + appended + " events but the log holds " + events.size());
+        }
+        Map<String, Long> lastSequence = new HashMap<>();
+        for (EventFrame frame : events) {
+            AgentEvent event = frame.event();
+            Long previous = lastSequence.put(event.executionId(), event.sequence());
+            long expected = previous == null ? 1 : previous % FRAMES_PER_PRODUCER + 1;
+            if (previous != null && event.sequence() != expected) {
+                throw new IllegalStateException(event.executionId() + " appended " + expected
+                        + " after " + previous + " but the log has " + event.sequence());
+            }
+        }
+        producers.forEach(producer -> producer.appended = 0);
+    }
+
+    @Benchmark
+    public void eventLog(Producer producer) {
+        eventLog.add(producer.next());
+    }
+
+    @Benchmark
+    public void synchronizedList(Producer producer) {
+        synchronizedList.add(producer.next());
+    }
+
+    /**
+     * One appending thread. Its frames are rendered up front and numbered 1..FRAMES_PER_PRODUCER,
+     * cycling, with the producer as executionId.
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        private EventFrame[] frames;
+        private long appended;
+
+        @Setup(Level.Trial)
+        public void setUp(EventLogBenchmark benchmark) {
+            String name = "producer-" + benchmark.producerIds.incrementAndGet();
+            frames = new EventFrame[FRAMES_PER_PRODUCER];
+            for (int i = 0; i < FRAMES_PER_PRODUCER; i++) {
+                AgentEvent event = AgentEvent.token("parallel", name, name, "token " + i).sequenced(name, i + 1, null);
+                frames[i] = EventFrame.render(event, benchmark.jsonMapper);
+            }
+            benchmark.producers.add(this);
+        }
+
+        EventFrame next() {
+            return frames[(int) (appended++ % FRAMES_PER_PRODUCER)];
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EventLogBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,162 @@
+package com.matrixagents.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.converter.JacksonJsonMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.matrixagents.config.EventProperties;
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
+import com.matrixagents.model.ExecutionResult;
+import com.matrixagents.service.EventPublisher;
+import com.matrixagents.service.ExecutionContext;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Cost of getting one execution's events to two broker destinations and into its REST result,
+ * from several threads at once (as with parallel executions).
+ *
+ * perDestination is the old EventPublisher: convertAndSend() per destination, then the event
+ * list serialized again inside the result. serializeOnce goes through EventPublisher, which
+ * renders each event into an EventFrame once and reuses the bytes everywhere. Compare
+ * gc.alloc.rate.norm (bytes per execution) and the eventSerializations / events counters
+ * (Jackson invocations per event: 3 before, 1 after, plus the result's own two timestamps).
+ *
+ * Run with: mvn -Pbenchmark verify -Djmh.args="EventSerializationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private static final int EVENTS_PER_EXECUTION = 24;
+
+    /** Every serialized AgentEvent writes exactly one timestamp, so this counts event serializations. */
+    private static final ThreadLocal<long[]> SERIALIZATIONS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private JsonMapper jsonMapper;
+    private SimpMessagingTemplate messagingTemplate;
+    private EventPublisher eventPublisher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jsonMapper = JsonMapper.builder()
+                .addModule(new SimpleModule().addSerializer(Instant.class, new CountingInstantSerializer()))
+                .build();
+        messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        messagingTemplate.setMessageConverter(new JacksonJsonMessageConverter(jsonMapper));
+        // Firehose at 100% so both variants send every event to two destinations
+        eventPublisher = new EventPublisher(messagingTemplate, jsonMapper,
+                new EventProperties(null, new EventProperties.Firehose(true, 1.0), null));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eventPublisher.shutdown();
+    }
+
+    @Benchmark
+    public byte[] perDestination(Counters counters) {
+        long before = SERIALIZATIONS.get()[0];
+        List<AgentEvent> events = new ArrayList<>(EVENTS_PER_EXECUTION);
+        for (int i = 0; i < EVENTS_PER_EXECUTION; i++) {
+            AgentEvent event = event(i);
+            messagingTemplate.convertAndSend("/topic/events", event);
+            messagingTemplate.convertAndSend("/topic/patterns/" + event.patternName(), event);
+            events.add(event);
+        }
+        byte[] response = jsonMapper.writeValueAsBytes(Map.of("executionId", "bench", "events", events));
+        counters.record(before);
+        return response;
+    }
+
+    @Benchmark
+    public byte[] serializeOnce(Counters counters) {
+        long before = SERIALIZATIONS.get()[0];
+        ExecutionContext context = new ExecutionContext("bench", "sequence", Map.of());
+        List<EventFrame> events = context.run(() -> {
+            List<EventFrame> frames = new ArrayList<>(EVENTS_PER_EXECUTION);
+            for (int i = 0; i < EVENTS_PER_EXECUTION; i++) {
+                frames.add(eventPublisher.publish(event(i)));
+            }
+            return frames;
+        });
+        ExecutionResult result = ExecutionResult.success("bench", "sequence", "done", events, Map.of(), Instant.now());
+        byte[] response = jsonMapper.writeValueAsBytes(result);
+        counters.record(before);
+        return response;
+    }
+
+    private static AgentEvent event(int i) {
+        return switch (i % 3) {
+            case 0 -> AgentEvent.agentInvoked("sequence", "styleEditor", "story=Once upon a time, style=comedy");
+            case 1 -> AgentEvent.agentCompleted("sequence", "styleEditor", "A short and funny story about a dragon.");
+            default -> AgentEvent.stateUpdated("sequence", "story", "A short and funny story about a dragon.");
+        };
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long events;
+        public long eventSerializations;
+
+        void record(long serializationsBefore) {
+            events += EVENTS_PER_EXECUTION;
+            eventSerializations += SERIALIZATIONS.get()[0] - serializationsBefore;
+        }
+    }
+
+    private static final class CountingInstantSerializer extends StdSerializer<Instant> {
+        CountingInstantSerializer() {
+            super(Instant.class);
+        }
+
+        @Override
+        public void serialize(Instant value, JsonGenerator generator, SerializationContext context) {
+            SERIALIZATIONS.get()[0]++;
+            generator.writeString(value.toString());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EventSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.matrixagents.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.converter.JacksonJsonMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import tools.jackson.databind.json.JsonMapper;
+
+import com.matrixagents.config.BulkheadProperties;
+import com.matrixagents.config.EventProperties;
+import com.matrixagents.config.HistoryProperties;
+import com.matrixagents.config.LlmProperties;
+import com.matrixagents.config.SpeculationProperties;
+import com.matrixagents.history.ExecutionHistory;
+import com.matrixagents.model.ExecutionResult;
+import com.matrixagents.model.PatternInfo;
+import com.matrixagents.service.EventPublisher;
+import com.matrixagents.service.ExecutionMetrics;
+import com.matrixagents.service.ExpertSpeculator;
+import com.matrixagents.service.ExecutionTracing;
+import com.matrixagents.service.HumanInputService;
+import com.matrixagents.service.ParallelAgentExecutor;
+import com.matrixagents.service.PatternBulkheads;
+import com.matrixagents.service.PatternExecutionService;
+import com.matrixagents.service.PatternGraphRegistry;
+
+/**
+ * Orchestration overhead of PatternExecutionService, WebSocketAgentListener and EventPublisher.
+ *
+ * Every pattern runs end to end through executePattern() against {@link StubChatModel}, and
+ * events are rendered to JSON as for the broker but sent to a channel that drops them. With the LLM taken out, throughput, the sampled latency percentiles and the
+ * gc.alloc.rate.norm column (bytes allocated per execution) are all ours.
+ *
+ * Run with: mvn -Pbenchmark verify
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatternExecutionBenchmark {
+
+    @Param({"sequence", "parallel", "loop", "conditional", "supervisor", "human-in-loop", "goap", "p2p"})
+    public String patternId;
+
+    private PatternExecutionService executionService;
+    private String prompt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StubChatModel chatModel = new StubChatModel();
+
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        messagingTemplate.setMessageConverter(new JacksonJsonMessageConverter());
+
+        HumanInputService humanInputService = new HumanInputService();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ExecutionMetrics metrics = new ExecutionMetrics(meterRegistry, humanInputService);
+        ExecutionTracing tracing = new ExecutionTracing(Tracer.NOOP);
+        PatternGraphRegistry graphs = new PatternGraphRegistry(chatModel, chatModel, metrics, tracing);
+
+        executionService = new PatternExecutionService(
+                graphs,
+                new EventPublisher(messagingTemplate, JsonMapper.builder().build(), new EventProperties(null, null, null)),
+                humanInputService,
+                new ParallelAgentExecutor(32),
+                new PatternBulkheads(new BulkheadProperties(null, null, null)),
+                new ExecutionHistory(HistoryProperties.disabled(), JsonMapper.builder().build()),
+                metrics,
+                tracing,
+                new LlmProperties(null, null, null, null, null, null, null),
+                new ExpertSpeculator(graphs, new SpeculationProperties(false, 0, 0, null), meterRegistry),
+                false);
+
+        prompt = PatternInfo.all().stream()
+                .filter(p -> p.id().equals(patternId))
+                .findFirst()
+                .map(PatternInfo::examplePrompt)
+                .orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executionService.shutdown();
+    }
+
+    @Benchmark
+    public ExecutionResult executePattern() {
+        ExecutionResult result = executionService.executePattern(patternId, prompt).join();
+        if (!"COMPLETED".equals(result.status())) {
+            throw new IllegalStateException(patternId + " did not complete: " + result.result());
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PatternExecutionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.matrixagents.benchmark;
+
+import java.util.stream.Collectors;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * Zero-latency ChatModel that answers every agent of the 8 patterns with a canned response.
+ *
+ * Responses are picked from the rendered prompt so that typed agent outputs (scores, categories,
+ * lists, supervisor plans) parse, and every workflow reaches its exit condition on the first pass.
+ * Nothing here sleeps: whatever the benchmark measures is orchestration overhead.
+ */
+public class StubChatModel implements ChatModel {
+
+    private static final String STORY = "Once upon a time a small dragon learned to write sonnets. "
+            + "The village laughed, then listened, then wept. The end.";
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        String prompt = chatRequest.messages().stream()
+                .map(StubChatModel::textOf)
+                .collect(Collectors.joining("\n"));
+        String answer = answer(prompt);
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(answer))
+                .tokenUsage(new TokenUsage(prompt.length() / 4, answer.length() / 4))
+                .finishReason(FinishReason.STOP)
+                .modelName("stub")
+                .build();
+    }
+
+    private static String answer(String prompt) {
+        // Supervisor planner: finish straight away
+        if (prompt.contains("agentName")) {
+            return "{\"agentName\": \"done\", \"arguments\": {\"response\": \"All banking operations completed.\"}}";
+        }
+        // Typed outputs
+        if (prompt.contains("categorize it as")) {
+            return "MEDICAL";
+        }
+        if (prompt.contains("score between 0.0 and 1.0") || prompt.contains("return only a number 0.0-1.0")) {
+            return "0.9";
+        }
+        if (prompt.contains("zodiac sign")) {
+            return "Aries";
+        }
+        if (prompt.contains("list of 3")) {
+            return prompt.contains("\"values\"")
+                    ? "{\"values\": [\"First\", \"Second\", \"Third\"]}"
+                    : "First\nSecond\nThird";
+        }
+        return STORY;
+    }
+
+    private static String textOf(ChatMessage message) {
+        if (message instanceof SystemMessage systemMessage) {
+            return systemMessage.text();
+        }
+        if (message instanceof UserMessage userMessage) {
+            return userMessage.hasSingleText() ? userMessage.singleText() : String.valueOf(userMessage.contents());
+        }
+        if (message instanceof AiMessage aiMessage && aiMessage.text() != null) {
+            return aiMessage.text();
+        }
+        return "";
+    }
+}
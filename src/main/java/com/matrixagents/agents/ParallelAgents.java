@@ -1,5 +1,7 @@
 package com.matrixagents.agents;
 
+import com.matrixagents.service.ParallelAgentExecutor;
+
 import dev.langchain4j.agentic.Agent;
 import dev.langchain4j.agentic.declarative.Output;
 import dev.langchain4j.agentic.declarative.ParallelAgent;
@@ -10,7 +12,6 @@ import dev.langchain4j.service.V;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Agents for the PARALLEL PATTERN using langchain4j-agentic module.
@@ -67,9 +68,12 @@ public interface ParallelAgents {
         @ParallelAgent(outputKey = "plans", subAgents = {FoodExpert.class, MovieExpert.class})
         List<EveningPlan> plan(@V("mood") String mood);
 
+        /**
+         * Shared application-scoped executor; a pool per call would leak its threads.
+         */
         @ParallelExecutor
         static Executor executor() {
-            return Executors.newFixedThreadPool(2);
+            return ParallelAgentExecutor.shared();
         }
 
         @Output
@@ -1,5 +1,7 @@
 package com.matrixagents.agents;
 
+import com.matrixagents.service.ExecutionTracing;
+
 import dev.langchain4j.agentic.Agent;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
@@ -10,6 +12,7 @@ import dev.langchain4j.service.V;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Agents and Tools for the SUPERVISOR PATTERN using langchain4j-agentic module.
@@ -73,7 +76,57 @@ public interface SupervisorAgents {
     }
 
     /**
-     * Currency exchange tool.
+     * Bank tool facade for agents that are built once and shared across executions.
+     * Each execution binds its own BankTool, so balances never leak between requests.
+     * Every tool call is traced as a span of the calling agent.
+     */
+    class BoundBankTool {
+        private static final ThreadLocal<BankTool> CURRENT = new ThreadLocal<>();
+
+        private final ExecutionTracing tracing;
+
+        public BoundBankTool(ExecutionTracing tracing) {
+            this.tracing = tracing;
+        }
+
+        /**
+         * Runs the action with the given BankTool serving all tool calls on this thread.
+         */
+        public static <T> T callWith(BankTool bankTool, Supplier<T> action) {
+            BankTool previous = CURRENT.get();
+            CURRENT.set(bankTool);
+            try {
+                return action.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        }
+
+        @Tool("Credit the given user with the given amount and return the new balance")
+        public Double credit(@P("user name") String user, @P("amount") Double amount) {
+            return traceTool(tracing, "credit", () -> current().credit(user, amount));
+        }
+
+        @Tool("Withdraw the given amount from the given user and return the new balance")
+        public Double withdraw(@P("user name") String user, @P("amount") Double amount) {
+            return traceTool(tracing, "withdraw", () -> current().withdraw(user, amount));
+        }
+
+        private static BankTool current() {
+            BankTool bankTool = CURRENT.get();
+            if (bankTool == null) {
+                throw new IllegalStateException("No BankTool bound to the current execution");
+            }
+            return bankTool;
+        }
+    }
+
+    /**
+     * Currency exchange tool. Every tool call is traced as a span of the calling agent.
      */
     class ExchangeTool {
         private static final Map<String, Double> RATES = Map.of(
@@ -83,11 +136,21 @@ public interface SupervisorAgents {
                 "GBP_USD", 1.27
         );
 
+        private final ExecutionTracing tracing;
+
+        public ExchangeTool(ExecutionTracing tracing) {
+            this.tracing = tracing;
+        }
+
         @Tool("Exchange the given amount of money from the original to the target currency")
         public Double exchange(
                 @P("originalCurrency") String originalCurrency,
                 @P("amount") Double amount,
                 @P("targetCurrency") String targetCurrency) {
+            return traceTool(tracing, "exchange", () -> convert(originalCurrency, amount, targetCurrency));
+        }
+
+        private Double convert(String originalCurrency, Double amount, String targetCurrency) {
             String key = originalCurrency.toUpperCase() + "_" + targetCurrency.toUpperCase();
             Double rate = RATES.get(key);
             if (rate == null) {
@@ -150,4 +213,15 @@ public interface SupervisorAgents {
         @Agent
         String invoke(@V("request") String request);
     }
+
+    /**
+     * Runs a tool call in a span named after the tool (OpenTelemetry GenAI conventions).
+     */
+    private static <T> T traceTool(ExecutionTracing tracing, String tool, Supplier<T> call) {
+        return tracing.inSpan("execute_tool " + tool, span -> {
+            span.tag("gen_ai.operation.name", "execute_tool");
+            span.tag("gen_ai.tool.name", tool);
+            return call.get();
+        });
+    }
 }
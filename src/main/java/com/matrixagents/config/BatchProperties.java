@@ -0,0 +1,36 @@
+package com.matrixagents.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits of the batch endpoint, POST /api/patterns/{patternId}/batch (matrix.batch.*).
+ *
+ * @param maxPrompts         prompts accepted in one batch
+ * @param defaultConcurrency executions of a batch running at once when the request sets none
+ * @param maxConcurrency     upper bound of a request's concurrency
+ * @param timeout            longest a batch response may stream
+ */
+@ConfigurationProperties(prefix = "matrix.batch")
+public record BatchProperties(
+    int maxPrompts,
+    int defaultConcurrency,
+    int maxConcurrency,
+    Duration timeout
+) {
+    public BatchProperties {
+        if (maxPrompts <= 0) {
+            maxPrompts = 1000;
+        }
+        if (maxConcurrency <= 0) {
+            maxConcurrency = 32;
+        }
+        if (defaultConcurrency <= 0) {
+            defaultConcurrency = Math.min(8, maxConcurrency);
+        }
+        if (timeout == null) {
+            timeout = Duration.ofHours(2);
+        }
+    }
+}
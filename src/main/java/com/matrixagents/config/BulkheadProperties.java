@@ -0,0 +1,48 @@
+package com.matrixagents.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Admission limits for pattern executions (matrix.bulkhead.*).
+ * Per-pattern entries override the defaults field by field.
+ */
+@ConfigurationProperties(prefix = "matrix.bulkhead")
+public record BulkheadProperties(
+    Limits defaults,
+    Map<String, Limits> patterns,
+    Duration retryAfter
+) {
+    public BulkheadProperties {
+        Limits builtIn = new Limits(16, 32, Duration.ofSeconds(30));
+        defaults = defaults == null ? builtIn : defaults.orElse(builtIn);
+        if (patterns == null) {
+            patterns = Map.of();
+        }
+        if (retryAfter == null) {
+            retryAfter = Duration.ofSeconds(5);
+        }
+    }
+
+    public Limits limitsFor(String patternId) {
+        Limits override = patterns.get(patternId);
+        return override == null ? defaults : override.orElse(defaults);
+    }
+
+    /**
+     * @param maxConcurrent executions of the pattern running at once
+     * @param maxQueued     executions allowed to wait for a slot; beyond that requests are rejected
+     * @param maxWait       how long a queued execution waits before it is rejected
+     */
+    public record Limits(Integer maxConcurrent, Integer maxQueued, Duration maxWait) {
+        Limits orElse(Limits fallback) {
+            return new Limits(
+                maxConcurrent != null ? maxConcurrent : fallback.maxConcurrent(),
+                maxQueued != null ? maxQueued : fallback.maxQueued(),
+                maxWait != null ? maxWait : fallback.maxWait()
+            );
+        }
+    }
+}
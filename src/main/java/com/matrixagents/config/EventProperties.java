@@ -0,0 +1,93 @@
+package com.matrixagents.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Delivery of AgentEvents to WebSocket subscribers (matrix.events.*).
+ */
+@ConfigurationProperties(prefix = "matrix.events")
+public record EventProperties(
+    Batching batching,
+    Firehose firehose,
+    Replay replay
+) {
+    public EventProperties {
+        if (batching == null) {
+            batching = new Batching(false, null, 0);
+        }
+        if (firehose == null) {
+            firehose = new Firehose(true, 1.0);
+        }
+        if (replay == null) {
+            replay = new Replay(true, 0, 0, 0, null);
+        }
+    }
+
+    /**
+     * Coalesces events per destination into one array frame.
+     *
+     * @param enabled   batch at all; when off every event is its own frame
+     * @param window    longest an event waits for companions before its batch is sent
+     * @param maxEvents batch size that triggers an immediate send
+     */
+    public record Batching(boolean enabled, Duration window, int maxEvents) {
+        public Batching {
+            if (window == null) {
+                window = Duration.ofMillis(25);
+            }
+            if (maxEvents <= 0) {
+                maxEvents = 32;
+            }
+        }
+    }
+
+    /**
+     * The global /topic/events stream. Executions always publish to /topic/executions/{executionId}.
+     *
+     * @param enabled    publish to the global topic at all
+     * @param sampleRate share of executions (0..1) whose events go to the global topic; sampled
+     *                   executions are mirrored completely
+     */
+    public record Firehose(@DefaultValue("true") boolean enabled, @DefaultValue("1.0") double sampleRate) {
+        public Firehose {
+            sampleRate = Math.clamp(sampleRate, 0.0, 1.0);
+        }
+
+        public boolean includes(String executionId) {
+            if (!enabled) {
+                return false;
+            }
+            return executionId == null || (executionId.hashCode() & Integer.MAX_VALUE) % 10_000 < sampleRate * 10_000;
+        }
+    }
+
+    /**
+     * Recent events kept per execution for clients that resubscribe after a dropped connection.
+     *
+     * @param enabled       keep events for replay at all
+     * @param capacity      events other than TOKEN kept per execution; older ones are overwritten
+     * @param tokenCapacity TOKEN events kept per execution, apart from the others
+     * @param maxExecutions executions kept at once, least recently active dropped first
+     * @param retention     how long an execution's events are kept after its last event
+     */
+    public record Replay(@DefaultValue("true") boolean enabled, int capacity, int tokenCapacity, int maxExecutions,
+                         Duration retention) {
+        public Replay {
+            if (capacity <= 0) {
+                capacity = 512;
+            }
+            if (tokenCapacity <= 0) {
+                tokenCapacity = 64;
+            }
+            if (maxExecutions <= 0) {
+                maxExecutions = 256;
+            }
+            if (retention == null) {
+                retention = Duration.ofMinutes(10);
+            }
+        }
+    }
+}
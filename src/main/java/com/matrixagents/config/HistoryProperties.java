@@ -0,0 +1,52 @@
+package com.matrixagents.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Durable history of finished executions (matrix.history.*).
+ *
+ * @param enabled       record finished executions at all
+ * @param directory     where the segment files live
+ * @param segmentSize   size of one memory-mapped segment, below 2GB; a full segment is sealed and a new one started
+ * @param maxSegments   segments kept on disk, oldest deleted first
+ * @param retention     segments whose newest execution ended longer ago than this are deleted
+ * @param queueCapacity finished executions waiting to be written; beyond that they are dropped
+ */
+@ConfigurationProperties(prefix = "matrix.history")
+public record HistoryProperties(
+    boolean enabled,
+    Path directory,
+    DataSize segmentSize,
+    int maxSegments,
+    Duration retention,
+    int queueCapacity
+) {
+    public HistoryProperties {
+        if (directory == null) {
+            directory = Path.of("data", "history");
+        }
+        if (segmentSize == null) {
+            segmentSize = DataSize.ofMegabytes(64);
+        }
+        if (segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("matrix.history.segment-size must be below 2GB, was " + segmentSize);
+        }
+        if (maxSegments <= 0) {
+            maxSegments = 16;
+        }
+        if (retention == null) {
+            retention = Duration.ofDays(7);
+        }
+        if (queueCapacity <= 0) {
+            queueCapacity = 1024;
+        }
+    }
+
+    public static HistoryProperties disabled() {
+        return new HistoryProperties(false, null, null, 0, null, 0);
+    }
+}
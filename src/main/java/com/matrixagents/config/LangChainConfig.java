@@ -1,15 +1,47 @@
 package com.matrixagents.config;
 
+import com.matrixagents.llm.BudgetedChatModel;
+import com.matrixagents.llm.CachingChatModel;
+import com.matrixagents.llm.CircuitBreaker;
+import com.matrixagents.llm.DeploymentRateLimiter;
+import com.matrixagents.llm.HashingEmbeddingModel;
+import com.matrixagents.llm.HedgingChatModel;
+import com.matrixagents.llm.MeteredChatModel;
+import com.matrixagents.llm.RateLimitedChatModel;
+import com.matrixagents.llm.ResilientChatModel;
+import com.matrixagents.llm.ResponseCache;
+import com.matrixagents.llm.SemanticCache;
+import com.matrixagents.llm.SemanticCachingChatModel;
+import com.matrixagents.llm.StreamingChatModelAdapter;
+import com.matrixagents.llm.TracedChatModel;
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.service.EventPublisher;
+import com.matrixagents.service.ExecutionContext;
+import com.matrixagents.service.ExecutionTracing;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openaiofficial.OpenAiOfficialChatModel;
+import dev.langchain4j.model.openaiofficial.OpenAiOfficialEmbeddingModel;
+import dev.langchain4j.model.openaiofficial.OpenAiOfficialStreamingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 @Configuration
 public class LangChainConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(LangChainConfig.class);
+
     @Value("${azure.openai.api-key:}")
     private String apiKey;
 
@@ -22,26 +54,189 @@ public class LangChainConfig {
     @Value("${azure.openai.embedding-deployment:text-embedding-3-small}")
     private String embeddingDeploymentName;
 
+    private final LlmProperties llmProperties;
+    // Decorators are not beans themselves; those owning threads are shut down with this configuration
+    private final List<HedgingChatModel> hedgingModels = new CopyOnWriteArrayList<>();
+
+    public LangChainConfig(LlmProperties llmProperties) {
+        this.llmProperties = llmProperties;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hedgingModels.forEach(HedgingChatModel::shutdown);
+    }
+
     @Bean
     @Primary
-    public ChatModel chatModel() {
-        return OpenAiOfficialChatModel.builder()
+    public ChatModel chatModel(ResponseCache responseCache, SemanticCache semanticCache,
+                               StreamingChatModel streamingChatModel, EventPublisher eventPublisher,
+                               MeterRegistry meterRegistry, ExecutionTracing tracing,
+                               CircuitBreaker modelCircuitBreaker, DeploymentRateLimiter modelRateLimiter) {
+        ChatModel model = OpenAiOfficialChatModel.builder()
                 .baseUrl(endpoint)
                 .apiKey(apiKey)
                 .modelName(deploymentName)
                 .isAzure(true)
+                .maxRetries(sdkMaxRetries())
                 // GPT-5 only supports temperature=1.0
                 .build();
+        // Only this model streams; the planner model makes routing decisions nobody reads live
+        Set<String> streamingAgents = Set.of();
+        if (llmProperties.streaming().enabled()) {
+            streamingAgents = Set.copyOf(llmProperties.streaming().agents());
+            model = new StreamingChatModelAdapter(model, streamingChatModel, streamingAgents, eventPublisher::publish);
+        }
+        model = rateLimited(instrument(model, "chat", meterRegistry, tracing), modelRateLimiter);
+        model = resilient(model, "chat", modelCircuitBreaker, eventPublisher, meterRegistry);
+        return decorate(model, "chat", streamingAgents, meterRegistry, responseCache, semanticCache);
     }
 
     @Bean("plannerModel")
-    public ChatModel plannerModel() {
-        return OpenAiOfficialChatModel.builder()
+    public ChatModel plannerModel(ResponseCache responseCache, SemanticCache semanticCache,
+                                  MeterRegistry meterRegistry, ExecutionTracing tracing,
+                                  CircuitBreaker modelCircuitBreaker, DeploymentRateLimiter modelRateLimiter,
+                                  EventPublisher eventPublisher) {
+        ChatModel model = OpenAiOfficialChatModel.builder()
                 .baseUrl(endpoint)
                 .apiKey(apiKey)
                 .modelName(deploymentName)
                 .isAzure(true)
+                .maxRetries(sdkMaxRetries())
                 // GPT-5 only supports temperature=1.0
                 .build();
+        model = rateLimited(instrument(model, "planner", meterRegistry, tracing), modelRateLimiter);
+        model = resilient(model, "planner", modelCircuitBreaker, eventPublisher, meterRegistry);
+        return decorate(model, "planner", Set.of(), meterRegistry, responseCache, semanticCache);
+    }
+
+    /**
+     * Circuit breaker of the chat deployment, shared by both chat models since they call the
+     * same deployment. State changes are logged and published to the execution that caused them.
+     */
+    @Bean
+    public CircuitBreaker modelCircuitBreaker(EventPublisher eventPublisher) {
+        return new CircuitBreaker(deploymentName, llmProperties.resilience().breaker(), state -> {
+            log.warn("Circuit breaker for deployment {} is now {}", deploymentName, state);
+            ExecutionContext context = ExecutionContext.current();
+            eventPublisher.publish(AgentEvent.circuitBreaker(
+                    context != null ? context.patternId() : null, deploymentName, state.name()));
+        });
+    }
+
+    /**
+     * RPM/TPM limiter of the chat deployment, shared by both chat models since they draw on the same quota.
+     */
+    @Bean
+    public DeploymentRateLimiter modelRateLimiter() {
+        return new DeploymentRateLimiter(deploymentName, llmProperties.rateLimit());
+    }
+
+    /**
+     * Exact-match response cache shared by both chat models; keys include the model name.
+     */
+    @Bean
+    public ResponseCache responseCache() {
+        return new ResponseCache(llmProperties.cache());
+    }
+
+    /**
+     * Streaming twin of the chat model, used for the agents listed under matrix.llm.streaming.
+     */
+    @Bean
+    public StreamingChatModel streamingChatModel() {
+        return OpenAiOfficialStreamingChatModel.builder()
+                .baseUrl(endpoint)
+                .apiKey(apiKey)
+                .modelName(deploymentName)
+                .isAzure(true)
+                .maxRetries(sdkMaxRetries())
+                .build();
+    }
+
+    @Bean
+    public EmbeddingModel embeddingModel() {
+        if (llmProperties.semanticCache().embedding() == LlmProperties.Embedding.HASHING) {
+            return new HashingEmbeddingModel(llmProperties.semanticCache().dimension());
+        }
+        return OpenAiOfficialEmbeddingModel.builder()
+                .baseUrl(endpoint)
+                .apiKey(apiKey)
+                .modelName(embeddingDeploymentName)
+                .isAzure(true)
+                .build();
+    }
+
+    /**
+     * Similarity-based response cache shared by both chat models; entries are partitioned
+     * by model and agent.
+     */
+    @Bean
+    public SemanticCache semanticCache(EmbeddingModel embeddingModel) {
+        return new SemanticCache(llmProperties.semanticCache(), embeddingModel);
+    }
+
+    /**
+     * Metrics and a span for every call that reaches the raw model.
+     */
+    private ChatModel instrument(ChatModel model, String role, MeterRegistry meterRegistry, ExecutionTracing tracing) {
+        return new TracedChatModel(new MeteredChatModel(model, role, meterRegistry), role, deploymentName, tracing);
+    }
+
+    /**
+     * With matrix.llm.resilience enabled the SDK's own retries are turned off, so that
+     * {@link ResilientChatModel} decides alone and each attempt is metered and traced.
+     */
+    private Integer sdkMaxRetries() {
+        return llmProperties.resilience().enabled() ? 0 : null;
+    }
+
+    /**
+     * Deployment quota, between the instrumentation and the retries: every attempt queues for
+     * quota, and the time spent queueing is not model latency.
+     */
+    private ChatModel rateLimited(ChatModel model, DeploymentRateLimiter limiter) {
+        if (!llmProperties.rateLimit().enabled()) {
+            return model;
+        }
+        return new RateLimitedChatModel(model, limiter, llmProperties.rateLimit());
+    }
+
+    /**
+     * Retries and the circuit breaker, above the instrumentation so every attempt is a model call of its own.
+     */
+    private ChatModel resilient(ChatModel model, String role, CircuitBreaker breaker, EventPublisher eventPublisher,
+                                MeterRegistry meterRegistry) {
+        if (!llmProperties.resilience().enabled()) {
+            return model;
+        }
+        return new ResilientChatModel(model, role, llmProperties.resilience(), breaker, eventPublisher::publish,
+                meterRegistry);
+    }
+
+    /**
+     * Wraps a model with the decorators enabled under matrix.llm. The token budget sits
+     * right above the model and its retries, so cache hits are free, and below hedging, so a hedge is charged
+     * like any other request; the exact cache sits outermost so identical requests never pay
+     * for an embedding.
+     *
+     * @param streamingAgents agents whose calls stream TOKEN events and are therefore not hedged
+     */
+    private ChatModel decorate(ChatModel model, String role, Set<String> streamingAgents, MeterRegistry meterRegistry,
+                               ResponseCache responseCache, SemanticCache semanticCache) {
+        model = new BudgetedChatModel(model);
+        if (llmProperties.hedging().enabled()) {
+            HedgingChatModel hedging = new HedgingChatModel(model, role, llmProperties.hedging(), streamingAgents,
+                    meterRegistry);
+            hedgingModels.add(hedging);
+            model = hedging;
+        }
+        if (llmProperties.semanticCache().enabled()) {
+            model = new SemanticCachingChatModel(model, deploymentName, semanticCache);
+        }
+        if (llmProperties.cache().enabled()) {
+            model = new CachingChatModel(model, deploymentName, responseCache);
+        }
+        return model;
     }
 }
@@ -0,0 +1,358 @@
+package com.matrixagents.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of the decorators wrapped around the chat model beans (matrix.llm.*).
+ */
+@ConfigurationProperties(prefix = "matrix.llm")
+public record LlmProperties(
+    Cache cache,
+    SemanticCache semanticCache,
+    Streaming streaming,
+    Budget budget,
+    Hedging hedging,
+    Resilience resilience,
+    RateLimit rateLimit
+) {
+    public LlmProperties {
+        if (cache == null) {
+            cache = new Cache(false, 1000, Duration.ofHours(1), null);
+        }
+        if (semanticCache == null) {
+            semanticCache = new SemanticCache(false, null, 0, 0, null, 0, 0, null, null);
+        }
+        if (streaming == null) {
+            streaming = new Streaming(true, null);
+        }
+        if (budget == null) {
+            budget = new Budget(0, null);
+        }
+        if (hedging == null) {
+            hedging = new Hedging(false, 0, null, 0, 0, 0, null);
+        }
+        if (resilience == null) {
+            resilience = new Resilience(true, null, null, null);
+        }
+        if (rateLimit == null) {
+            rateLimit = new RateLimit(false, 0, 0, 0, null);
+        }
+    }
+
+    /**
+     * Exact-match response cache.
+     *
+     * @param enabled    wrap the chat models with the cache at all; off by default, since a cached
+     *                   answer makes creative agents repeat themselves
+     * @param maxEntries in-memory entries before least recently used ones are evicted
+     * @param ttl        how long a cached response stays valid, in memory and on disk
+     * @param disk       optional on-disk tier that survives restarts
+     */
+    public record Cache(boolean enabled, long maxEntries, Duration ttl, Disk disk) {
+        public Cache {
+            if (maxEntries <= 0) {
+                maxEntries = 1000;
+            }
+            if (ttl == null) {
+                ttl = Duration.ofHours(1);
+            }
+            if (disk == null) {
+                disk = new Disk(false, Path.of(".cache", "llm"), 10_000);
+            }
+        }
+    }
+
+    /**
+     * @param enabled    persist cached responses under the directory
+     * @param directory  one file per cached response
+     * @param maxEntries files kept before the oldest are deleted
+     */
+    public record Disk(boolean enabled, Path directory, long maxEntries) {
+        public Disk {
+            if (directory == null) {
+                directory = Path.of(".cache", "llm");
+            }
+            if (maxEntries <= 0) {
+                maxEntries = 10_000;
+            }
+        }
+    }
+
+    /**
+     * Similarity-based response cache: prompts whose embeddings are close enough to an earlier
+     * prompt of the same agent get that prompt's answer.
+     *
+     * @param enabled      wrap the chat models with the semantic cache at all
+     * @param embedding    where prompt embeddings come from
+     * @param dimension    vector size of the hashing embedding (the deployment decides its own)
+     * @param maxEntries   cached prompts kept before the oldest are evicted
+     * @param ttl          how long a cached response stays valid
+     * @param hashTables   LSH tables of the index; more tables find more near neighbours
+     * @param hashBits     hyperplanes per table; more bits mean smaller buckets
+     * @param defaults     policy of agents not listed under agents
+     * @param agents       per-agent overrides, keyed by agent name as reported in agent events
+     */
+    public record SemanticCache(
+        boolean enabled,
+        Embedding embedding,
+        int dimension,
+        long maxEntries,
+        Duration ttl,
+        int hashTables,
+        int hashBits,
+        Policy defaults,
+        Map<String, Policy> agents
+    ) {
+        public SemanticCache {
+            if (embedding == null) {
+                embedding = Embedding.DEPLOYMENT;
+            }
+            if (dimension <= 0) {
+                dimension = 256;
+            }
+            if (maxEntries <= 0) {
+                maxEntries = 2000;
+            }
+            if (ttl == null) {
+                ttl = Duration.ofHours(1);
+            }
+            if (hashTables <= 0) {
+                hashTables = 8;
+            }
+            if (hashBits <= 0 || hashBits > 63) {
+                hashBits = 10;
+            }
+            Policy builtIn = new Policy(true, 0.95);
+            defaults = defaults == null ? builtIn : defaults.orElse(builtIn);
+            if (agents == null) {
+                agents = Map.of();
+            }
+        }
+
+        public Policy policyFor(String agentName) {
+            Policy override = agentName == null ? null : agents.get(agentName);
+            return override == null ? defaults : override.orElse(defaults);
+        }
+    }
+
+    public enum Embedding {
+        /** The azure.openai.embedding-deployment model. */
+        DEPLOYMENT,
+        /** Local deterministic feature hashing; no network calls, for tests and offline runs. */
+        HASHING
+    }
+
+    /**
+     * @param enabled   look up and store this agent's responses
+     * @param threshold minimum cosine similarity for a cached response to be reused
+     */
+    public record Policy(Boolean enabled, Double threshold) {
+        Policy orElse(Policy fallback) {
+            return new Policy(
+                enabled != null ? enabled : fallback.enabled(),
+                threshold != null ? threshold : fallback.threshold()
+            );
+        }
+    }
+
+    /**
+     * Token streaming of the agents whose output the user reads directly.
+     *
+     * @param enabled route the listed agents through the streaming model
+     * @param agents  agent names, as reported in agent events, that publish TOKEN events
+     */
+    public record Streaming(@DefaultValue("true") boolean enabled, List<String> agents) {
+        public Streaming {
+            if (agents == null) {
+                agents = List.of("editForStyle", "editStory", "write", "generateHoroscope",
+                        "medical", "legal", "technical");
+            }
+        }
+    }
+
+    /**
+     * Token budget of one execution, counted over the model calls that are not cache hits.
+     * A request can set its own with parameters.tokenBudget.
+     *
+     * @param maxTokens input plus output tokens an execution may spend; 0 means unlimited
+     * @param patterns  per-pattern overrides of maxTokens, keyed by pattern id
+     */
+    public record Budget(long maxTokens, Map<String, Long> patterns) {
+        public Budget {
+            if (maxTokens < 0) {
+                maxTokens = 0;
+            }
+            if (patterns == null) {
+                patterns = Map.of();
+            }
+        }
+
+        public long maxTokensFor(String patternId) {
+            Long override = patterns.get(patternId);
+            return override != null ? override : maxTokens;
+        }
+    }
+
+    /**
+     * Hedged model requests: when a call takes longer than the agent usually does, an
+     * identical second request is sent and whichever answers first is used.
+     *
+     * @param enabled    wrap the chat models with the hedging decorator at all
+     * @param percentile latency percentile of the agent's recent calls after which the hedge is sent
+     * @param minDelay   never hedge earlier than this, however fast the agent usually is
+     * @param minSamples calls of an agent observed before it is hedged at all
+     * @param maxRate    hedges allowed per call (0..1), averaged over recent calls
+     * @param window     recent call latencies kept per agent
+     * @param agents     agent names to hedge, as reported in agent events; empty means all.
+     *                   Streaming agents are never hedged
+     */
+    public record Hedging(
+        boolean enabled,
+        double percentile,
+        Duration minDelay,
+        int minSamples,
+        double maxRate,
+        int window,
+        List<String> agents
+    ) {
+        public Hedging {
+            if (percentile <= 0 || percentile >= 1) {
+                percentile = 0.95;
+            }
+            if (minDelay == null) {
+                minDelay = Duration.ofSeconds(1);
+            }
+            if (minSamples <= 0) {
+                minSamples = 20;
+            }
+            if (maxRate <= 0 || maxRate > 1) {
+                maxRate = 0.1;
+            }
+            if (window <= 0) {
+                window = 200;
+            }
+            if (agents == null) {
+                agents = List.of();
+            }
+        }
+    }
+
+    /**
+     * Retries and circuit breaking around the raw chat models.
+     *
+     * @param enabled  wrap the chat models with retries and the circuit breaker at all
+     * @param defaults retry policy of agents not listed under agents
+     * @param agents   per-agent retry overrides, keyed by agent name as reported in agent events
+     * @param breaker  circuit breaker shared by all calls to the deployment
+     */
+    public record Resilience(
+        @DefaultValue("true") boolean enabled,
+        Retry defaults,
+        Map<String, Retry> agents,
+        Breaker breaker
+    ) {
+        public Resilience {
+            Retry builtIn = new Retry(4, Duration.ofMillis(500), Duration.ofSeconds(20), 2.0, Duration.ofSeconds(60));
+            defaults = defaults == null ? builtIn : defaults.orElse(builtIn);
+            if (agents == null) {
+                agents = Map.of();
+            }
+            if (breaker == null) {
+                breaker = new Breaker(true, 0, 0, 0, null);
+            }
+        }
+
+        public Retry retryFor(String agentName) {
+            Retry override = agentName == null ? null : agents.get(agentName);
+            return override == null ? defaults : override.orElse(defaults);
+        }
+    }
+
+    /**
+     * Retries of calls that failed with 429, 5xx, a timeout or a connection error. Backoff is
+     * exponential with full jitter; a Retry-After from the service replaces it.
+     *
+     * @param maxAttempts    attempts in total, including the first; 1 disables retries
+     * @param initialBackoff upper bound of the first backoff
+     * @param maxBackoff     upper bound of any backoff
+     * @param multiplier     growth of the backoff bound per attempt
+     * @param maxRetryAfter  longest Retry-After honoured; a longer one fails the call at once
+     */
+    public record Retry(Integer maxAttempts, Duration initialBackoff, Duration maxBackoff, Double multiplier,
+                        Duration maxRetryAfter) {
+        Retry orElse(Retry fallback) {
+            return new Retry(
+                maxAttempts != null ? maxAttempts : fallback.maxAttempts(),
+                initialBackoff != null ? initialBackoff : fallback.initialBackoff(),
+                maxBackoff != null ? maxBackoff : fallback.maxBackoff(),
+                multiplier != null ? multiplier : fallback.multiplier(),
+                maxRetryAfter != null ? maxRetryAfter : fallback.maxRetryAfter()
+            );
+        }
+    }
+
+    /**
+     * @param enabled              fail fast while the deployment is unhealthy
+     * @param windowSize           most recent calls the failure rate is computed over
+     * @param minCalls             calls in the window before the breaker may open
+     * @param failureRateThreshold share of failed calls (5xx, timeouts, connection errors) that opens the breaker
+     * @param openDuration         how long the breaker stays open before one trial call is let through
+     */
+    public record Breaker(@DefaultValue("true") boolean enabled, int windowSize, int minCalls,
+                          double failureRateThreshold, Duration openDuration) {
+        public Breaker {
+            if (windowSize <= 0) {
+                windowSize = 20;
+            }
+            if (minCalls <= 0) {
+                minCalls = 10;
+            }
+            if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+                failureRateThreshold = 0.5;
+            }
+            if (openDuration == null) {
+                openDuration = Duration.ofSeconds(30);
+            }
+        }
+    }
+
+    /**
+     * Process-wide limiter of the calls to the chat deployment, against its Azure OpenAI quota.
+     * Each call takes one request and its estimated tokens (prompt plus expected output) from
+     * token buckets refilled continuously; the estimate is corrected by the actual usage.
+     *
+     * @param enabled              wrap the chat models with the limiter at all
+     * @param tokensPerMinute      the deployment's TPM quota
+     * @param requestsPerMinute    the deployment's RPM quota; Azure grants 6 RPM per 1000 TPM, which is the default
+     * @param expectedOutputTokens output tokens reserved for a call that sets no maxOutputTokens
+     * @param maxWait              longest a call queues for quota before it fails
+     */
+    public record RateLimit(
+        boolean enabled,
+        long tokensPerMinute,
+        long requestsPerMinute,
+        int expectedOutputTokens,
+        Duration maxWait
+    ) {
+        public RateLimit {
+            if (tokensPerMinute <= 0) {
+                tokensPerMinute = 50_000;
+            }
+            if (requestsPerMinute <= 0) {
+                requestsPerMinute = Math.max(1, tokensPerMinute * 6 / 1000);
+            }
+            if (expectedOutputTokens <= 0) {
+                expectedOutputTokens = 1000;
+            }
+            if (maxWait == null) {
+                maxWait = Duration.ofMinutes(2);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.matrixagents.config;
+
+import com.matrixagents.history.ExecutionHistory;
+import com.matrixagents.llm.CircuitBreaker;
+import com.matrixagents.llm.DeploymentRateLimiter;
+import com.matrixagents.service.EventPublisher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Locale;
+
+/**
+ * Exposes the counters that the event pipeline, the model's circuit breaker and its rate
+ * limiter keep anyway (see /api/stats) as Micrometer meters, read at scrape time. Timers for
+ * patterns, agents and model calls are recorded directly by
+ * {@link com.matrixagents.service.ExecutionMetrics} and {@link com.matrixagents.llm.MeteredChatModel}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder eventPipelineMeters(EventPublisher eventPublisher, ExecutionHistory history) {
+        return registry -> {
+            for (EventPublisher.Destination destination : EventPublisher.Destination.values()) {
+                FunctionCounter.builder("matrix.events.published", eventPublisher, p -> p.publishedTo(destination))
+                        .description("Events sent, per kind of destination")
+                        .tag("destination", destination.name().toLowerCase(Locale.ROOT))
+                        .register(registry);
+            }
+            FunctionCounter.builder("matrix.events.replay.requests", eventPublisher, p -> p.replayStats().requests())
+                    .description("Replay requests from resubscribing clients")
+                    .register(registry);
+            FunctionCounter.builder("matrix.events.replay.hits", eventPublisher, p -> p.replayStats().hits())
+                    .description("Replay requests answered with at least one event")
+                    .register(registry);
+            FunctionCounter.builder("matrix.history.written", history, h -> h.stats().written())
+                    .description("Executions written to the history")
+                    .register(registry);
+            FunctionCounter.builder("matrix.history.dropped", history, h -> h.stats().dropped())
+                    .description("Executions dropped because the history queue was full")
+                    .register(registry);
+            Gauge.builder("matrix.history.queued", history, h -> h.stats().queued())
+                    .description("Executions waiting to be written to the history")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder circuitBreakerMeters(CircuitBreaker modelCircuitBreaker) {
+        return registry -> {
+            Gauge.builder("matrix.model.circuit.state", modelCircuitBreaker, b -> b.state().ordinal())
+                    .description("State of the deployment's circuit breaker: 0 closed, 1 open, 2 half-open")
+                    .tag("deployment", modelCircuitBreaker.name())
+                    .register(registry);
+            FunctionCounter.builder("matrix.model.circuit.rejected", modelCircuitBreaker, b -> b.stats().rejected())
+                    .description("Model calls failed fast because the circuit breaker was open")
+                    .tag("deployment", modelCircuitBreaker.name())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder rateLimiterMeters(DeploymentRateLimiter modelRateLimiter) {
+        String deployment = modelRateLimiter.name();
+        return registry -> {
+            Gauge.builder("matrix.model.ratelimit.available", modelRateLimiter, l -> l.stats().availableRequests())
+                    .description("Quota the deployment has left right now")
+                    .tags("deployment", deployment, "type", "requests")
+                    .register(registry);
+            Gauge.builder("matrix.model.ratelimit.available", modelRateLimiter, l -> l.stats().availableTokens())
+                    .description("Quota the deployment has left right now")
+                    .tags("deployment", deployment, "type", "tokens")
+                    .register(registry);
+            Gauge.builder("matrix.model.ratelimit.queued", modelRateLimiter, l -> l.stats().queued())
+                    .description("Model calls waiting for quota")
+                    .tag("deployment", deployment)
+                    .register(registry);
+            FunctionCounter.builder("matrix.model.ratelimit.throttled", modelRateLimiter, l -> l.stats().throttled())
+                    .description("Model calls that had to wait for quota")
+                    .tag("deployment", deployment)
+                    .register(registry);
+            FunctionCounter.builder("matrix.model.ratelimit.wait", modelRateLimiter, l -> l.stats().waitedMillis())
+                    .description("Time model calls spent waiting for quota")
+                    .tag("deployment", deployment)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        };
+    }
+}
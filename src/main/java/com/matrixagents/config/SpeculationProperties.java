@@ -0,0 +1,43 @@
+package com.matrixagents.config;
+
+import com.matrixagents.agents.ConditionalAgents.RequestCategory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Speculative expert execution of the conditional pattern (matrix.conditional.speculation.*).
+ *
+ * The expert of the most likely category starts together with the CategoryRouter. The
+ * likelihood of a category is its share of the last window classifications, with the prior
+ * added as pseudo-counts so a fresh instance has a guess too.
+ *
+ * @param enabled       speculate unless a request sets parameters.speculate=false; a request
+ *                      can also turn it on with parameters.speculate=true
+ * @param window        recent classifications the category distribution is taken from
+ * @param minConfidence least likelihood (0..1) of the best guess for speculating at all
+ * @param prior         pseudo-counts per category, e.g. TECHNICAL: 5; 1 for every category by default
+ */
+@ConfigurationProperties(prefix = "matrix.conditional.speculation")
+public record SpeculationProperties(
+    boolean enabled,
+    int window,
+    double minConfidence,
+    Map<RequestCategory, Double> prior
+) {
+    public SpeculationProperties {
+        if (window <= 0) {
+            window = 100;
+        }
+        if (minConfidence < 0 || minConfidence > 1) {
+            minConfidence = 0;
+        }
+        if (prior == null) {
+            prior = Map.of();
+        }
+    }
+
+    public double priorOf(RequestCategory category) {
+        return prior.getOrDefault(category, 1.0);
+    }
+}
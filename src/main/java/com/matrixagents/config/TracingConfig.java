@@ -0,0 +1,21 @@
+package com.matrixagents.config;
+
+import com.matrixagents.tracing.FileSpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Span exporters in addition to OTLP. Spring Boot hands every SpanExporter bean to the
+ * OpenTelemetry SDK's batch span processor.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "matrix.tracing.file", name = "enabled", havingValue = "true")
+    public FileSpanExporter fileSpanExporter(TracingProperties properties, JsonMapper jsonMapper) {
+        return new FileSpanExporter(properties.file().path(), jsonMapper);
+    }
+}
@@ -0,0 +1,32 @@
+package com.matrixagents.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Trace export beyond OTLP (matrix.tracing.*). OTLP itself is configured through Spring
+ * Boot's management.opentelemetry.tracing.export.otlp properties.
+ *
+ * @param file local JSON-lines export of finished spans, for offline analysis
+ */
+@ConfigurationProperties(prefix = "matrix.tracing")
+public record TracingProperties(File file) {
+    public TracingProperties {
+        if (file == null) {
+            file = new File(false, null);
+        }
+    }
+
+    /**
+     * @param enabled write every finished span to the file
+     * @param path    file the spans are appended to, one JSON object per line
+     */
+    public record File(boolean enabled, Path path) {
+        public File {
+            if (path == null) {
+                path = Path.of("data", "traces.jsonl");
+            }
+        }
+    }
+}
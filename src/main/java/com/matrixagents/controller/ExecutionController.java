@@ -0,0 +1,117 @@
+package com.matrixagents.controller;
+
+import com.matrixagents.history.ExecutionHistory;
+import com.matrixagents.model.EventPage;
+import com.matrixagents.model.ExecutionRequest;
+import com.matrixagents.model.ExecutionResult;
+import com.matrixagents.model.ExecutionStatus;
+import com.matrixagents.service.BulkheadFullException;
+import com.matrixagents.service.DuplicateExecutionException;
+import com.matrixagents.service.ExecutionRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asynchronous job API: submit an execution, then poll its status, events and result.
+ * Executions that are no longer tracked in memory are looked up in the {@link ExecutionHistory}.
+ */
+@RestController
+@RequestMapping("/api/executions")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class ExecutionController {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ExecutionRegistry executionRegistry;
+    private final ExecutionHistory history;
+
+    public ExecutionController(ExecutionRegistry executionRegistry, ExecutionHistory history) {
+        this.executionRegistry = executionRegistry;
+        this.history = history;
+    }
+
+    /**
+     * Finished executions from the history, newest first, filtered by pattern and start time [from, to).
+     */
+    @GetMapping
+    public List<ExecutionStatus> list(
+            @RequestParam(required = false) String patternId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "100") int limit) {
+        return history.query(patternId, from, to, Math.clamp(limit, 0, MAX_PAGE_SIZE));
+    }
+
+    @PostMapping
+    public ResponseEntity<ExecutionResult> submit(@RequestBody ExecutionRequest request) {
+        ExecutionResult submitted = executionRegistry.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/executions/" + submitted.executionId()))
+                .body(submitted);
+    }
+
+    @GetMapping("/{executionId}")
+    public ResponseEntity<ExecutionStatus> getStatus(@PathVariable String executionId) {
+        return ResponseEntity.of(executionRegistry.status(executionId).or(() -> history.status(executionId)));
+    }
+
+    /**
+     * 200 with the final result, or 202 with the RUNNING / PENDING_HUMAN_INPUT snapshot.
+     * Results from the history are streamed from the stored JSON as-is.
+     */
+    @GetMapping("/{executionId}/result")
+    public ResponseEntity<?> getResult(@PathVariable String executionId) {
+        ExecutionResult result = executionRegistry.result(executionId).orElse(null);
+        if (result != null) {
+            return result.endTime() != null
+                    ? ResponseEntity.ok(result)
+                    : ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        }
+        return history.resultJson(executionId)
+                .<ResponseEntity<?>>map(json -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .contentLength(json.remaining())
+                        .body(stream(json)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{executionId}/events")
+    public ResponseEntity<EventPage> getEvents(
+            @PathVariable String executionId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.of(executionRegistry.events(executionId, offset, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    private static StreamingResponseBody stream(ByteBuffer json) {
+        return out -> Channels.newChannel(out).write(json);
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Map<String, String>> bulkheadFull(BulkheadFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(DuplicateExecutionException.class)
+    public ResponseEntity<Map<String, String>> duplicate(DuplicateExecutionException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
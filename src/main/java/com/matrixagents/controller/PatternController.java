@@ -1,15 +1,27 @@
 package com.matrixagents.controller;
 
+import com.matrixagents.config.BatchProperties;
 import com.matrixagents.model.*;
+import com.matrixagents.service.BatchExecutionService;
+import com.matrixagents.service.BulkheadFullException;
+import com.matrixagents.service.DuplicateExecutionException;
+import com.matrixagents.service.ExecutionContext;
 import com.matrixagents.service.PatternExecutionService;
 import com.matrixagents.service.HumanInputService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
 
 @RestController
 @RequestMapping("/api")
@@ -18,11 +30,17 @@ public class PatternController {
 
     private final PatternExecutionService executionService;
     private final HumanInputService humanInputService;
+    private final BatchExecutionService batchService;
+    private final BatchProperties batchProperties;
 
     public PatternController(PatternExecutionService executionService,
-                            HumanInputService humanInputService) {
+                            HumanInputService humanInputService,
+                            BatchExecutionService batchService,
+                            BatchProperties batchProperties) {
         this.executionService = executionService;
         this.humanInputService = humanInputService;
+        this.batchService = batchService;
+        this.batchProperties = batchProperties;
     }
 
     @GetMapping("/patterns")
@@ -44,16 +62,115 @@ public class PatternController {
             @PathVariable String patternId,
             @RequestBody ExecutionRequest request) {
         
-        return executionService.executePattern(patternId, request.prompt())
+        ExecutionContext context = new ExecutionContext(request.executionIdOrRandom(), patternId, request.parameters());
+        return executionService.execute(context, request.prompt())
                 .thenApply(ResponseEntity::ok)
-                .exceptionally(e -> ResponseEntity.internalServerError()
-                        .body(ExecutionResult.error(
-                                java.util.UUID.randomUUID().toString(),
-                                patternId,
-                                e.getMessage(),
-                                List.of(),
-                                java.time.Instant.now()
-                        )));
+                .exceptionally(e -> errorResponse(context, e));
+    }
+
+    /**
+     * Streams the execution as server-sent events: one event per AgentEvent, named after its
+     * type (TOKEN events carry partial agent output), then a final "result" event with the
+     * ExecutionResult. A full bulkhead answers 429, an executionId already running 409, with the
+     * error as the result event.
+     */
+    @PostMapping(value = "/patterns/{patternId}/execute/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> executePatternStream(
+            @PathVariable String patternId,
+            @RequestBody ExecutionRequest request) {
+
+        SseEmitter emitter = new SseEmitter();
+        ExecutionContext context = new ExecutionContext(request.executionIdOrRandom(), patternId, request.parameters(),
+                frame -> send(emitter, frame.event().eventType().name(), frame));
+        CompletableFuture<ExecutionResult> execution = executionService.execute(context, request.prompt());
+
+        if (execution.isCompletedExceptionally()) {
+            ResponseEntity<ExecutionResult> error = execution.thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> errorResponse(context, e))
+                    .join();
+            send(emitter, "result", error.getBody());
+            emitter.complete();
+            return ResponseEntity.status(error.getStatusCode()).headers(error.getHeaders()).body(emitter);
+        }
+        execution.whenComplete((result, e) -> {
+            send(emitter, "result", e == null ? result : errorResponse(context, e).getBody());
+            emitter.complete();
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Runs every prompt of the batch through the pattern, at most request.concurrency at a time,
+     * and streams NDJSON: one {"type":"result","index":...} line per prompt as soon as it is done,
+     * in completion order, then a {"type":"summary"} line with aggregate timings.
+     */
+    @PostMapping(value = "/patterns/{patternId}/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> executeBatch(
+            @PathVariable String patternId,
+            @RequestBody BatchRequest request) {
+
+        try {
+            batchService.validate(patternId, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchProperties.timeout().toMillis());
+        // Results complete on many virtual threads; lines must not interleave, and a monitor would pin them
+        ReentrantLock lock = new ReentrantLock();
+        batchService.start(patternId, request, item -> sendLine(emitter, lock, item))
+                .whenComplete((summary, e) -> {
+                    if (e == null) {
+                        sendLine(emitter, lock, summary);
+                        emitter.complete();
+                    } else {
+                        emitter.completeWithError(e);
+                    }
+                });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    /**
+     * Writes one NDJSON line; false once the client has gone away.
+     */
+    private static boolean sendLine(ResponseBodyEmitter emitter, ReentrantLock lock, Object line) {
+        lock.lock();
+        try {
+            emitter.send(line, MediaType.APPLICATION_JSON);
+            emitter.send("\n", MediaType.TEXT_PLAIN);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the execution keeps running and its events still go over WebSocket
+        }
+    }
+
+    private ResponseEntity<ExecutionResult> errorResponse(ExecutionContext context, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        ExecutionResult error = ExecutionResult.error(
+                context.executionId(),
+                context.patternId(),
+                cause.getMessage(),
+                List.of(),
+                java.time.Instant.now()
+        );
+        if (cause instanceof BulkheadFullException full) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(full.getRetryAfterSeconds()))
+                    .body(error);
+        }
+        if (cause instanceof DuplicateExecutionException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+        return ResponseEntity.internalServerError().body(error);
     }
 
     @PostMapping("/human-input/{requestId}")
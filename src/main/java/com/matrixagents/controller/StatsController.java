@@ -0,0 +1,76 @@
+package com.matrixagents.controller;
+
+import com.matrixagents.history.ExecutionHistory;
+import com.matrixagents.llm.CircuitBreaker;
+import com.matrixagents.llm.DeploymentRateLimiter;
+import com.matrixagents.llm.ResponseCache;
+import com.matrixagents.llm.SemanticCache;
+import com.matrixagents.service.EventPublisher;
+import com.matrixagents.service.ExpertSpeculator;
+import com.matrixagents.service.ParallelAgentExecutor;
+import com.matrixagents.service.PatternBulkheads;
+import com.matrixagents.service.PatternExecutionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Live runtime counters of the execution pipeline.
+ */
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class StatsController {
+
+    private final ParallelAgentExecutor parallelAgentExecutor;
+    private final PatternBulkheads bulkheads;
+    private final ResponseCache responseCache;
+    private final SemanticCache semanticCache;
+    private final EventPublisher eventPublisher;
+    private final ExecutionHistory history;
+    private final CircuitBreaker modelCircuitBreaker;
+    private final DeploymentRateLimiter modelRateLimiter;
+    private final PatternExecutionService executionService;
+    private final ExpertSpeculator speculator;
+
+    public StatsController(ParallelAgentExecutor parallelAgentExecutor,
+                           PatternBulkheads bulkheads,
+                           ResponseCache responseCache,
+                           SemanticCache semanticCache,
+                           EventPublisher eventPublisher,
+                           ExecutionHistory history,
+                           CircuitBreaker modelCircuitBreaker,
+                           DeploymentRateLimiter modelRateLimiter,
+                           PatternExecutionService executionService,
+                           ExpertSpeculator speculator) {
+        this.parallelAgentExecutor = parallelAgentExecutor;
+        this.bulkheads = bulkheads;
+        this.responseCache = responseCache;
+        this.semanticCache = semanticCache;
+        this.eventPublisher = eventPublisher;
+        this.history = history;
+        this.modelCircuitBreaker = modelCircuitBreaker;
+        this.modelRateLimiter = modelRateLimiter;
+        this.executionService = executionService;
+        this.speculator = speculator;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("parallelAgents", parallelAgentExecutor.stats());
+        stats.put("bulkheads", bulkheads.stats());
+        stats.put("coalescing", executionService.coalescingStats());
+        stats.put("speculation", speculator.stats());
+        stats.put("responseCache", responseCache.stats());
+        stats.put("semanticCache", semanticCache.stats());
+        stats.put("eventBatching", eventPublisher.stats());
+        stats.put("eventReplay", eventPublisher.replayStats());
+        stats.put("history", history.stats());
+        stats.put("circuitBreaker", modelCircuitBreaker.stats());
+        stats.put("rateLimit", modelRateLimiter.stats());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -1,22 +1,30 @@
 package com.matrixagents.controller;
 
 import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
+import com.matrixagents.service.EventPublisher;
 import com.matrixagents.service.HumanInputService;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
+import java.util.List;
 import java.util.Map;
 
 @Controller
 public class WebSocketController {
 
     private final HumanInputService humanInputService;
+    private final EventPublisher eventPublisher;
 
-    public WebSocketController(HumanInputService humanInputService) {
+    public WebSocketController(HumanInputService humanInputService, EventPublisher eventPublisher) {
         this.humanInputService = humanInputService;
+        this.eventPublisher = eventPublisher;
     }
 
     @MessageMapping("/subscribe")
@@ -35,4 +43,16 @@ public class WebSocketController {
             humanInputService.provideInput(requestId, input);
         }
     }
+
+    /**
+     * One-shot replay for a client that (re)subscribed to /topic/executions/{executionId}:
+     * answers with a JSON array of the buffered events after the lastSequence header.
+     * Subscribe to the live topic first so nothing falls between replay and live delivery;
+     * the sequence numbers take care of the overlap.
+     */
+    @SubscribeMapping("/executions/{executionId}/replay")
+    public List<EventFrame> replay(@DestinationVariable String executionId,
+                                   @Header(name = "lastSequence", required = false, defaultValue = "0") long lastSequence) {
+        return eventPublisher.replay(executionId, lastSequence);
+    }
 }
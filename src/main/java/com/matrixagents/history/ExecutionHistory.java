@@ -0,0 +1,317 @@
+package com.matrixagents.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.matrixagents.config.HistoryProperties;
+import com.matrixagents.model.ExecutionResult;
+import com.matrixagents.model.ExecutionStatus;
+
+import jakarta.annotation.PreDestroy;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Durable history of finished executions, kept in memory-mapped segment files.
+ *
+ * {@link #record} only enqueues the result; a single writer thread serializes it and appends
+ * it to the active segment, so the execution path never waits for disk. Each record carries
+ * the execution's ExecutionStatus as a small header, which is all that is read back on
+ * startup to rebuild the in-memory index by executionId, patternId and start time. Result
+ * bodies are served straight from the mapping without being parsed.
+ *
+ * A full segment is sealed and a new one started; segments beyond maxSegments, or whose
+ * newest execution ended before the retention period, are deleted with their index entries.
+ *
+ * Requests coalesced into another execution have no record of their own; their executionId
+ * is an alias of that execution's, kept in memory until the execution leaves the history.
+ */
+@Service
+public class ExecutionHistory {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionHistory.class);
+
+    private static final ExecutionResult STOP = new ExecutionResult(null, null, null, null, List.of(), Map.of(), null, null, 0, null, null);
+
+    private final HistoryProperties properties;
+    private final JsonMapper jsonMapper;
+    private final BlockingQueue<ExecutionResult> queue;
+    private final ArrayDeque<HistorySegment> segments = new ArrayDeque<>();
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final NavigableMap<TimeKey, Entry> byTime = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<TimeKey, Entry>> byPattern = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Thread writer;
+
+    public ExecutionHistory(HistoryProperties properties, JsonMapper jsonMapper) {
+        this.properties = properties;
+        this.jsonMapper = jsonMapper;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        if (!properties.enabled()) {
+            this.writer = null;
+            return;
+        }
+        try {
+            load();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open execution history in " + properties.directory(), e);
+        }
+        this.writer = Thread.ofPlatform().name("execution-history").daemon().start(this::drain);
+    }
+
+    /**
+     * Queues a finished execution for writing. Never blocks: when the queue is full the
+     * execution is dropped from the history (and counted).
+     */
+    public void record(ExecutionResult result) {
+        if (writer == null || result.endTime() == null) {
+            return;
+        }
+        if (!queue.offer(result)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Makes the execution findable under the alias as well, for a request that shares its
+     * result. The execution itself may still be running.
+     */
+    public void alias(String alias, String executionId) {
+        if (writer != null && !alias.equals(executionId)) {
+            aliases.put(alias, executionId);
+        }
+    }
+
+    public Optional<ExecutionStatus> status(String executionId) {
+        return Optional.ofNullable(find(executionId)).map(Entry::status);
+    }
+
+    /**
+     * The stored ExecutionResult JSON, as a read-only view of the segment mapping.
+     */
+    public Optional<ByteBuffer> resultJson(String executionId) {
+        Entry entry = find(executionId);
+        return entry == null ? Optional.empty() : Optional.of(entry.segment.slice(entry.bodyOffset, entry.bodyLength));
+    }
+
+    /**
+     * Finished executions started within [from, to), newest first, optionally of one pattern only.
+     */
+    public List<ExecutionStatus> query(String patternId, Instant from, Instant to, int limit) {
+        NavigableMap<TimeKey, Entry> index = patternId == null ? byTime : byPattern.get(patternId);
+        if (index == null) {
+            return List.of();
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        return index.subMap(new TimeKey(fromMillis, ""), true, new TimeKey(toMillis, ""), false)
+                .descendingMap().values().stream()
+                .limit(limit)
+                .map(Entry::status)
+                .toList();
+    }
+
+    public Stats stats() {
+        int segmentCount;
+        synchronized (segments) {
+            segmentCount = segments.size();
+        }
+        return new Stats(writer != null, byId.size(), segmentCount, storedBytes.get(), queue.size(),
+                written.sum(), dropped.sum(), failed.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            queue.put(STOP);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                ExecutionResult result = queue.take();
+                if (result == STOP) {
+                    break;
+                }
+                try {
+                    write(result);
+                    written.increment();
+                } catch (Exception e) {
+                    failed.increment();
+                    log.warn("Could not write execution {} to the history", result.executionId(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (segments) {
+                HistorySegment active = segments.peekLast();
+                if (active != null) {
+                    active.force();
+                }
+            }
+        }
+    }
+
+    private void write(ExecutionResult result) throws IOException {
+        ExecutionStatus status = new ExecutionStatus(result.executionId(), result.patternId(), result.status(),
+                result.events().size(), null, result.startTime(), result.endTime(), result.durationMs());
+        byte[] header = jsonMapper.writeValueAsBytes(status);
+        byte[] body = jsonMapper.writeValueAsBytes(result);
+        long endMillis = result.endTime().toEpochMilli();
+        synchronized (segments) {
+            HistorySegment segment = segments.peekLast();
+            int bodyOffset = segment == null ? -1 : segment.append(header, body, endMillis);
+            if (bodyOffset < 0) {
+                if (segment != null) {
+                    segment.force();
+                }
+                int recordSize = HistorySegment.RECORD_OVERHEAD + header.length + body.length;
+                segment = HistorySegment.create(properties.directory(), nextSegmentId(),
+                        (int) Math.max(properties.segmentSize().toBytes(), recordSize));
+                segments.addLast(segment);
+                bodyOffset = segment.append(header, body, endMillis);
+                enforceRetention();
+            }
+            storedBytes.addAndGet(HistorySegment.RECORD_OVERHEAD + header.length + body.length);
+            index(new Entry(status, segment, bodyOffset, body.length));
+        }
+    }
+
+    private long nextSegmentId() {
+        HistorySegment last = segments.peekLast();
+        return last == null ? 1 : last.id() + 1;
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(properties.directory());
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(properties.directory())) {
+            files = listing.filter(path -> HistorySegment.idOf(path) >= 0)
+                    .sorted(Comparator.comparingLong(HistorySegment::idOf))
+                    .toList();
+        }
+        for (Path file : files) {
+            List<ExecutionStatus> recovered = new ArrayList<>();
+            List<int[]> locations = new ArrayList<>();
+            HistorySegment segment = HistorySegment.open(file, HistorySegment.idOf(file), (header, bodyOffset, bodyLength) -> {
+                ExecutionStatus status = jsonMapper.readValue(header, ExecutionStatus.class);
+                recovered.add(status);
+                locations.add(new int[] {bodyOffset, bodyLength});
+                return status.endTime() != null ? status.endTime().toEpochMilli() : 0;
+            });
+            segments.addLast(segment);
+            storedBytes.addAndGet(segment.size());
+            for (int i = 0; i < recovered.size(); i++) {
+                index(new Entry(recovered.get(i), segment, locations.get(i)[0], locations.get(i)[1]));
+            }
+        }
+        enforceRetention();
+        log.info("Execution history: {} executions in {} segments under {}", byId.size(), segments.size(),
+                properties.directory());
+    }
+
+    private Entry find(String executionId) {
+        Entry entry = byId.get(executionId);
+        if (entry != null) {
+            return entry;
+        }
+        String aliased = aliases.get(executionId);
+        return aliased == null ? null : byId.get(aliased);
+    }
+
+    private void index(Entry entry) {
+        Entry previous = byId.put(entry.status.executionId(), entry);
+        if (previous != null) {
+            // Recorded twice (e.g. the same executionId reused): the newer record wins
+            removeTimeKeys(previous);
+        }
+        byTime.put(entry.timeKey(), entry);
+        byPattern.computeIfAbsent(entry.status.patternId(), id -> new ConcurrentSkipListMap<>()).put(entry.timeKey(), entry);
+    }
+
+    private void unindex(Entry entry) {
+        if (byId.remove(entry.status.executionId(), entry)) {
+            removeTimeKeys(entry);
+            aliases.values().removeIf(entry.status.executionId()::equals);
+        }
+    }
+
+    private void removeTimeKeys(Entry entry) {
+        byTime.remove(entry.timeKey(), entry);
+        NavigableMap<TimeKey, Entry> patternIndex = byPattern.get(entry.status.patternId());
+        if (patternIndex != null) {
+            patternIndex.remove(entry.timeKey(), entry);
+        }
+    }
+
+    /**
+     * Deletes the oldest segments beyond maxSegments or past retention; never the active one.
+     */
+    private void enforceRetention() {
+        long cutoff = System.currentTimeMillis() - properties.retention().toMillis();
+        while (segments.size() > 1
+                && (segments.size() > properties.maxSegments() || segments.peekFirst().newestEndMillis() < cutoff)) {
+            HistorySegment oldest = segments.removeFirst();
+            byId.values().stream().filter(entry -> entry.segment == oldest).toList().forEach(this::unindex);
+            storedBytes.addAndGet(-oldest.size());
+            try {
+                oldest.delete();
+            } catch (IOException e) {
+                log.warn("Could not delete history segment {}", HistorySegment.fileName(oldest.id()), e);
+            }
+        }
+    }
+
+    private record TimeKey(long startMillis, String executionId) implements Comparable<TimeKey> {
+        @Override
+        public int compareTo(TimeKey other) {
+            int byStart = Long.compare(startMillis, other.startMillis);
+            return byStart != 0 ? byStart : executionId.compareTo(other.executionId);
+        }
+    }
+
+    private record Entry(ExecutionStatus status, HistorySegment segment, int bodyOffset, int bodyLength) {
+        TimeKey timeKey() {
+            return new TimeKey(status.startTime() != null ? status.startTime().toEpochMilli() : 0, status.executionId());
+        }
+    }
+
+    /**
+     * @param dropped executions not recorded because the write queue was full
+     */
+    public record Stats(boolean enabled, int executions, int segments, long bytes, int queued,
+                        long written, long dropped, long failed) {}
+}
@@ -0,0 +1,183 @@
+package com.matrixagents.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One memory-mapped, append-only file of execution records.
+ *
+ * A record is [int headerLength][int bodyLength][header][body]. The header length is
+ * written last, so a record torn by a process crash reads as zero (the unused part of a
+ * fresh mapping) and recovery stops there. After an OS crash or power loss the pages may
+ * have reached disk in any order, so recovery also stops at a record whose lengths or
+ * header do not parse, and clears the rest of the segment. A body torn that way under an
+ * intact header is not detected. Only the history writer thread appends; readers take
+ * absolute slices of the mapping, which do not touch its position.
+ */
+final class HistorySegment {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorySegment.class);
+
+    static final int RECORD_OVERHEAD = 8;
+
+    private static final byte[] ZEROS = new byte[8192];
+
+    private final long id;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private int position;
+    private volatile long newestEndMillis;
+
+    private HistorySegment(long id, Path path, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    static HistorySegment create(Path directory, long id, int size) throws IOException {
+        Path path = directory.resolve(fileName(id));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new HistorySegment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    /**
+     * Maps an existing segment and hands every complete record to the visitor, leaving the
+     * segment positioned after the last one. A visitor that throws marks the record as
+     * corrupt: it and everything after it are dropped.
+     */
+    static HistorySegment open(Path path, long id, RecordVisitor visitor) throws IOException {
+        HistorySegment segment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = new HistorySegment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+        segment.recover(visitor);
+        return segment;
+    }
+
+    static String fileName(long id) {
+        return String.format("%012d.seg", id);
+    }
+
+    /**
+     * The id encoded in a segment file name, or -1 if the file is not a segment.
+     */
+    static long idOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(".seg")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - 4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Appends a record and returns the offset of its body, or -1 if it does not fit.
+     */
+    int append(byte[] header, byte[] body, long endMillis) {
+        int length = RECORD_OVERHEAD + header.length + body.length;
+        if (length > buffer.capacity() - position) {
+            return -1;
+        }
+        int start = position;
+        buffer.putInt(start + 4, body.length);
+        buffer.put(start + RECORD_OVERHEAD, header);
+        buffer.put(start + RECORD_OVERHEAD + header.length, body);
+        buffer.putInt(start, header.length);
+        position = start + length;
+        markEnd(endMillis);
+        return start + RECORD_OVERHEAD + header.length;
+    }
+
+    /**
+     * A read-only view of length bytes at offset; no bytes are copied.
+     */
+    ByteBuffer slice(int offset, int length) {
+        return buffer.slice(offset, length).asReadOnlyBuffer();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        // The mapping itself is released once no slice refers to it any more
+        Files.deleteIfExists(path);
+    }
+
+    long id() {
+        return id;
+    }
+
+    int size() {
+        return position;
+    }
+
+    long newestEndMillis() {
+        return newestEndMillis;
+    }
+
+    private void markEnd(long endMillis) {
+        newestEndMillis = Math.max(newestEndMillis, endMillis);
+    }
+
+    private void recover(RecordVisitor visitor) {
+        int offset = 0;
+        while (offset + RECORD_OVERHEAD <= buffer.capacity()) {
+            int headerLength = buffer.getInt(offset);
+            int bodyLength = buffer.getInt(offset + 4);
+            long end = (long) offset + RECORD_OVERHEAD + headerLength + bodyLength;
+            if (headerLength <= 0 || bodyLength < 0 || end > buffer.capacity()) {
+                break;
+            }
+            byte[] header = new byte[headerLength];
+            buffer.get(offset + RECORD_OVERHEAD, header);
+            long endMillis;
+            try {
+                endMillis = visitor.visit(header, offset + RECORD_OVERHEAD + headerLength, bodyLength);
+            } catch (RuntimeException e) {
+                log.warn("Unreadable record at offset {} of history segment {}", offset, fileName(id), e);
+                break;
+            }
+            markEnd(endMillis);
+            offset = (int) end;
+        }
+        position = offset;
+        if (offset + RECORD_OVERHEAD <= buffer.capacity() && buffer.getLong(offset) != 0) {
+            // Stopped at a torn or corrupt record rather than at the unused part of the mapping
+            log.warn("Truncating history segment {} at offset {}", fileName(id), offset);
+            clear(offset);
+        }
+    }
+
+    /**
+     * Zeroes the segment from offset on, so that later appends are not followed by leftovers
+     * of a torn record that a future recovery could misread.
+     */
+    private void clear(int offset) {
+        for (int i = offset; i < buffer.capacity(); i += ZEROS.length) {
+            buffer.put(i, ZEROS, 0, Math.min(ZEROS.length, buffer.capacity() - i));
+        }
+        buffer.force();
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        /**
+         * Returns the end time of the recorded execution in epoch millis, for retention.
+         */
+        long visit(byte[] header, int bodyOffset, int bodyLength);
+    }
+}
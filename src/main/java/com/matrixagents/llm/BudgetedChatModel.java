@@ -0,0 +1,42 @@
+package com.matrixagents.llm;
+
+import com.matrixagents.service.ExecutionContext;
+import com.matrixagents.service.TokenBudget;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * ChatModel decorator that charges every call reaching the model to the current
+ * execution's {@link TokenBudget}, under the calling agent, and refuses calls once the
+ * budget is spent (see {@link com.matrixagents.service.TokenBudgetExceededException}).
+ *
+ * It sits underneath the caches: cache hits cost no tokens and are served even after the
+ * budget has run out. Calls outside of an execution are neither counted nor limited.
+ */
+public class BudgetedChatModel extends DelegatingChatModel {
+
+    public BudgetedChatModel(ChatModel delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        ExecutionContext context = ExecutionContext.current();
+        if (context == null) {
+            return delegate.chat(chatRequest);
+        }
+        TokenBudget budget = context.tokens();
+        budget.checkAvailable();
+        ChatResponse response = delegate.chat(chatRequest);
+        TokenUsage usage = response.tokenUsage();
+        if (usage != null) {
+            budget.record(ExecutionContext.currentAgent(),
+                    usage.inputTokenCount() != null ? usage.inputTokenCount() : 0,
+                    usage.outputTokenCount() != null ? usage.outputTokenCount() : 0);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,50 @@
+package com.matrixagents.llm;
+
+import com.matrixagents.service.ExecutionContext;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+
+/**
+ * ChatModel decorator that answers repeated identical requests from a {@link ResponseCache}.
+ *
+ * Executions can skip the cache by passing {@value #BYPASS_PARAMETER}=true in
+ * ExecutionRequest.parameters; their responses are still stored for later requests.
+ * Cached answers carry no token usage because no tokens were spent producing them.
+ */
+public class CachingChatModel extends DelegatingChatModel {
+
+    public static final String BYPASS_PARAMETER = "bypassCache";
+
+    private final String modelName;
+    private final ResponseCache cache;
+
+    public CachingChatModel(ChatModel delegate, String modelName, ResponseCache cache) {
+        super(delegate);
+        this.modelName = modelName;
+        this.cache = cache;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        String key = ResponseCache.keyOf(chatRequest, modelName);
+        if (!ExecutionContext.currentFlag(BYPASS_PARAMETER)) {
+            AiMessage cached = cache.get(key);
+            if (cached != null) {
+                return ChatResponse.builder()
+                        .aiMessage(cached)
+                        .modelName(modelName)
+                        .finishReason(cached.hasToolExecutionRequests() ? FinishReason.TOOL_EXECUTION : FinishReason.STOP)
+                        .build();
+            }
+        }
+        ChatResponse response = delegate.chat(chatRequest);
+        if (response.aiMessage() != null && response.finishReason() != FinishReason.LENGTH) {
+            cache.put(key, response.aiMessage());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,195 @@
+package com.matrixagents.llm;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.matrixagents.config.LlmProperties;
+
+/**
+ * Count-based circuit breaker of one model deployment, shared by every decorator that calls it.
+ *
+ * CLOSED: calls pass and their outcomes fill a window of the most recent windowSize calls;
+ * once it holds minCalls outcomes and the failure rate reaches the threshold, the breaker
+ * opens. OPEN: calls are rejected until openDuration has passed, then a single trial call is
+ * let through (HALF_OPEN), whose outcome closes or reopens the breaker.
+ *
+ * Every admitted call must be followed by exactly one of onSuccess, onFailure or onIgnored
+ * (for errors that say nothing about the deployment's health, such as a 400), passing back
+ * the permit acquire returned. Each state change starts a new generation of permits, and
+ * outcomes of permits from an earlier one are dropped: a call admitted while CLOSED that
+ * finishes during HALF_OPEN neither decides nor releases the trial.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final LlmProperties.Breaker properties;
+    private final Consumer<State> listener;
+    private final boolean[] outcomes;
+    private final LongAdder rejected = new LongAdder();
+    private int next;
+    private int count;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long generation;
+
+    /**
+     * @param listener told about every state change, outside of the breaker's lock
+     */
+    public CircuitBreaker(String name, LlmProperties.Breaker properties, Consumer<State> listener) {
+        this.name = name;
+        this.properties = properties;
+        this.listener = listener;
+        this.outcomes = new boolean[properties.windowSize()];
+    }
+
+    /**
+     * @return the permit to hand to the call's outcome
+     * @throws CircuitOpenException if the breaker is open, or half-open with its trial call in flight
+     */
+    public long acquire() {
+        if (!properties.enabled()) {
+            return 0;
+        }
+        long permit;
+        State changed = null;
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= properties.openDuration().toNanos()) {
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+                generation++;
+                changed = state;
+            }
+            if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+                rejected.increment();
+                long retryInMillis = Math.max(0, properties.openDuration().toMillis()
+                        - (System.nanoTime() - openedAt) / 1_000_000);
+                throw new CircuitOpenException(name, retryInMillis);
+            }
+            if (state == State.HALF_OPEN) {
+                trialInFlight = true;
+            }
+            permit = generation;
+        }
+        notify(changed);
+        return permit;
+    }
+
+    public void onSuccess(long permit) {
+        if (!properties.enabled()) {
+            return;
+        }
+        State changed = null;
+        synchronized (this) {
+            if (permit != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                reset();
+                state = State.CLOSED;
+                generation++;
+                changed = state;
+            } else {
+                record(false);
+            }
+        }
+        notify(changed);
+    }
+
+    public void onFailure(long permit) {
+        if (!properties.enabled()) {
+            return;
+        }
+        State changed = null;
+        synchronized (this) {
+            if (permit != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                open();
+                changed = state;
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (count >= Math.min(properties.minCalls(), outcomes.length)
+                        && failures >= properties.failureRateThreshold() * count) {
+                    open();
+                    changed = state;
+                }
+            }
+        }
+        notify(changed);
+    }
+
+    public void onIgnored(long permit) {
+        if (!properties.enabled()) {
+            return;
+        }
+        synchronized (this) {
+            if (permit == generation && state == State.HALF_OPEN) {
+                trialInFlight = false;
+            }
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(properties.enabled(), name, state, count, failures,
+                count == 0 ? 0.0 : (double) failures / count, rejected.sum());
+    }
+
+    private void record(boolean failed) {
+        if (count == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            count++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+        generation++;
+        reset();
+    }
+
+    private void reset() {
+        next = 0;
+        count = 0;
+        failures = 0;
+    }
+
+    private void notify(State changed) {
+        if (changed != null) {
+            listener.accept(changed);
+        }
+    }
+
+    /**
+     * @param failureRate failed share of the calls in the window
+     * @param rejected    calls failed fast while open
+     */
+    public record Stats(boolean enabled, String name, State state, int calls, int failures, double failureRate,
+                        long rejected) {}
+}
@@ -0,0 +1,24 @@
+package com.matrixagents.llm;
+
+/**
+ * Thrown instead of a model call while the deployment's {@link CircuitBreaker} is open.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private final String deployment;
+    private final long retryInMillis;
+
+    public CircuitOpenException(String deployment, long retryInMillis) {
+        super("Circuit breaker for deployment " + deployment + " is open; next trial in " + retryInMillis + " ms");
+        this.deployment = deployment;
+        this.retryInMillis = retryInMillis;
+    }
+
+    public String getDeployment() {
+        return deployment;
+    }
+
+    public long getRetryInMillis() {
+        return retryInMillis;
+    }
+}
@@ -0,0 +1,40 @@
+package com.matrixagents.llm;
+
+import java.util.Set;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+
+/**
+ * Base class of the ChatModel decorators in this package.
+ *
+ * Forwards the model's default parameters and capabilities so that agents built on a
+ * decorated model render exactly the same requests as on the raw one. Subclasses override
+ * doChat() and reach the next layer through {@code delegate.chat(...)}, which keeps the
+ * delegate's own listeners firing.
+ */
+public abstract class DelegatingChatModel implements ChatModel {
+
+    protected final ChatModel delegate;
+
+    protected DelegatingChatModel(ChatModel delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+}
@@ -0,0 +1,172 @@
+package com.matrixagents.llm;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.matrixagents.config.LlmProperties;
+
+/**
+ * Requests-per-minute and tokens-per-minute limiter of one model deployment, shared by every
+ * model bean calling it.
+ *
+ * Both quotas are token buckets holding up to a minute's worth and refilled continuously.
+ * A call takes one request and its estimated tokens; once the response reports the actual
+ * usage, the difference is settled, so the token bucket may briefly go negative. Callers
+ * queue in arrival order behind a fair lock: only the head of the queue waits for the buckets
+ * to refill, parked, so a large request cannot be overtaken and starved by small ones.
+ *
+ * A 429 with Retry-After pauses the whole deployment for that long, as every caller would
+ * be throttled anyway.
+ */
+public class DeploymentRateLimiter {
+
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final String name;
+    private final LlmProperties.RateLimit properties;
+    private final ReentrantLock queue = new ReentrantLock(true);
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder waitedNanos = new LongAdder();
+    private final double requestsPerNano;
+    private final double tokensPerNano;
+    private double requests;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil = refilledAt;
+
+    public DeploymentRateLimiter(String name, LlmProperties.RateLimit properties) {
+        this.name = name;
+        this.properties = properties;
+        this.requests = properties.requestsPerMinute();
+        this.tokens = properties.tokensPerMinute();
+        this.requestsPerNano = properties.requestsPerMinute() / NANOS_PER_MINUTE;
+        this.tokensPerNano = properties.tokensPerMinute() / NANOS_PER_MINUTE;
+    }
+
+    /**
+     * Waits until the deployment has room for one request of the given estimated size and takes it.
+     *
+     * @return the tokens taken, to be passed to {@link #settle} or {@link #release}
+     * @throws RateLimitTimeoutException if no room was found within maxWait
+     */
+    public long acquire(long estimatedTokens) {
+        // A request larger than a minute's quota could never pass; let it through on a full bucket
+        long taken = Math.min(estimatedTokens, properties.tokensPerMinute());
+        long start = System.nanoTime();
+        long deadline = start + properties.maxWait().toNanos();
+        queued.incrementAndGet();
+        try {
+            if (!queue.tryLock(properties.maxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw timeout(start);
+            }
+            try {
+                long waitNanos;
+                while ((waitNanos = tryTake(taken)) > 0) {
+                    if (System.nanoTime() + waitNanos > deadline) {
+                        throw timeout(start);
+                    }
+                    LockSupport.parkNanos(this, waitNanos);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            } finally {
+                queue.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for model quota", e);
+        } finally {
+            queued.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        if (waited > TimeUnit.MILLISECONDS.toNanos(1)) {
+            throttled.increment();
+            waitedNanos.add(waited);
+        }
+        return taken;
+    }
+
+    /**
+     * Corrects the tokens taken for a call by what it actually used.
+     */
+    public synchronized void settle(long taken, long actualTokens) {
+        refill(System.nanoTime());
+        tokens = Math.min(properties.tokensPerMinute(), tokens + taken - actualTokens);
+    }
+
+    /**
+     * Gives back the tokens of a call that failed without using any; its request stays spent.
+     */
+    public void release(long taken) {
+        settle(taken, 0);
+    }
+
+    /**
+     * Holds back every caller for the given time, e.g. after a 429 with Retry-After.
+     */
+    public synchronized void pause(Duration duration) {
+        pausedUntil = Math.max(pausedUntil, System.nanoTime() + duration.toNanos());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized Stats stats() {
+        refill(System.nanoTime());
+        return new Stats(properties.enabled(), name, properties.requestsPerMinute(), properties.tokensPerMinute(),
+                (long) requests, (long) tokens, queued.get(), throttled.sum(),
+                TimeUnit.NANOSECONDS.toMillis(waitedNanos.sum()));
+    }
+
+    /**
+     * Takes one request and the tokens if both buckets hold enough, else returns how long to wait for them.
+     */
+    private synchronized long tryTake(long wanted) {
+        long now = System.nanoTime();
+        if (now < pausedUntil) {
+            return pausedUntil - now;
+        }
+        refill(now);
+        if (requests >= 1 && tokens >= wanted) {
+            requests -= 1;
+            tokens -= wanted;
+            return 0;
+        }
+        double requestWait = requests >= 1 ? 0 : (1 - requests) / requestsPerNano;
+        double tokenWait = tokens >= wanted ? 0 : (wanted - tokens) / tokensPerNano;
+        return Math.max(1, (long) Math.ceil(Math.max(requestWait, tokenWait)));
+    }
+
+    private void refill(long now) {
+        long elapsed = now - refilledAt;
+        if (elapsed > 0) {
+            requests = Math.min(properties.requestsPerMinute(), requests + elapsed * requestsPerNano);
+            tokens = Math.min(properties.tokensPerMinute(), tokens + elapsed * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+
+    private RateLimitTimeoutException timeout(long start) {
+        throttled.increment();
+        waitedNanos.add(System.nanoTime() - start);
+        return new RateLimitTimeoutException(name, properties.maxWait().toMillis());
+    }
+
+    /**
+     * @param availableRequests requests that could start right now
+     * @param availableTokens   tokens left in the current minute's budget; negative after underestimates
+     * @param queued            calls waiting for quota
+     * @param throttled         calls that had to wait, including those that gave up
+     * @param waitedMillis      total time calls spent waiting
+     */
+    public record Stats(boolean enabled, String name, long requestsPerMinute, long tokensPerMinute,
+                        long availableRequests, long availableTokens, int queued, long throttled,
+                        long waitedMillis) {}
+}
@@ -0,0 +1,75 @@
+package com.matrixagents.llm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+/**
+ * Local, deterministic EmbeddingModel based on feature hashing of word unigrams and bigrams.
+ *
+ * It has no notion of meaning, only of shared wording, but it needs no deployment and always
+ * returns the same vector for the same text, which makes the semantic cache testable offline
+ * (matrix.llm.semantic-cache.embedding=hashing).
+ */
+public class HashingEmbeddingModel implements EmbeddingModel {
+
+    private final int dimension;
+
+    public HashingEmbeddingModel(int dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+        for (TextSegment segment : textSegments) {
+            embeddings.add(Embedding.from(vectorOf(segment.text())));
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public String modelName() {
+        return "hashing-" + dimension;
+    }
+
+    private float[] vectorOf(String text) {
+        float[] vector = new float[dimension];
+        String previous = null;
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            add(vector, token);
+            if (previous != null) {
+                add(vector, previous + ' ' + token);
+            }
+            previous = token;
+        }
+        return vector;
+    }
+
+    private void add(float[] vector, String feature) {
+        int hash = mix(feature.hashCode());
+        // The low bit picks the sign so colliding features tend to cancel out instead of piling up
+        vector[Math.floorMod(hash >> 1, dimension)] += (hash & 1) == 0 ? 1f : -1f;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,240 @@
+package com.matrixagents.llm;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.matrixagents.config.LlmProperties;
+import com.matrixagents.service.ExecutionContext;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * ChatModel decorator that hedges slow calls: when a call of an agent has not answered
+ * within that agent's recent latency percentile (matrix.llm.hedging.percentile), an
+ * identical second request is sent, the first response to arrive is returned and the other
+ * request is cancelled (its thread interrupted).
+ *
+ * Hedges are paid for from a credit that every hedgeable call adds maxRate to, so no more
+ * than that share of calls is hedged on average; when the credit is used up slow calls are
+ * simply waited for. A call that fails before the hedge delay fails as before; once hedged,
+ * it fails only if both requests do.
+ *
+ * Outcomes are counted as matrix.model.hedges (outcome won, lost or skipped), tagged with
+ * the model role and agent. Both requests run on virtual threads with the execution context
+ * carried over, so the layers underneath (budget, tracing, metrics) see both.
+ */
+public class HedgingChatModel extends DelegatingChatModel {
+
+    private static final long CREDIT = 1_000;
+
+    private final String role;
+    private final LlmProperties.Hedging properties;
+    private final Set<String> agents;
+    private final Set<String> excluded;
+    private final MeterRegistry registry;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong credits = new AtomicLong();
+    private final long creditPerCall;
+    private final long maxCredits;
+    private final Map<String, Counter> hedges = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param role     which of the configured models this is, e.g. chat or planner
+     * @param excluded agents never hedged, e.g. those whose calls stream TOKEN events
+     */
+    public HedgingChatModel(ChatModel delegate, String role, LlmProperties.Hedging properties,
+                            Set<String> excluded, MeterRegistry registry) {
+        super(delegate);
+        this.role = role;
+        this.properties = properties;
+        this.agents = Set.copyOf(properties.agents());
+        this.excluded = excluded;
+        this.registry = registry;
+        this.creditPerCall = Math.round(properties.maxRate() * CREDIT);
+        // Allows a burst of hedges worth one window of calls, e.g. 20 for 200 calls at 0.1
+        this.maxCredits = Math.max(CREDIT, creditPerCall * properties.window());
+    }
+
+    /**
+     * Interrupts the requests still running; called when the application context closes.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        String agent = ExecutionContext.currentAgent();
+        if (agent == null || excluded.contains(agent) || (!agents.isEmpty() && !agents.contains(agent))) {
+            return delegate.chat(chatRequest);
+        }
+        credits.accumulateAndGet(creditPerCall, (current, credit) -> Math.min(maxCredits, current + credit));
+        LatencyWindow window = latencies.computeIfAbsent(agent, name -> new LatencyWindow(properties.window()));
+        long delay = window.percentileNanos(properties.percentile(), properties.minSamples());
+        if (delay < 0) {
+            // Not enough calls observed yet to know what slow means for this agent
+            long start = System.nanoTime();
+            ChatResponse response = delegate.chat(chatRequest);
+            window.record(System.nanoTime() - start);
+            return response;
+        }
+        return hedged(chatRequest, agent, window, Math.max(delay, properties.minDelay().toNanos()));
+    }
+
+    private ChatResponse hedged(ChatRequest chatRequest, String agent, LatencyWindow window, long delayNanos) {
+        BlockingQueue<Attempt> finished = new ArrayBlockingQueue<>(2);
+        Attempt primary = start(chatRequest, finished);
+        Attempt hedge = null;
+        try {
+            Attempt first = finished.poll(delayNanos, TimeUnit.NANOSECONDS);
+            if (first == null) {
+                if (withdrawCredit()) {
+                    hedge = start(chatRequest, finished);
+                } else {
+                    hedges(agent, "skipped").increment();
+                }
+                first = finished.take();
+            }
+            Attempt other = first == primary ? hedge : primary;
+            if (first.failed() && other != null) {
+                // The other request may still succeed; only fail when both have
+                first = finished.take();
+                other = first == primary ? hedge : primary;
+            }
+            if (other != null) {
+                other.cancel(true);
+                hedges(agent, first == hedge ? "won" : "lost").increment();
+            }
+            ChatResponse response = first.response();
+            // The latency the caller saw, not the hedge's own, so that wins do not lower the threshold
+            window.record(first.nanosSinceStartOf(primary));
+            return response;
+        } catch (InterruptedException e) {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the chat model", e);
+        }
+    }
+
+    private Attempt start(ChatRequest chatRequest, BlockingQueue<Attempt> finished) {
+        Attempt attempt = new Attempt(() -> delegate.chat(chatRequest), finished);
+        executor.execute(ExecutionContext.wrap(attempt));
+        return attempt;
+    }
+
+    private boolean withdrawCredit() {
+        long current;
+        do {
+            current = credits.get();
+            if (current < CREDIT) {
+                return false;
+            }
+        } while (!credits.compareAndSet(current, current - CREDIT));
+        return true;
+    }
+
+    private Counter hedges(String agent, String outcome) {
+        return hedges.computeIfAbsent(agent + '\n' + outcome, key -> Counter.builder("matrix.model.hedges")
+                .description("Hedged chat model requests: won (the hedge answered first), lost, or skipped (rate cap)")
+                .tags("model", role, "agent", agent, "outcome", outcome)
+                .register(registry));
+    }
+
+    /**
+     * One of the requests of a call; reports itself to the call's queue when it finishes.
+     */
+    private static final class Attempt extends FutureTask<ChatResponse> {
+        private final BlockingQueue<Attempt> finished;
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+
+        Attempt(Callable<ChatResponse> call, BlockingQueue<Attempt> finished) {
+            super(call);
+            this.finished = finished;
+        }
+
+        @Override
+        protected void done() {
+            endNanos = System.nanoTime();
+            finished.offer(this);
+        }
+
+        boolean failed() {
+            return state() != State.SUCCESS;
+        }
+
+        /**
+         * Time from the start of the origin attempt to the end of this one.
+         */
+        long nanosSinceStartOf(Attempt origin) {
+            return endNanos - origin.startNanos;
+        }
+
+        ChatResponse response() {
+            try {
+                return get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the chat model", e);
+            }
+        }
+    }
+
+    /**
+     * Latencies of an agent's most recent calls.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * The percentile of the recorded latencies, or -1 with fewer than minSamples of them.
+         */
+        synchronized long percentileNanos(double percentile, int minSamples) {
+            if (count < Math.min(minSamples, samples.length)) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+        }
+    }
+}
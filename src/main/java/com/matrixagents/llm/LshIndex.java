@@ -0,0 +1,188 @@
+package com.matrixagents.llm;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory approximate nearest-neighbour index over unit vectors, using random-hyperplane
+ * locality-sensitive hashing.
+ *
+ * Each of the {@code tables} hash tables signs a vector against {@code bits} random
+ * hyperplanes; vectors at a small angle share a bucket in at least one table with high
+ * probability. Candidates from the matching buckets are then re-ranked by exact cosine
+ * similarity. Vectors are partitioned (e.g. by agent and model) and never match across
+ * partitions.
+ *
+ * Memory is bounded by {@code maxEntries}; the oldest entries are evicted first, and entries
+ * older than the TTL are skipped on lookup and dropped on the next insert.
+ */
+class LshIndex<V> {
+
+    private static final long SEED = 0x5EED_CAC4EL;
+
+    private final int tables;
+    private final int bits;
+    private final long maxEntries;
+    private final Duration ttl;
+    private final Map<BucketKey, List<Entry<V>>> buckets = new HashMap<>();
+    private final ArrayDeque<Entry<V>> insertionOrder = new ArrayDeque<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private float[][][] hyperplanes;
+    private long evictions;
+
+    LshIndex(int tables, int bits, long maxEntries, Duration ttl) {
+        this.tables = tables;
+        this.bits = bits;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Most similar live entry of the partition with cosine similarity of at least
+     * minSimilarity, or null. The vector must be normalized.
+     */
+    Match<V> nearest(String partition, float[] vector, double minSimilarity) {
+        long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            if (hyperplanes == null || vector.length != hyperplanes[0][0].length) {
+                return null;
+            }
+            Set<Entry<V>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            Entry<V> best = null;
+            double bestSimilarity = minSimilarity;
+            for (int table = 0; table < tables; table++) {
+                List<Entry<V>> bucket = buckets.get(new BucketKey(partition, table, signature(table, vector)));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Entry<V> entry : bucket) {
+                    if (!seen.add(entry) || isExpired(entry, now)) {
+                        continue;
+                    }
+                    double similarity = dot(vector, entry.vector);
+                    if (similarity >= bestSimilarity) {
+                        best = entry;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+            return best == null ? null : new Match<>(best.value, bestSimilarity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a normalized vector, evicting expired entries and then the oldest ones over the limit.
+     */
+    void add(String partition, float[] vector, V value) {
+        long now = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            if (hyperplanes == null) {
+                hyperplanes = randomHyperplanes(vector.length);
+            } else if (vector.length != hyperplanes[0][0].length) {
+                throw new IllegalArgumentException("Expected vectors of dimension " + hyperplanes[0][0].length
+                        + " but got " + vector.length);
+            }
+            Entry<V> entry = new Entry<>(partition, vector, value, now, new long[tables]);
+            for (int table = 0; table < tables; table++) {
+                entry.signatures[table] = signature(table, vector);
+                buckets.computeIfAbsent(new BucketKey(partition, table, entry.signatures[table]), key -> new ArrayList<>())
+                        .add(entry);
+            }
+            insertionOrder.addLast(entry);
+            while (!insertionOrder.isEmpty()
+                    && (insertionOrder.size() > maxEntries || isExpired(insertionOrder.peekFirst(), now))) {
+                remove(insertionOrder.pollFirst());
+                evictions++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return insertionOrder.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long evictions() {
+        lock.readLock().lock();
+        try {
+            return evictions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void remove(Entry<V> entry) {
+        for (int table = 0; table < tables; table++) {
+            BucketKey key = new BucketKey(entry.partition, table, entry.signatures[table]);
+            List<Entry<V>> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.removeIf(candidate -> candidate == entry);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    private long signature(int table, float[] vector) {
+        long signature = 0;
+        float[][] planes = hyperplanes[table];
+        for (int bit = 0; bit < bits; bit++) {
+            if (dot(vector, planes[bit]) >= 0) {
+                signature |= 1L << bit;
+            }
+        }
+        return signature;
+    }
+
+    private float[][][] randomHyperplanes(int dimension) {
+        // Fixed seed so that the same vectors land in the same buckets across restarts
+        Random random = new Random(SEED);
+        float[][][] planes = new float[tables][bits][dimension];
+        for (float[][] table : planes) {
+            for (float[] plane : table) {
+                for (int i = 0; i < dimension; i++) {
+                    plane[i] = (float) random.nextGaussian();
+                }
+            }
+        }
+        return planes;
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.createdAt > ttl.toMillis();
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    record Match<V>(V value, double similarity) {}
+
+    private record BucketKey(String partition, int table, long signature) {}
+
+    private record Entry<V>(String partition, float[] vector, V value, long createdAt, long[] signatures) {}
+}
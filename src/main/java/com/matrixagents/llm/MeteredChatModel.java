@@ -0,0 +1,78 @@
+package com.matrixagents.llm;
+
+import java.util.concurrent.TimeUnit;
+
+import com.matrixagents.service.ExecutionContext;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * ChatModel decorator that records every call reaching the model: matrix.model.calls (timer)
+ * and matrix.model.tokens (counter, type input or output), tagged with the model role and
+ * the calling agent.
+ *
+ * It sits directly on the raw model, underneath the caches, so cache hits are not counted
+ * as model calls.
+ */
+public class MeteredChatModel extends DelegatingChatModel {
+
+    private final String role;
+    private final MeterRegistry registry;
+
+    /**
+     * @param role which of the configured models this is, e.g. chat or planner
+     */
+    public MeteredChatModel(ChatModel delegate, String role, MeterRegistry registry) {
+        super(delegate);
+        this.role = role;
+        this.registry = registry;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        String agent = ExecutionContext.currentAgent();
+        if (agent == null) {
+            agent = "unknown";
+        }
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            ChatResponse response = delegate.chat(chatRequest);
+            outcome = "success";
+            countTokens(agent, response.tokenUsage());
+            return response;
+        } finally {
+            Timer.builder("matrix.model.calls")
+                    .description("Chat model call time")
+                    .tags("model", role, "agent", agent, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void countTokens(String agent, TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        if (usage.inputTokenCount() != null) {
+            tokens(agent, "input").increment(usage.inputTokenCount());
+        }
+        if (usage.outputTokenCount() != null) {
+            tokens(agent, "output").increment(usage.outputTokenCount());
+        }
+    }
+
+    private Counter tokens(String agent, String type) {
+        return Counter.builder("matrix.model.tokens")
+                .description("Tokens spent by model calls")
+                .tags("model", role, "agent", agent, "type", type)
+                .register(registry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.matrixagents.llm;
+
+/**
+ * Thrown instead of a model call that waited longer than matrix.llm.rate-limit.max-wait for
+ * its deployment's quota.
+ */
+public class RateLimitTimeoutException extends RuntimeException {
+
+    private final String deployment;
+    private final long maxWaitMillis;
+
+    public RateLimitTimeoutException(String deployment, long maxWaitMillis) {
+        super("No quota of deployment " + deployment + " available within " + maxWaitMillis + " ms");
+        this.deployment = deployment;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public String getDeployment() {
+        return deployment;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+}
@@ -0,0 +1,60 @@
+package com.matrixagents.llm;
+
+import com.matrixagents.config.LlmProperties;
+
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * ChatModel decorator that takes every call's share of the deployment's RPM and TPM quota
+ * from a {@link DeploymentRateLimiter} before sending it, waiting in line when there is none.
+ *
+ * The tokens of a call are estimated as its serialized messages at ~4 characters per token
+ * plus the output it may produce (maxOutputTokens, else matrix.llm.rate-limit.expected-output-tokens),
+ * and settled against the reported usage afterwards. It sits underneath the retries, so each
+ * attempt is admitted on its own, and above the instrumentation, so queueing does not count
+ * as model latency.
+ */
+public class RateLimitedChatModel extends DelegatingChatModel {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final DeploymentRateLimiter limiter;
+    private final LlmProperties.RateLimit properties;
+
+    public RateLimitedChatModel(ChatModel delegate, DeploymentRateLimiter limiter, LlmProperties.RateLimit properties) {
+        super(delegate);
+        this.limiter = limiter;
+        this.properties = properties;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        long taken = limiter.acquire(estimateTokens(chatRequest));
+        ChatResponse response;
+        try {
+            response = delegate.chat(chatRequest);
+        } catch (RuntimeException e) {
+            limiter.release(taken);
+            ResilientChatModel.Failure failure = ResilientChatModel.classify(e);
+            if ("rate_limited".equals(failure.reason()) && failure.retryAfter() != null) {
+                limiter.pause(failure.retryAfter());
+            }
+            throw e;
+        }
+        TokenUsage usage = response.tokenUsage();
+        if (usage != null && usage.totalTokenCount() != null) {
+            limiter.settle(taken, usage.totalTokenCount());
+        }
+        return response;
+    }
+
+    long estimateTokens(ChatRequest request) {
+        long input = ChatMessageSerializer.messagesToJson(request.messages()).length() / CHARS_PER_TOKEN;
+        Integer maxOutput = request.parameters() != null ? request.parameters().maxOutputTokens() : null;
+        return input + (maxOutput != null ? maxOutput : properties.expectedOutputTokens());
+    }
+}
@@ -0,0 +1,226 @@
+package com.matrixagents.llm;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import com.matrixagents.config.LlmProperties;
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.service.ExecutionContext;
+
+import com.openai.core.http.Headers;
+import com.openai.errors.OpenAIIoException;
+import com.openai.errors.OpenAIServiceException;
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.exception.InternalServerException;
+import dev.langchain4j.exception.RateLimitException;
+import dev.langchain4j.exception.TimeoutException;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * ChatModel decorator that retries transient failures of the raw model and fails fast
+ * while its deployment's {@link CircuitBreaker} is open.
+ *
+ * A failure is transient when the service answered 429, 408 or 5xx, or the call timed out
+ * or lost its connection; anything else (400, 401, content filter, ...) fails at once. Retries
+ * follow the calling agent's policy (matrix.llm.resilience): exponential backoff with full
+ * jitter, unless the service sent Retry-After (or retry-after-ms), which is waited for
+ * instead. Except for 429s, transient failures count against the circuit breaker. Calls
+ * interrupted on purpose, such as a losing hedge, are neither retried nor counted.
+ *
+ * Every retry is published as a MODEL_RETRY event of the current execution and counted as
+ * matrix.model.retries, tagged with the model role, agent and reason.
+ */
+public class ResilientChatModel extends DelegatingChatModel {
+
+    private final String role;
+    private final LlmProperties.Resilience properties;
+    private final CircuitBreaker breaker;
+    private final Consumer<AgentEvent> publisher;
+    private final MeterRegistry registry;
+
+    /**
+     * @param role which of the configured models this is, e.g. chat or planner
+     */
+    public ResilientChatModel(ChatModel delegate, String role, LlmProperties.Resilience properties,
+                              CircuitBreaker breaker, Consumer<AgentEvent> publisher, MeterRegistry registry) {
+        super(delegate);
+        this.role = role;
+        this.properties = properties;
+        this.breaker = breaker;
+        this.publisher = publisher;
+        this.registry = registry;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        String agent = ExecutionContext.currentAgent();
+        LlmProperties.Retry policy = properties.retryFor(agent);
+        for (int attempt = 1; ; attempt++) {
+            long permit = breaker.acquire();
+            try {
+                ChatResponse response = delegate.chat(chatRequest);
+                breaker.onSuccess(permit);
+                return response;
+            } catch (RuntimeException e) {
+                if (isCancellation(e)) {
+                    // Cancelled on purpose (losing hedge, wrong speculation): says nothing about the deployment
+                    breaker.onIgnored(permit);
+                    throw e;
+                }
+                Failure failure = classify(e);
+                if (failure.unhealthy()) {
+                    breaker.onFailure(permit);
+                } else {
+                    breaker.onIgnored(permit);
+                }
+                if (failure.reason() == null || attempt >= policy.maxAttempts()) {
+                    throw e;
+                }
+                Duration delay = backoff(policy, attempt, failure.retryAfter());
+                if (delay == null) {
+                    throw e;
+                }
+                retried(agent, attempt, delay, failure.reason());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            } catch (Error e) {
+                // Release a half-open trial, or the breaker would wait for its outcome forever
+                breaker.onIgnored(permit);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The wait before the next attempt, or null if the service asked for longer than maxRetryAfter.
+     */
+    static Duration backoff(LlmProperties.Retry policy, int attempt, Duration retryAfter) {
+        if (retryAfter != null) {
+            return retryAfter.compareTo(policy.maxRetryAfter()) <= 0 ? retryAfter : null;
+        }
+        double bound = policy.initialBackoff().toMillis() * Math.pow(policy.multiplier(), attempt - 1);
+        long capped = (long) Math.min(bound, policy.maxBackoff().toMillis());
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(capped + 1));
+    }
+
+    /**
+     * Why a call failed; reason is null for failures that are not worth retrying.
+     */
+    record Failure(String reason, boolean unhealthy, Duration retryAfter) {
+        static final Failure PERMANENT = new Failure(null, false, null);
+    }
+
+    /**
+     * Whether the call failed because its thread was interrupted, which surfaces as an I/O
+     * error of the HTTP client rather than as an InterruptedException.
+     */
+    static boolean isCancellation(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof ClosedByInterruptException
+                    || cause instanceof CancellationException
+                    || (cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Failure classify(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OpenAIServiceException service) {
+                return ofStatus(service.statusCode(), retryAfter(service.headers()));
+            }
+            if (cause instanceof HttpException http) {
+                return ofStatus(http.statusCode(), null);
+            }
+            if (cause instanceof RateLimitException) {
+                return ofStatus(429, null);
+            }
+            if (cause instanceof InternalServerException) {
+                return ofStatus(500, null);
+            }
+            if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException
+                    || cause instanceof java.net.http.HttpTimeoutException) {
+                return new Failure("timeout", true, null);
+            }
+            if (cause instanceof OpenAIIoException || cause instanceof IOException) {
+                return new Failure("connection", true, null);
+            }
+        }
+        return Failure.PERMANENT;
+    }
+
+    private static Failure ofStatus(int status, Duration retryAfter) {
+        if (status == 429) {
+            return new Failure("rate_limited", false, retryAfter);
+        }
+        if (status == 408) {
+            return new Failure("timeout", true, retryAfter);
+        }
+        if (status >= 500) {
+            return new Failure("server_error", true, retryAfter);
+        }
+        return Failure.PERMANENT;
+    }
+
+    /**
+     * retry-after-ms (Azure OpenAI) or retry-after in seconds or as an HTTP date; null if absent.
+     */
+    static Duration retryAfter(Headers headers) {
+        if (headers == null) {
+            return null;
+        }
+        try {
+            List<String> millis = headers.values("retry-after-ms");
+            if (!millis.isEmpty()) {
+                return Duration.ofMillis((long) Double.parseDouble(millis.getFirst().trim()));
+            }
+            List<String> seconds = headers.values("retry-after");
+            if (!seconds.isEmpty()) {
+                String value = seconds.getFirst().trim();
+                if (value.chars().allMatch(Character::isDigit)) {
+                    return Duration.ofSeconds(Long.parseLong(value));
+                }
+                Duration until = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                return until.isNegative() ? Duration.ZERO : until;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            // Unparseable hint: fall back to our own backoff
+        }
+        return null;
+    }
+
+    private void retried(String agent, int attempt, Duration delay, String reason) {
+        Counter.builder("matrix.model.retries")
+                .description("Chat model calls retried after a transient failure")
+                .tags("model", role, "agent", agent != null ? agent : "unknown", "reason", reason)
+                .register(registry)
+                .increment();
+        ExecutionContext context = ExecutionContext.current();
+        if (context != null) {
+            publisher.accept(AgentEvent.modelRetry(context.patternId(), agent, attempt, delay.toMillis(), reason));
+        }
+    }
+}
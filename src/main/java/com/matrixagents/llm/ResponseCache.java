@@ -0,0 +1,188 @@
+package com.matrixagents.llm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.matrixagents.config.LlmProperties;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.chat.request.ChatRequest;
+
+/**
+ * Exact-match store of model responses, keyed on the model name plus the fully rendered
+ * request (messages, tool specifications and response format).
+ *
+ * The in-memory tier is bounded by size and TTL. The optional disk tier keeps one file per
+ * response so the cache survives restarts; it is consulted on a memory miss and pruned to
+ * its own size limit.
+ */
+public class ResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCache.class);
+
+    private static final int PRUNE_EVERY_WRITES = 100;
+
+    private final Cache<String, AiMessage> memory;
+    private final Duration ttl;
+    private final LlmProperties.Disk disk;
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder diskEvictions = new LongAdder();
+    private final AtomicLong diskWrites = new AtomicLong();
+
+    public ResponseCache(LlmProperties.Cache properties) {
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(properties.maxEntries())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        this.ttl = properties.ttl();
+        this.disk = properties.disk();
+        if (disk.enabled()) {
+            try {
+                Files.createDirectories(disk.directory());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create response cache directory " + disk.directory(), e);
+            }
+            log.info("Response cache disk tier at {}", disk.directory().toAbsolutePath());
+        }
+    }
+
+    /**
+     * Cache key of a request: SHA-256 over model name, messages, tools, response format and the
+     * other request parameters (temperature, topP, seed, ...), so differently sampled requests
+     * never share an answer.
+     */
+    public static String keyOf(ChatRequest request, String defaultModelName) {
+        String modelName = request.parameters() != null && request.parameters().modelName() != null
+                ? request.parameters().modelName()
+                : defaultModelName;
+        StringBuilder rendered = new StringBuilder(modelName)
+                .append('\n').append(ChatMessageSerializer.messagesToJson(request.messages()))
+                .append('\n').append(request.toolSpecifications())
+                .append('\n').append(request.responseFormat())
+                .append('\n').append(request.parameters());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rendered.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public AiMessage get(String key) {
+        AiMessage cached = memory.getIfPresent(key);
+        if (cached != null || !disk.enabled()) {
+            return cached;
+        }
+        cached = readFromDisk(key);
+        if (cached != null) {
+            diskHits.increment();
+            memory.put(key, cached);
+        }
+        return cached;
+    }
+
+    public void put(String key, AiMessage aiMessage) {
+        memory.put(key, aiMessage);
+        if (disk.enabled()) {
+            writeToDisk(key, aiMessage);
+        }
+    }
+
+    public Stats stats() {
+        CacheStats stats = memory.stats();
+        return new Stats(memory.estimatedSize(), stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                diskHits.sum(), diskEvictions.sum());
+    }
+
+    private AiMessage readFromDisk(String key) {
+        Path file = disk.directory().resolve(key + ".json");
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            if (isExpired(Files.getLastModifiedTime(file))) {
+                Files.deleteIfExists(file);
+                diskEvictions.increment();
+                return null;
+            }
+            return (AiMessage) ChatMessageDeserializer.messageFromJson(Files.readString(file));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable response cache file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, AiMessage aiMessage) {
+        Path file = disk.directory().resolve(key + ".json");
+        try {
+            Path tmp = Files.createTempFile(disk.directory(), key, ".tmp");
+            Files.writeString(tmp, ChatMessageSerializer.messageToJson(aiMessage));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write response cache file {}: {}", file, e.getMessage());
+            return;
+        }
+        if (diskWrites.incrementAndGet() % PRUNE_EVERY_WRITES == 0) {
+            pruneDisk();
+        }
+    }
+
+    /**
+     * Deletes expired files and the oldest ones beyond the disk size limit.
+     */
+    private void pruneDisk() {
+        try (Stream<Path> files = Files.list(disk.directory())) {
+            List<Path> entries = files
+                    .filter(path -> path.getFileName().toString().endsWith(".json"))
+                    .sorted(Comparator.comparing(ResponseCache::lastModified).reversed())
+                    .toList();
+            for (int i = 0; i < entries.size(); i++) {
+                Path entry = entries.get(i);
+                if (i >= disk.maxEntries() || isExpired(lastModified(entry))) {
+                    Files.deleteIfExists(entry);
+                    diskEvictions.increment();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not prune response cache directory {}: {}", disk.directory(), e.getMessage());
+        }
+    }
+
+    private boolean isExpired(FileTime modified) {
+        return modified.toInstant().plus(ttl).isBefore(Instant.now());
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    public record Stats(long size, long hits, long misses, long evictions, long diskHits, long diskEvictions) {}
+}
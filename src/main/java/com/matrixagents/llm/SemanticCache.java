@@ -0,0 +1,121 @@
+package com.matrixagents.llm;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.matrixagents.config.LlmProperties;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+
+/**
+ * Store behind {@link SemanticCachingChatModel}: embeds rendered prompts, finds the closest
+ * earlier prompt in an {@link LshIndex} and applies the per-agent policies of
+ * matrix.llm.semantic-cache.
+ */
+public class SemanticCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticCache.class);
+
+    private final LlmProperties.SemanticCache properties;
+    private final EmbeddingModel embeddingModel;
+    private final LshIndex<AiMessage> index;
+    private final Map<String, Counters> agents = new ConcurrentHashMap<>();
+    private final LongAdder embeddingFailures = new LongAdder();
+
+    public SemanticCache(LlmProperties.SemanticCache properties, EmbeddingModel embeddingModel) {
+        this.properties = properties;
+        this.embeddingModel = embeddingModel;
+        this.index = new LshIndex<>(properties.hashTables(), properties.hashBits(),
+                properties.maxEntries(), properties.ttl());
+    }
+
+    public boolean isEnabledFor(String agentName) {
+        return properties.policyFor(agentName).enabled();
+    }
+
+    /**
+     * Normalized embedding of the text, or null when it cannot be embedded.
+     */
+    public float[] embed(String text) {
+        float[] vector;
+        try {
+            vector = embeddingModel.embed(text).content().vector();
+        } catch (RuntimeException e) {
+            embeddingFailures.increment();
+            log.warn("Could not embed prompt for the semantic cache: {}", e.getMessage());
+            return null;
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    /**
+     * Cached response of the closest prompt within the agent's similarity threshold, or null.
+     * Counts a hit or a miss for the agent.
+     */
+    public AiMessage lookup(String agentName, String partition, float[] vector) {
+        LshIndex.Match<AiMessage> match = index.nearest(partition, vector, properties.policyFor(agentName).threshold());
+        Counters counters = agents.computeIfAbsent(agentName, name -> new Counters());
+        if (match == null) {
+            counters.misses.increment();
+            return null;
+        }
+        counters.hits.increment();
+        return match.value();
+    }
+
+    public void put(String partition, float[] vector, AiMessage aiMessage) {
+        index.add(partition, vector, aiMessage);
+    }
+
+    public Stats stats() {
+        long hits = 0;
+        long misses = 0;
+        Map<String, AgentStats> byAgent = new TreeMap<>();
+        for (Map.Entry<String, Counters> entry : agents.entrySet()) {
+            AgentStats agent = entry.getValue().stats();
+            byAgent.put(entry.getKey(), agent);
+            hits += agent.hits();
+            misses += agent.misses();
+        }
+        return new Stats(properties.enabled(), index.size(), hits, misses, hitRate(hits, misses),
+                index.evictions(), embeddingFailures.sum(), byAgent);
+    }
+
+    private static double hitRate(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    private static final class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        AgentStats stats() {
+            long h = hits.sum();
+            long m = misses.sum();
+            return new AgentStats(h, m, hitRate(h, m));
+        }
+    }
+
+    public record Stats(boolean enabled, int size, long hits, long misses, double hitRate, long evictions,
+                        long embeddingFailures, Map<String, AgentStats> agents) {}
+
+    public record AgentStats(long hits, long misses, double hitRate) {}
+}
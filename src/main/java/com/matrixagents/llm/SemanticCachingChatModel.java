@@ -0,0 +1,99 @@
+package com.matrixagents.llm;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.matrixagents.service.ExecutionContext;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+
+/**
+ * ChatModel decorator that answers prompts similar enough to an earlier prompt of the same
+ * agent from a {@link SemanticCache}.
+ *
+ * The rendered prompt text is embedded and looked up among earlier prompts with the same
+ * model, agent, tools and response format. Tool-calling turns are never cached: a reused
+ * tool call would act twice, and tool results are exact data rather than prose. Executions
+ * can skip the lookup with {@value CachingChatModel#BYPASS_PARAMETER}=true, like the exact cache.
+ * Calls made outside of any agent are never cached either: the per-agent policies cannot apply
+ * to them, and unrelated callers would share one partition.
+ */
+public class SemanticCachingChatModel extends DelegatingChatModel {
+
+    /** Embedding deployments accept ~8k tokens; the end of the prompt carries the user input. */
+    private static final int MAX_EMBEDDED_CHARS = 16_000;
+
+    private final String modelName;
+    private final SemanticCache cache;
+
+    public SemanticCachingChatModel(ChatModel delegate, String modelName, SemanticCache cache) {
+        super(delegate);
+        this.modelName = modelName;
+        this.cache = cache;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        String agentName = ExecutionContext.currentAgent();
+        if (agentName == null || !cache.isEnabledFor(agentName) || hasToolResults(chatRequest.messages())) {
+            return delegate.chat(chatRequest);
+        }
+        String partition = partitionOf(chatRequest, agentName);
+        float[] vector = cache.embed(render(chatRequest.messages()));
+        if (vector == null) {
+            return delegate.chat(chatRequest);
+        }
+        if (!ExecutionContext.currentFlag(CachingChatModel.BYPASS_PARAMETER)) {
+            AiMessage cached = cache.lookup(agentName, partition, vector);
+            if (cached != null) {
+                return ChatResponse.builder()
+                        .aiMessage(cached)
+                        .modelName(modelName)
+                        .finishReason(FinishReason.STOP)
+                        .build();
+            }
+        }
+        ChatResponse response = delegate.chat(chatRequest);
+        AiMessage aiMessage = response.aiMessage();
+        if (aiMessage != null && !aiMessage.hasToolExecutionRequests() && response.finishReason() != FinishReason.LENGTH) {
+            cache.put(partition, vector, aiMessage);
+        }
+        return response;
+    }
+
+    private String partitionOf(ChatRequest request, String agentName) {
+        String requestModel = request.parameters() != null && request.parameters().modelName() != null
+                ? request.parameters().modelName()
+                : modelName;
+        return requestModel + '|' + agentName + '|'
+                + Objects.hash(request.toolSpecifications(), request.responseFormat());
+    }
+
+    private static boolean hasToolResults(List<ChatMessage> messages) {
+        return messages.stream().anyMatch(ToolExecutionResultMessage.class::isInstance);
+    }
+
+    private static String render(List<ChatMessage> messages) {
+        StringBuilder text = new StringBuilder();
+        for (ChatMessage message : messages) {
+            String content = switch (message) {
+                case SystemMessage system -> system.text();
+                case UserMessage user -> user.hasSingleText() ? user.singleText() : String.valueOf(user.contents());
+                case AiMessage ai -> ai.text();
+                default -> null;
+            };
+            if (content != null) {
+                text.append(message.type()).append(": ").append(content).append('\n');
+            }
+        }
+        return text.length() > MAX_EMBEDDED_CHARS ? text.substring(text.length() - MAX_EMBEDDED_CHARS) : text.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package com.matrixagents.llm;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.service.ExecutionContext;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+
+/**
+ * ChatModel that serves the calls of selected agents through a StreamingChatModel and
+ * publishes every partial response as a TOKEN event while the agent is still running.
+ *
+ * Agents keep their blocking ChatModel contract: the call returns the complete response once
+ * the stream finishes, so workflows, output parsing and the caches above this layer are
+ * unchanged. Calls outside an execution, or of agents not listed under
+ * matrix.llm.streaming.agents, go to the blocking model.
+ *
+ * The call waits interruptibly. An interrupted call, e.g. a speculative expert cancelled
+ * because the router disagreed, throws at once and cancels the stream at its next partial
+ * response, so the model stops generating. Speculative calls (see
+ * {@link ExecutionContext#speculate}) are streamed without publishing their tokens.
+ */
+public class StreamingChatModelAdapter extends DelegatingChatModel {
+
+    private final StreamingChatModel streamingModel;
+    private final Set<String> streamingAgents;
+    private final Consumer<AgentEvent> publisher;
+
+    public StreamingChatModelAdapter(ChatModel delegate, StreamingChatModel streamingModel,
+                                     Set<String> streamingAgents, Consumer<AgentEvent> publisher) {
+        super(delegate);
+        this.streamingModel = streamingModel;
+        this.streamingAgents = streamingAgents;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        ExecutionContext context = ExecutionContext.current();
+        String agentName = ExecutionContext.currentAgent();
+        if (context == null || agentName == null || !streamingAgents.contains(agentName)) {
+            return delegate.chat(chatRequest);
+        }
+        String streamId = UUID.randomUUID().toString();
+        boolean publishTokens = !ExecutionContext.speculative();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<ChatResponse> response = new CompletableFuture<>();
+        streamingModel.chat(chatRequest, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext streamContext) {
+                if (cancelled.get()) {
+                    streamContext.streamingHandle().cancel();
+                    return;
+                }
+                onPartialResponse(partialResponse.text());
+            }
+
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                if (!publishTokens || cancelled.get()) {
+                    return;
+                }
+                // Handler callbacks run on the HTTP client's threads; rebind the execution for the publisher
+                context.run(() -> {
+                    publisher.accept(AgentEvent.token(context.patternId(), agentName, streamId, partialResponse));
+                    return null;
+                });
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                response.complete(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                response.completeExceptionally(error);
+            }
+        });
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while streaming the response of " + agentName, e);
+        } catch (ExecutionException e) {
+            Throwable cause = Objects.requireNonNullElse(e.getCause(), e);
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
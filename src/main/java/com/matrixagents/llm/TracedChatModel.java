@@ -0,0 +1,59 @@
+package com.matrixagents.llm;
+
+import com.matrixagents.service.ExecutionContext;
+import com.matrixagents.service.ExecutionTracing;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * ChatModel decorator that runs every call reaching the model in a span, a child of the
+ * calling agent's span. Attributes follow the OpenTelemetry GenAI conventions
+ * (gen_ai.request.model, gen_ai.usage.input_tokens, ...), plus the model role and agent.
+ *
+ * Like {@link MeteredChatModel} it sits directly on the raw model, so cache hits do not
+ * show up as model calls.
+ */
+public class TracedChatModel extends DelegatingChatModel {
+
+    private final String role;
+    private final String modelName;
+    private final ExecutionTracing tracing;
+
+    /**
+     * @param role which of the configured models this is, e.g. chat or planner
+     */
+    public TracedChatModel(ChatModel delegate, String role, String modelName, ExecutionTracing tracing) {
+        super(delegate);
+        this.role = role;
+        this.modelName = modelName;
+        this.tracing = tracing;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        return tracing.inSpan("chat " + modelName, span -> {
+            span.tag("gen_ai.operation.name", "chat");
+            span.tag("gen_ai.request.model", modelName);
+            span.tag("matrix.model", role);
+            String agent = ExecutionContext.currentAgent();
+            if (agent != null) {
+                span.tag("matrix.agent", agent);
+            }
+            ChatResponse response = delegate.chat(chatRequest);
+            if (response.modelName() != null) {
+                span.tag("gen_ai.response.model", response.modelName());
+            }
+            TokenUsage usage = response.tokenUsage();
+            if (usage != null && usage.inputTokenCount() != null) {
+                span.tag("gen_ai.usage.input_tokens", usage.inputTokenCount());
+            }
+            if (usage != null && usage.outputTokenCount() != null) {
+                span.tag("gen_ai.usage.output_tokens", usage.outputTokenCount());
+            }
+            return response;
+        });
+    }
+}
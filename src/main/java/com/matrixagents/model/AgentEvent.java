@@ -3,8 +3,20 @@ package com.matrixagents.model;
 import java.time.Instant;
 import java.util.Map;
 
+/**
+ * An event of a pattern execution.
+ *
+ * Factories create unsequenced events; EventPublisher stamps them with the execution's id
+ * and the next value of its sequence (1, 2, 3, ... per execution) when they are published,
+ * and the eventId becomes executionId:sequence. Sequence numbers are unique per execution
+ * but, with parallel agents, may arrive slightly out of order. traceId is the execution's
+ * trace, when tracing is enabled.
+ */
 public record AgentEvent(
     String eventId,
+    String executionId,
+    long sequence,
+    String traceId,
     String patternName,
     String agentName,
     EventType eventType,
@@ -20,12 +32,19 @@ public record AgentEvent(
         HUMAN_INPUT_REQUIRED,
         HUMAN_INPUT_RECEIVED,
         ERROR,
-        COMPLETED
+        COMPLETED,
+        TOKEN,
+        BUDGET_EXHAUSTED,
+        MODEL_RETRY,
+        CIRCUIT_BREAKER
     }
 
     public static AgentEvent started(String patternName, String message) {
         return new AgentEvent(
-            java.util.UUID.randomUUID().toString(),
+            null,
+            null,
+            0,
+            null,
             patternName,
             null,
             EventType.STARTED,
@@ -37,7 +56,10 @@ public record AgentEvent(
 
     public static AgentEvent agentInvoked(String patternName, String agentName, String message) {
         return new AgentEvent(
-            java.util.UUID.randomUUID().toString(),
+            null,
+            null,
+            0,
+            null,
             patternName,
             agentName,
             EventType.AGENT_INVOKED,
@@ -49,7 +71,10 @@ public record AgentEvent(
 
     public static AgentEvent agentCompleted(String patternName, String agentName, String result) {
         return new AgentEvent(
-            java.util.UUID.randomUUID().toString(),
+            null,
+            null,
+            0,
+            null,
             patternName,
             agentName,
             EventType.AGENT_COMPLETED,
@@ -59,21 +84,65 @@ public record AgentEvent(
         );
     }
 
+    /**
+     * Like {@link #agentCompleted(String, String, String)}, with the tokens the agent has
+     * spent in this execution so far (all of its invocations) under data.tokens.
+     */
+    public static AgentEvent agentCompleted(String patternName, String agentName, String result, TokenReport.AgentTokens tokens) {
+        return new AgentEvent(
+            null,
+            null,
+            0,
+            null,
+            patternName,
+            agentName,
+            EventType.AGENT_COMPLETED,
+            result,
+            Map.of("result", result, "tokens", tokens),
+            Instant.now()
+        );
+    }
+
     public static AgentEvent stateUpdated(String patternName, String key, Object value) {
         return new AgentEvent(
-            java.util.UUID.randomUUID().toString(),
+            null,
+            null,
+            0,
+            null,
             patternName,
             null,
             EventType.STATE_UPDATED,
             "State updated: " + key,
-            Map.of("key", key, "value", value),
+            Map.of("changes", Map.of(key, value)),
+            Instant.now()
+        );
+    }
+
+    /**
+     * The scope keys an agent changed, with their new values; unchanged keys are left out.
+     * version is the scope version the changes produced.
+     */
+    public static AgentEvent stateChanged(String patternName, String agentName, long version, Map<String, Object> changes) {
+        return new AgentEvent(
+            null,
+            null,
+            0,
+            null,
+            patternName,
+            agentName,
+            EventType.STATE_UPDATED,
+            "State updated: " + String.join(", ", changes.keySet()),
+            Map.of("version", version, "changes", changes),
             Instant.now()
         );
     }
 
     public static AgentEvent humanInputRequired(String patternName, String prompt, String requestId) {
         return new AgentEvent(
-            java.util.UUID.randomUUID().toString(),
+            null,
+            null,
+            0,
+            null,
             patternName,
             "human",
             EventType.HUMAN_INPUT_REQUIRED,
@@ -85,7 +154,10 @@ public record AgentEvent(
 
     public static AgentEvent completed(String patternName, String result) {
         return new AgentEvent(
-            java.util.UUID.randomUUID().toString(),
+            null,
+            null,
+            0,
+            null,
             patternName,
             null,
             EventType.COMPLETED,
@@ -97,7 +169,10 @@ public record AgentEvent(
 
     public static AgentEvent error(String patternName, String agentName, String errorMessage) {
         return new AgentEvent(
-            java.util.UUID.randomUUID().toString(),
+            null,
+            null,
+            0,
+            null,
             patternName,
             agentName,
             EventType.ERROR,
@@ -106,4 +181,99 @@ public record AgentEvent(
             Instant.now()
         );
     }
+
+    /**
+     * The execution spent its token budget; it ends with the best result so far, if any.
+     */
+    public static AgentEvent budgetExhausted(String patternName, long usedTokens, long budget) {
+        return new AgentEvent(
+            null,
+            null,
+            0,
+            null,
+            patternName,
+            null,
+            EventType.BUDGET_EXHAUSTED,
+            "Token budget exhausted: " + usedTokens + " of " + budget + " tokens used",
+            Map.of("usedTokens", usedTokens, "budget", budget),
+            Instant.now()
+        );
+    }
+
+    /**
+     * A model call of the agent failed and is retried after delayMs.
+     *
+     * @param attempt the attempt that failed, starting at 1
+     * @param reason  rate_limited, server_error, timeout or connection
+     */
+    public static AgentEvent modelRetry(String patternName, String agentName, int attempt, long delayMs, String reason) {
+        return new AgentEvent(
+            null,
+            null,
+            0,
+            null,
+            patternName,
+            agentName,
+            EventType.MODEL_RETRY,
+            "Model call " + reason + " (attempt " + attempt + "), retrying in " + delayMs + " ms",
+            Map.of("attempt", attempt, "delayMs", delayMs, "reason", reason),
+            Instant.now()
+        );
+    }
+
+    /**
+     * The circuit breaker of a model deployment changed state (CLOSED, OPEN or HALF_OPEN).
+     */
+    public static AgentEvent circuitBreaker(String patternName, String deployment, String state) {
+        return new AgentEvent(
+            null,
+            null,
+            0,
+            null,
+            patternName,
+            null,
+            EventType.CIRCUIT_BREAKER,
+            "Circuit breaker for " + deployment + " is " + state,
+            Map.of("deployment", deployment, "state", state),
+            Instant.now()
+        );
+    }
+
+    /**
+     * Partial output of a streaming agent. Tokens of one model call share the streamId
+     * and arrive in order; the agent's AGENT_COMPLETED event still carries the full result.
+     */
+    public static AgentEvent token(String patternName, String agentName, String streamId, String token) {
+        return new AgentEvent(
+            null,
+            null,
+            0,
+            null,
+            patternName,
+            agentName,
+            EventType.TOKEN,
+            token,
+            Map.of("streamId", streamId),
+            Instant.now()
+        );
+    }
+
+    /**
+     * A copy of this event stamped with its execution and position in that execution.
+     * Events published outside of an execution have a null executionId.
+     */
+    public AgentEvent sequenced(String executionId, long sequence, String traceId) {
+        return new AgentEvent(
+            executionId != null ? executionId + ":" + sequence : String.valueOf(sequence),
+            executionId,
+            sequence,
+            traceId,
+            patternName,
+            agentName,
+            eventType,
+            message,
+            data,
+            timestamp
+        );
+    }
 }
@@ -0,0 +1,14 @@
+package com.matrixagents.model;
+
+/**
+ * One NDJSON line of a batch: the result of the prompt at index, streamed as soon as it is done.
+ */
+public record BatchItem(
+    String type,
+    int index,
+    ExecutionResult result
+) {
+    public static BatchItem of(int index, ExecutionResult result) {
+        return new BatchItem("result", index, result);
+    }
+}
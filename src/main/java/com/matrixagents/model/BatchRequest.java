@@ -0,0 +1,31 @@
+package com.matrixagents.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prompts to run through one pattern, e.g. for an evaluation.
+ *
+ * @param parameters    passed to every execution, as in {@link ExecutionRequest}
+ * @param concurrency   executions of the batch running at once; defaults to matrix.batch.default-concurrency
+ * @param includeEvents stream each result with its events; off by default to keep lines small
+ */
+public record BatchRequest(
+    List<String> prompts,
+    Map<String, Object> parameters,
+    Integer concurrency,
+    boolean includeEvents
+) {
+    public BatchRequest {
+        if (prompts == null || prompts.isEmpty()) {
+            throw new IllegalArgumentException("prompts are required");
+        }
+        if (prompts.stream().anyMatch(prompt -> prompt == null || prompt.isBlank())) {
+            throw new IllegalArgumentException("prompts must not be blank");
+        }
+        prompts = List.copyOf(prompts);
+        if (parameters == null) {
+            parameters = Map.of();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.matrixagents.model;
+
+/**
+ * Last NDJSON line of a batch. Latencies are over the executions' durationMs.
+ *
+ * @param completed          executions with status COMPLETED
+ * @param failed             executions that ended with an error
+ * @param skipped            prompts never started because the client went away
+ * @param wallTimeMs         from the first execution started to the last one finished
+ * @param executionsPerMinute finished executions per minute of wall time
+ */
+public record BatchSummary(
+    String type,
+    String patternId,
+    int total,
+    int completed,
+    int failed,
+    int skipped,
+    int concurrency,
+    long wallTimeMs,
+    long minMs,
+    long meanMs,
+    long p50Ms,
+    long p95Ms,
+    long maxMs,
+    double executionsPerMinute,
+    long totalTokens
+) {}
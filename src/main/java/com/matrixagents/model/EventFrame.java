@@ -0,0 +1,82 @@
+package com.matrixagents.model;
+
+import java.util.List;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.JacksonSerializable;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * An AgentEvent together with its JSON, rendered once when the event is published.
+ *
+ * Broker destinations, SSE streams, REST responses and execution history all reuse the
+ * same rendering: the UTF-8 bytes are sent to the broker as-is, and wherever a frame is
+ * serialized by Jackson (e.g. inside ExecutionResult.events) the cached JSON is written
+ * verbatim instead of serializing the event again.
+ */
+public final class EventFrame implements JacksonSerializable {
+
+    private final AgentEvent event;
+    private final SerializedString json;
+
+    private EventFrame(AgentEvent event, SerializedString json) {
+        this.event = event;
+        this.json = json;
+    }
+
+    public static EventFrame render(AgentEvent event, JsonMapper jsonMapper) {
+        return new EventFrame(event, new SerializedString(jsonMapper.writeValueAsString(event)));
+    }
+
+    public AgentEvent event() {
+        return event;
+    }
+
+    /**
+     * UTF-8 JSON of the event; cached, do not modify.
+     */
+    public byte[] bytes() {
+        return json.asUnquotedUTF8();
+    }
+
+    /**
+     * JSON array of the frames, assembled from their cached bytes.
+     */
+    public static byte[] toJsonArray(List<EventFrame> frames) {
+        int length = 2 + Math.max(0, frames.size() - 1);
+        for (EventFrame frame : frames) {
+            length += frame.bytes().length;
+        }
+        byte[] array = new byte[length];
+        int position = 0;
+        array[position++] = '[';
+        for (int i = 0; i < frames.size(); i++) {
+            if (i > 0) {
+                array[position++] = ',';
+            }
+            byte[] bytes = frames.get(i).bytes();
+            System.arraycopy(bytes, 0, array, position, bytes.length);
+            position += bytes.length;
+        }
+        array[position] = ']';
+        return array;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializationContext context) {
+        generator.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializationContext context, TypeSerializer typeSerializer) {
+        serialize(generator, context);
+    }
+
+    @Override
+    public String toString() {
+        return json.getValue();
+    }
+}
@@ -0,0 +1,14 @@
+package com.matrixagents.model;
+
+import java.util.List;
+
+/**
+ * A slice of an execution's events; fetch the next page with offset + events.size().
+ */
+public record EventPage(
+    String executionId,
+    int offset,
+    int total,
+    boolean finished,
+    List<EventFrame> events
+) {}
@@ -3,7 +3,8 @@ package com.matrixagents.model;
 public record ExecutionRequest(
     String patternId,
     String prompt,
-    java.util.Map<String, Object> parameters
+    java.util.Map<String, Object> parameters,
+    String executionId
 ) {
     public ExecutionRequest {
         if (patternId == null || patternId.isBlank()) {
@@ -15,5 +16,16 @@ public record ExecutionRequest(
         if (parameters == null) {
             parameters = java.util.Map.of();
         }
+        // Optional; lets a client subscribe to /topic/executions/{executionId} before it submits
+        if (executionId != null && !executionId.matches("[A-Za-z0-9-]{8,64}")) {
+            throw new IllegalArgumentException("executionId must be 8-64 letters, digits or dashes");
+        }
+    }
+
+    /**
+     * The client-supplied executionId, or a new random one.
+     */
+    public String executionIdOrRandom() {
+        return executionId != null ? executionId : java.util.UUID.randomUUID().toString();
     }
 }
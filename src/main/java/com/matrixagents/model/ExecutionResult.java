@@ -9,14 +9,16 @@ public record ExecutionResult(
     String patternId,
     String status,
     String result,
-    List<AgentEvent> events,
+    List<EventFrame> events,
     Map<String, Object> scopeSnapshot,
     Instant startTime,
     Instant endTime,
-    long durationMs
+    long durationMs,
+    String traceId,
+    TokenReport tokens
 ) {
     public static ExecutionResult success(String executionId, String patternId, String result,
-                                          List<AgentEvent> events, Map<String, Object> scopeSnapshot,
+                                          List<EventFrame> events, Map<String, Object> scopeSnapshot,
                                           Instant startTime) {
         Instant endTime = Instant.now();
         return new ExecutionResult(
@@ -28,12 +30,14 @@ public record ExecutionResult(
             scopeSnapshot,
             startTime,
             endTime,
-            endTime.toEpochMilli() - startTime.toEpochMilli()
+            endTime.toEpochMilli() - startTime.toEpochMilli(),
+            null,
+            null
         );
     }
 
     public static ExecutionResult error(String executionId, String patternId, String errorMessage,
-                                        List<AgentEvent> events, Instant startTime) {
+                                        List<EventFrame> events, Instant startTime) {
         Instant endTime = Instant.now();
         return new ExecutionResult(
             executionId,
@@ -44,12 +48,31 @@ public record ExecutionResult(
             Map.of(),
             startTime,
             endTime,
-            endTime.toEpochMilli() - startTime.toEpochMilli()
+            endTime.toEpochMilli() - startTime.toEpochMilli(),
+            null,
+            null
+        );
+    }
+
+    public static ExecutionResult running(String executionId, String patternId,
+                                          List<EventFrame> events, Instant startTime) {
+        return new ExecutionResult(
+            executionId,
+            patternId,
+            "RUNNING",
+            null,
+            events,
+            Map.of(),
+            startTime,
+            null,
+            -1,
+            null,
+            null
         );
     }
 
     public static ExecutionResult pending(String executionId, String patternId, String message,
-                                          List<AgentEvent> events, Instant startTime) {
+                                          List<EventFrame> events, Instant startTime) {
         return new ExecutionResult(
             executionId,
             patternId,
@@ -59,7 +82,33 @@ public record ExecutionResult(
             Map.of(),
             startTime,
             null,
-            -1
+            -1,
+            null,
+            null
         );
     }
+
+    /**
+     * This result with the trace id of its execution's root span.
+     */
+    public ExecutionResult traced(String traceId) {
+        return new ExecutionResult(executionId, patternId, status, result, events, scopeSnapshot,
+            startTime, endTime, durationMs, traceId, tokens);
+    }
+
+    /**
+     * This result with the tokens its execution spent.
+     */
+    public ExecutionResult withTokens(TokenReport tokens) {
+        return new ExecutionResult(executionId, patternId, status, result, events, scopeSnapshot,
+            startTime, endTime, durationMs, traceId, tokens);
+    }
+
+    /**
+     * This result without its events, e.g. for a batch line.
+     */
+    public ExecutionResult withoutEvents() {
+        return new ExecutionResult(executionId, patternId, status, result, List.of(), scopeSnapshot,
+            startTime, endTime, durationMs, traceId, tokens);
+    }
 }
@@ -0,0 +1,18 @@
+package com.matrixagents.model;
+
+import java.time.Instant;
+
+/**
+ * Progress of an execution submitted through the job API, without its events and result.
+ * Status is RUNNING, PENDING_HUMAN_INPUT (see humanInputRequestId), COMPLETED or ERROR.
+ */
+public record ExecutionStatus(
+    String executionId,
+    String patternId,
+    String status,
+    int eventCount,
+    String humanInputRequestId,
+    Instant startTime,
+    Instant endTime,
+    long durationMs
+) {}
@@ -0,0 +1,22 @@
+package com.matrixagents.model;
+
+import java.util.Map;
+
+/**
+ * Tokens an execution spent on model calls, in total and per agent.
+ *
+ * @param budget    tokens the execution was allowed to spend; 0 means unlimited
+ * @param exhausted the budget ran out and further model calls were refused
+ * @param agents    usage per agent name; calls made outside of any agent are under "unknown"
+ */
+public record TokenReport(
+    long inputTokens,
+    long outputTokens,
+    long totalTokens,
+    int calls,
+    long budget,
+    boolean exhausted,
+    Map<String, AgentTokens> agents
+) {
+    public record AgentTokens(long inputTokens, long outputTokens, int calls) {}
+}
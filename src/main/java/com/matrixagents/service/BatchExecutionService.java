@@ -0,0 +1,193 @@
+package com.matrixagents.service;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import com.matrixagents.config.BatchProperties;
+import com.matrixagents.model.BatchItem;
+import com.matrixagents.model.BatchRequest;
+import com.matrixagents.model.BatchSummary;
+import com.matrixagents.model.ExecutionResult;
+import com.matrixagents.model.PatternInfo;
+
+/**
+ * Runs a list of prompts through one pattern with a bounded number of executions in flight,
+ * handing each result over as soon as it is done.
+ *
+ * Every prompt is an ordinary execution of {@link PatternExecutionService}, so it is traced,
+ * metered, budgeted and recorded in the history like any other. Executions turned away by a
+ * full bulkhead are resubmitted after the bulkhead's Retry-After instead of failing the prompt.
+ */
+@Service
+public class BatchExecutionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchExecutionService.class);
+
+    private static final Set<String> PATTERN_IDS = PatternInfo.all().stream()
+            .map(PatternInfo::id)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final PatternExecutionService executionService;
+    private final BatchProperties properties;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BatchExecutionService(PatternExecutionService executionService, BatchProperties properties) {
+        this.executionService = executionService;
+        this.properties = properties;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks the batch before anything is streamed.
+     *
+     * @throws IllegalArgumentException for an unknown pattern or too many prompts
+     */
+    public void validate(String patternId, BatchRequest request) {
+        if (!PATTERN_IDS.contains(patternId)) {
+            throw new IllegalArgumentException("Unknown pattern: " + patternId);
+        }
+        if ("human-in-loop".equals(patternId)) {
+            throw new IllegalArgumentException("human-in-loop waits for human input and cannot run as a batch");
+        }
+        if (request.prompts().size() > properties.maxPrompts()) {
+            throw new IllegalArgumentException("A batch takes at most " + properties.maxPrompts() + " prompts");
+        }
+    }
+
+    /**
+     * Starts the batch in the background. The sink receives the result of every prompt, in
+     * completion order, from whichever thread finished it, and returns false once nobody
+     * listens any more; prompts not started by then are skipped.
+     */
+    public CompletableFuture<BatchSummary> start(String patternId, BatchRequest request, Predicate<BatchItem> sink) {
+        validate(patternId, request);
+        return CompletableFuture.supplyAsync(() -> run(patternId, request, sink), executor);
+    }
+
+    private BatchSummary run(String patternId, BatchRequest request, Predicate<BatchItem> sink) {
+        List<String> prompts = request.prompts();
+        int concurrency = Math.clamp(request.concurrency() != null ? request.concurrency() : properties.defaultConcurrency(),
+                1, properties.maxConcurrency());
+        Semaphore slots = new Semaphore(concurrency);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ConcurrentLinkedQueue<ExecutionResult> results = new ConcurrentLinkedQueue<>();
+        AtomicInteger skipped = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < prompts.size(); i++) {
+                slots.acquire();
+                if (cancelled.get()) {
+                    slots.release();
+                    skipped.addAndGet(prompts.size() - i);
+                    break;
+                }
+                int index = i;
+                submit(patternId, prompts.get(i), request.parameters(), cancelled).thenAccept(result -> {
+                    try {
+                        results.add(result);
+                        if (!sink.test(BatchItem.of(index, request.includeEvents() ? result : result.withoutEvents()))) {
+                            cancelled.set(true);
+                        }
+                    } catch (RuntimeException e) {
+                        log.warn("Could not deliver result {} of a {} batch", index, patternId, e);
+                        cancelled.set(true);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            // All slots free again means every started execution has been handed over
+            slots.acquire(concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled.set(true);
+        }
+        return summarize(patternId, prompts.size(), concurrency, List.copyOf(results), skipped.get(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Never fails: a prompt whose execution fails completes with an error result under the
+     * executionId it was submitted with.
+     */
+    private CompletableFuture<ExecutionResult> submit(String patternId, String prompt, Map<String, Object> parameters,
+                                                      AtomicBoolean cancelled) {
+        ExecutionContext context = new ExecutionContext(UUID.randomUUID().toString(), patternId, parameters);
+        return executionService.execute(context, prompt).exceptionallyCompose(e -> {
+            if (unwrap(e) instanceof BulkheadFullException full && !cancelled.get()) {
+                return CompletableFuture.runAsync(() -> {},
+                                CompletableFuture.delayedExecutor(full.getRetryAfterSeconds(), TimeUnit.SECONDS, executor))
+                        .thenCompose(ignored -> submit(patternId, prompt, parameters, cancelled));
+            }
+            return CompletableFuture.failedFuture(e);
+        }).exceptionally(e -> failed(context.executionId(), patternId, e));
+    }
+
+    private static ExecutionResult failed(String executionId, String patternId, Throwable e) {
+        return ExecutionResult.error(executionId, patternId, unwrap(e).getMessage(), List.of(), Instant.now());
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static BatchSummary summarize(String patternId, int total, int concurrency, List<ExecutionResult> results,
+                                          int skipped, long wallNanos) {
+        long[] durations = results.stream().mapToLong(ExecutionResult::durationMs).sorted().toArray();
+        int completed = (int) results.stream().filter(result -> "COMPLETED".equals(result.status())).count();
+        long totalTokens = results.stream()
+                .filter(result -> result.tokens() != null)
+                .mapToLong(result -> result.tokens().totalTokens())
+                .sum();
+        long wallTimeMs = TimeUnit.NANOSECONDS.toMillis(wallNanos);
+        return new BatchSummary(
+            "summary",
+            patternId,
+            total,
+            completed,
+            results.size() - completed,
+            skipped,
+            concurrency,
+            wallTimeMs,
+            durations.length == 0 ? 0 : durations[0],
+            durations.length == 0 ? 0 : Math.round(Arrays.stream(durations).average().orElse(0)),
+            percentile(durations, 0.5),
+            percentile(durations, 0.95),
+            durations.length == 0 ? 0 : durations[durations.length - 1],
+            wallTimeMs == 0 ? 0 : results.size() * 60_000.0 / wallTimeMs,
+            totalTokens
+        );
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
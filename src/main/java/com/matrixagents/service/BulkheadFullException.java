@@ -0,0 +1,24 @@
+package com.matrixagents.service;
+
+/**
+ * Thrown when a pattern's bulkhead has no free slot and no room left in its wait queue.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private final String patternId;
+    private final long retryAfterSeconds;
+
+    public BulkheadFullException(String patternId, String message, long retryAfterSeconds) {
+        super(message);
+        this.patternId = patternId;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getPatternId() {
+        return patternId;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,18 @@
+package com.matrixagents.service;
+
+/**
+ * Thrown when an execution is started with the executionId of one that is still running.
+ */
+public class DuplicateExecutionException extends RuntimeException {
+
+    private final String executionId;
+
+    public DuplicateExecutionException(String executionId) {
+        super("executionId " + executionId + " is already in use");
+        this.executionId = executionId;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+}
@@ -0,0 +1,149 @@
+package com.matrixagents.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+import com.matrixagents.model.EventFrame;
+
+/**
+ * Coalesces events per destination and hands them to the sender as one list.
+ *
+ * A batch is sent when it reaches maxEvents or when its first event has waited for the
+ * window, whichever comes first. Events of one destination are sent in the order they were
+ * added: adding and sending happen under the destination's lock, and a destination's batch
+ * is only replaced after it has been sent. The lock is a ReentrantLock rather than a monitor,
+ * since it is held across the broker send and execution virtual threads would otherwise pin
+ * their carrier while waiting for it.
+ */
+public class EventBatcher {
+
+    private final Duration window;
+    private final int maxEvents;
+    private final BiConsumer<String, List<EventFrame>> sender;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("event-batcher").daemon().factory());
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private final LongAdder sentBatches = new LongAdder();
+    private final LongAdder sentEvents = new LongAdder();
+    private final AtomicInteger maxBatchSize = new AtomicInteger();
+    private final LongAdder flushLatencyNanos = new LongAdder();
+    private final AtomicLong maxFlushLatencyNanos = new AtomicLong();
+
+    public EventBatcher(Duration window, int maxEvents, BiConsumer<String, List<EventFrame>> sender) {
+        this.window = window;
+        this.maxEvents = maxEvents;
+        this.sender = sender;
+    }
+
+    public void add(String destination, EventFrame frame) {
+        while (!batches.computeIfAbsent(destination, Batch::new).add(frame)) {
+            // The batch was sent and retired concurrently; the next computeIfAbsent creates a fresh one
+        }
+    }
+
+    /**
+     * Sends everything pending and stops the timer.
+     */
+    public void shutdown() {
+        batches.values().forEach(Batch::flush);
+        timer.shutdown();
+    }
+
+    public Stats stats() {
+        long batchCount = sentBatches.sum();
+        long eventCount = sentEvents.sum();
+        return new Stats(true, batchCount, eventCount,
+                batchCount == 0 ? 0 : (double) eventCount / batchCount,
+                maxBatchSize.get(),
+                batchCount == 0 ? 0 : flushLatencyNanos.sum() / batchCount / 1_000_000.0,
+                maxFlushLatencyNanos.get() / 1_000_000.0);
+    }
+
+    private final class Batch {
+        private final String destination;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<EventFrame> pending = new ArrayList<>();
+        private long firstAddedNanos;
+        private ScheduledFuture<?> scheduledFlush;
+        private boolean retired;
+
+        Batch(String destination) {
+            this.destination = destination;
+        }
+
+        boolean add(EventFrame frame) {
+            lock.lock();
+            try {
+                if (retired) {
+                    return false;
+                }
+                if (pending.isEmpty()) {
+                    firstAddedNanos = System.nanoTime();
+                    scheduledFlush = timer.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                pending.add(frame);
+                if (pending.size() >= maxEvents) {
+                    flush();
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void flush() {
+            lock.lock();
+            try {
+                if (retired || pending.isEmpty()) {
+                    return;
+                }
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                List<EventFrame> events = List.copyOf(pending);
+                try {
+                    sender.accept(destination, events);
+                } finally {
+                    // Retire instead of reusing so per-execution destinations do not pile up in the map
+                    retired = true;
+                    batches.remove(destination, this);
+                    record(events.size(), System.nanoTime() - firstAddedNanos);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void record(int size, long latencyNanos) {
+        sentBatches.increment();
+        sentEvents.add(size);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+        flushLatencyNanos.add(latencyNanos);
+        maxFlushLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    /**
+     * @param averageFlushLatencyMs time from a batch's first event to the end of its send
+     */
+    public record Stats(boolean enabled, long batches, long events, double averageBatchSize, int maxBatchSize,
+                        double averageFlushLatencyMs, double maxFlushLatencyMs) {
+
+        public static Stats disabled() {
+            return new Stats(false, 0, 0, 0, 0, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.matrixagents.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.matrixagents.model.EventFrame;
+
+/**
+ * Append-only log of the events of one execution, written by the pattern and its
+ * (possibly parallel) sub-agents without locks.
+ *
+ * An append claims the next index with a single getAndIncrement and stores the frame in
+ * that slot of a linked list of fixed-size chunks; the only CAS is the one that links a
+ * new chunk, once every CHUNK_SIZE events. Readers see events in claim order, so events
+ * appended by one thread keep their order. Unlike Collections.synchronizedList, nothing
+ * here holds a monitor, so virtual threads never pin on it.
+ */
+public final class EventLog {
+
+    private static final int CHUNK_SIZE = 64;
+
+    private final Chunk head = new Chunk(0);
+    private final AtomicReference<Chunk> tail = new AtomicReference<>(head);
+    private final AtomicLong claimed = new AtomicLong();
+
+    public void add(EventFrame frame) {
+        long index = claimed.getAndIncrement();
+        chunkFor(index).slots.set((int) (index % CHUNK_SIZE), frame);
+    }
+
+    /**
+     * Number of events appended so far (some may still be in the middle of being stored).
+     */
+    public int size() {
+        return (int) claimed.get();
+    }
+
+    /**
+     * All events appended before the call, in append order.
+     */
+    public List<EventFrame> snapshot() {
+        return range(0, size());
+    }
+
+    /**
+     * Events from index from (inclusive) to to (exclusive), clamped to what has been appended.
+     */
+    public List<EventFrame> range(int from, int to) {
+        int end = Math.min(to, size());
+        int start = Math.max(0, from);
+        if (start >= end) {
+            return List.of();
+        }
+        List<EventFrame> events = new ArrayList<>(end - start);
+        Chunk chunk = head;
+        while (chunk.base + CHUNK_SIZE <= start) {
+            chunk = awaitNext(chunk);
+        }
+        for (int index = start; index < end; index++) {
+            if (index >= chunk.base + CHUNK_SIZE) {
+                chunk = awaitNext(chunk);
+            }
+            events.add(await(chunk, (int) (index - chunk.base)));
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    private Chunk chunkFor(long index) {
+        Chunk chunk = tail.get();
+        if (chunk.base > index) {
+            // The tail moved past our chunk already; walk from the start
+            chunk = head;
+        }
+        while (index >= chunk.base + CHUNK_SIZE) {
+            Chunk next = chunk.next.get();
+            if (next == null) {
+                Chunk created = new Chunk(chunk.base + CHUNK_SIZE);
+                next = chunk.next.compareAndSet(null, created) ? created : chunk.next.get();
+            }
+            chunk = next;
+        }
+        Chunk currentTail = tail.get();
+        if (chunk.base > currentTail.base) {
+            tail.compareAndSet(currentTail, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * The claimed slot may not be stored yet; the writer is at most a few instructions away
+     * and, with no blocking call in between, cannot be unmounted if it is a virtual thread.
+     */
+    private static EventFrame await(Chunk chunk, int slot) {
+        EventFrame frame;
+        while ((frame = chunk.slots.get(slot)) == null) {
+            Thread.onSpinWait();
+        }
+        return frame;
+    }
+
+    private static Chunk awaitNext(Chunk chunk) {
+        Chunk next;
+        while ((next = chunk.next.get()) == null) {
+            Thread.onSpinWait();
+        }
+        return next;
+    }
+
+    private static final class Chunk {
+        private final long base;
+        private final AtomicReferenceArray<EventFrame> slots = new AtomicReferenceArray<>(CHUNK_SIZE);
+        private final AtomicReference<Chunk> next = new AtomicReference<>();
+
+        Chunk(long base) {
+            this.base = base;
+        }
+    }
+}
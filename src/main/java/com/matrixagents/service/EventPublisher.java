@@ -1,24 +1,214 @@
 package com.matrixagents.service;
 
+import com.matrixagents.config.EventProperties;
 import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
+import jakarta.annotation.PreDestroy;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Sends AgentEvents to the WebSocket topics.
+ *
+ * Events of an execution go to /topic/executions/{executionId}, so clients only receive
+ * the executions they watch. The global /topic/events firehose is optional and mirrors a
+ * sample of executions. With matrix.events.batching enabled, events are coalesced per topic
+ * and sent as JSON array frames instead of one frame per event. The latest events of each
+ * execution are kept in an {@link EventReplayBuffer} for clients that reconnect.
+ *
+ * Events are stamped with their execution's id and next sequence number (see
+ * {@link AgentEvent#sequenced}), so clients can drop duplicates and notice gaps without
+ * remembering every eventId. Each event is serialized exactly once, into an
+ * {@link EventFrame}; every destination, the execution's subscriber and the
+ * ExecutionResult reuse its bytes.
+ */
 @Service
 public class EventPublisher {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final JsonMapper jsonMapper;
+    private final EventBatcher batcher;
+    private final EventProperties.Firehose firehose;
+    private final EventReplayBuffer replayBuffer;
+    // Events published outside of an execution share one sequence
+    private final AtomicLong unscopedSequence = new AtomicLong();
+    private final Map<Destination, LongAdder> published = new EnumMap<>(Destination.class);
 
-    public EventPublisher(SimpMessagingTemplate messagingTemplate) {
+    public EventPublisher(SimpMessagingTemplate messagingTemplate, JsonMapper jsonMapper, EventProperties properties) {
         this.messagingTemplate = messagingTemplate;
+        this.jsonMapper = jsonMapper;
+        EventProperties.Batching batching = properties.batching();
+        this.batcher = batching.enabled()
+                ? new EventBatcher(batching.window(), batching.maxEvents(), this::sendBatch)
+                : null;
+        this.firehose = properties.firehose();
+        for (Destination destination : Destination.values()) {
+            published.put(destination, new LongAdder());
+        }
+        EventProperties.Replay replay = properties.replay();
+        this.replayBuffer = replay.enabled()
+                ? new EventReplayBuffer(replay.capacity(), replay.tokenCapacity(), replay.maxExecutions(),
+                        replay.retention())
+                : null;
+    }
+
+    public static String executionDestination(String executionId) {
+        return "/topic/executions/" + executionId;
     }
 
-    public void publish(AgentEvent event) {
-        messagingTemplate.convertAndSend("/topic/events", event);
-        messagingTemplate.convertAndSend("/topic/patterns/" + event.patternName(), event);
+    /**
+     * Stamps and renders the event once, sends it to its execution's topic and, if sampled, the firehose,
+     * and hands it to the subscriber of the execution running on the calling thread
+     * (see {@link ExecutionContext}), if any. Except for TOKEN events, the frame is recorded in
+     * the execution's {@link ExecutionContext#events()} before anyone is notified.
+     */
+    public EventFrame publish(AgentEvent event) {
+        ExecutionContext context = ExecutionContext.current();
+        String executionId = context != null ? context.executionId() : null;
+        long sequence = context != null ? context.nextSequence() : unscopedSequence.incrementAndGet();
+        String traceId = context != null ? context.traceId() : null;
+        EventFrame frame = EventFrame.render(event.sequenced(executionId, sequence, traceId), jsonMapper);
+        if (executionId != null) {
+            if (replayBuffer != null) {
+                replayBuffer.append(executionId, frame);
+            }
+            send(executionDestination(executionId), frame);
+            published.get(Destination.EXECUTION).increment();
+        }
+        if (firehose.includes(executionId)) {
+            send("/topic/events", frame);
+            published.get(Destination.FIREHOSE).increment();
+        }
+        if (context != null) {
+            if (event.eventType() != AgentEvent.EventType.TOKEN) {
+                // Tokens add up to the AGENT_COMPLETED result; the log keeps what the result shows
+                context.events().add(frame);
+            }
+            context.notifySubscriber(frame);
+        }
+        return frame;
+    }
+
+    /**
+     * Shares the leader's events with an execution request coalesced into it: the events
+     * recorded so far (all but the TOKEN events), then every new one, go to the follower's
+     * topic and subscriber. The frames are the leader's, so they carry the leader's
+     * executionId and sequence numbers. Frames published while the recorded ones are handed
+     * over are held back, and those the follower already received are not sent twice.
+     * A follower client that reconnects replays the leader's buffered events.
+     */
+    public void follow(ExecutionContext leader, ExecutionContext follower) {
+        String destination = executionDestination(follower.executionId());
+        if (replayBuffer != null) {
+            replayBuffer.alias(follower.executionId(), leader.executionId());
+        }
+        Consumer<EventFrame> forward = frame -> {
+            send(destination, frame);
+            published.get(Destination.EXECUTION).increment();
+            follower.notifySubscriber(frame);
+        };
+        Set<Long> replayed = ConcurrentHashMap.newKeySet();
+        ReentrantLock handover = new ReentrantLock();
+        handover.lock();
+        try {
+            leader.addFollower(frame -> {
+                handover.lock();
+                try {
+                    if (!replayed.remove(frame.event().sequence())) {
+                        forward.accept(frame);
+                    }
+                } finally {
+                    handover.unlock();
+                }
+            });
+            // Recorded before followers are notified, so a frame is in here or reaches the callback above
+            List<EventFrame> recorded = leader.events().snapshot();
+            for (EventFrame frame : recorded) {
+                replayed.add(frame.event().sequence());
+            }
+            recorded.forEach(forward);
+        } finally {
+            handover.unlock();
+        }
     }
 
     public void publishToSession(String sessionId, AgentEvent event) {
         messagingTemplate.convertAndSendToUser(sessionId, "/queue/events", event);
+        published.get(Destination.SESSION).increment();
+    }
+
+    /**
+     * Events sent to destinations of the given kind so far (each event counts once per destination).
+     */
+    public long publishedTo(Destination destination) {
+        return published.get(destination).sum();
+    }
+
+    /**
+     * Buffered events of the execution after lastSequence, for a client that resubscribes;
+     * for a request coalesced into another execution, those of that execution.
+     */
+    public List<EventFrame> replay(String executionId, long lastSequence) {
+        return replayBuffer != null ? replayBuffer.after(executionId, lastSequence) : List.of();
+    }
+
+    public EventReplayBuffer.Stats replayStats() {
+        return replayBuffer != null ? replayBuffer.stats() : EventReplayBuffer.Stats.disabled();
+    }
+
+    public EventBatcher.Stats stats() {
+        return batcher != null ? batcher.stats() : EventBatcher.Stats.disabled();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    private void send(String destination, EventFrame frame) {
+        if (batcher != null) {
+            batcher.add(destination, frame);
+        } else {
+            sendJson(destination, frame.bytes());
+        }
+    }
+
+    private void sendBatch(String destination, List<EventFrame> frames) {
+        sendJson(destination, EventFrame.toJsonArray(frames));
+    }
+
+    /**
+     * Sends pre-serialized JSON, bypassing the template's message converter.
+     */
+    private void sendJson(String destination, byte[] json) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(json, headers.getMessageHeaders()));
+    }
+
+    /**
+     * Kinds of destination events are sent to: an execution's topic, the firehose, or a user session.
+     */
+    public enum Destination {
+        EXECUTION,
+        FIREHOSE,
+        SESSION
     }
 }
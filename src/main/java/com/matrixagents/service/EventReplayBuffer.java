@@ -0,0 +1,202 @@
+package com.matrixagents.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
+
+/**
+ * Keeps the most recent events of each execution so a client that lost its connection can
+ * ask for what it missed.
+ *
+ * Every execution gets two fixed-size rings, written and read without locks: one for TOKEN
+ * events and a separate, larger one for everything else, so a long token stream cannot push
+ * out the agent and state events a reconnecting client needs most. A write claims the next
+ * position of its ring and overwrites the oldest slot; readers collect the slots with a
+ * sequence above the one they have seen and sort them. Rings are dropped once idle for the
+ * retention period, or least recently written first when more than maxExecutions are kept,
+ * which bounds memory to (capacity + tokenCapacity) * maxExecutions frames.
+ *
+ * A request coalesced into another execution (see {@link ExecutionCoalescer}) receives that
+ * execution's frames, so its executionId is registered as an alias and replays the same
+ * rings; the alias goes when they are dropped.
+ */
+public class EventReplayBuffer {
+
+    private static final long MAX_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int capacity;
+    private final int tokenCapacity;
+    private final int maxExecutions;
+    private final long retentionNanos;
+    private final long sweepIntervalNanos;
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime());
+    private final Map<String, Rings> rings = new ConcurrentHashMap<>();
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder truncated = new LongAdder();
+    private final LongAdder replayedEvents = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EventReplayBuffer(int capacity, int tokenCapacity, int maxExecutions, Duration retention) {
+        this.capacity = capacity;
+        this.tokenCapacity = tokenCapacity;
+        this.maxExecutions = maxExecutions;
+        this.retentionNanos = retention.toNanos();
+        this.sweepIntervalNanos = Math.min(retentionNanos, MAX_SWEEP_INTERVAL_NANOS);
+    }
+
+    public void append(String executionId, EventFrame frame) {
+        Rings execution = rings.get(executionId);
+        if (execution == null) {
+            evict();
+            execution = rings.computeIfAbsent(executionId, id -> new Rings());
+        }
+        execution.append(frame);
+    }
+
+    /**
+     * Answers replays for alias with the events of executionId.
+     */
+    public void alias(String alias, String executionId) {
+        if (!alias.equals(executionId)) {
+            aliases.put(alias, executionId);
+        }
+    }
+
+    /**
+     * Events of the execution with a sequence above lastSequence that are still buffered,
+     * in sequence order. Empty when the execution is unknown or has been evicted.
+     */
+    public List<EventFrame> after(String executionId, long lastSequence) {
+        requests.increment();
+        Rings execution = rings.get(aliases.getOrDefault(executionId, executionId));
+        if (execution == null) {
+            misses.increment();
+            return List.of();
+        }
+        List<EventFrame> events = execution.after(lastSequence);
+        if (!events.isEmpty()) {
+            hits.increment();
+            replayedEvents.add(events.size());
+        }
+        return events;
+    }
+
+    public Stats stats() {
+        long requestCount = requests.sum();
+        long hitCount = hits.sum();
+        return new Stats(true, rings.size(), capacity, tokenCapacity, requestCount, hitCount, misses.sum(),
+                requestCount == 0 ? 0 : (double) hitCount / requestCount,
+                replayedEvents.sum(), truncated.sum(), evictions.sum());
+    }
+
+    /**
+     * Makes room for a new execution: drops the least recently written ones over maxExecutions
+     * and, at most once per sweep interval, the idle ones.
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        long nextSweep = nextSweepNanos.get();
+        if (now - nextSweep >= 0 && nextSweepNanos.compareAndSet(nextSweep, now + sweepIntervalNanos)) {
+            rings.entrySet().removeIf(entry -> {
+                boolean idle = now - entry.getValue().lastWriteNanos > retentionNanos;
+                if (idle) {
+                    evictions.increment();
+                    aliases.values().removeIf(entry.getKey()::equals);
+                }
+                return idle;
+            });
+        }
+        while (rings.size() >= maxExecutions) {
+            Map.Entry<String, Rings> oldest = rings.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastWriteNanos))
+                    .orElse(null);
+            if (oldest == null) {
+                break;
+            }
+            if (rings.remove(oldest.getKey(), oldest.getValue())) {
+                evictions.increment();
+                aliases.values().removeIf(oldest.getKey()::equals);
+            }
+        }
+    }
+
+    private final class Rings {
+        private final Ring events = new Ring(capacity);
+        private final Ring tokens = new Ring(tokenCapacity);
+        private volatile long lastWriteNanos = System.nanoTime();
+
+        void append(EventFrame frame) {
+            (frame.event().eventType() == AgentEvent.EventType.TOKEN ? tokens : events).append(frame);
+            lastWriteNanos = System.nanoTime();
+        }
+
+        List<EventFrame> after(long lastSequence) {
+            if (events.overwrittenAbove(lastSequence) || tokens.overwrittenAbove(lastSequence)) {
+                truncated.increment();
+            }
+            List<EventFrame> after = new ArrayList<>();
+            events.collectAfter(lastSequence, after);
+            tokens.collectAfter(lastSequence, after);
+            after.sort(Comparator.comparingLong(frame -> frame.event().sequence()));
+            return after;
+        }
+    }
+
+    private static final class Ring {
+        private final AtomicReferenceArray<EventFrame> slots;
+        private final AtomicLong written = new AtomicLong();
+        // Highest sequence pushed out of the ring; replays asking for anything below it are truncated
+        private final AtomicLong overwritten = new AtomicLong();
+
+        Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        void append(EventFrame frame) {
+            int slot = (int) (written.getAndIncrement() % slots.length());
+            EventFrame previous = slots.getAndSet(slot, frame);
+            if (previous != null) {
+                overwritten.accumulateAndGet(previous.event().sequence(), Math::max);
+            }
+        }
+
+        boolean overwrittenAbove(long lastSequence) {
+            return overwritten.get() > lastSequence;
+        }
+
+        void collectAfter(long lastSequence, List<EventFrame> into) {
+            // A slot claimed but not yet stored holds the frame it replaces, or nothing
+            for (int slot = 0; slot < slots.length(); slot++) {
+                EventFrame frame = slots.get(slot);
+                if (frame != null && frame.event().sequence() > lastSequence) {
+                    into.add(frame);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param hitRate   share of replay requests that returned at least one event
+     * @param truncated replay requests that asked for events already overwritten in the rings
+     */
+    public record Stats(boolean enabled, int executions, int capacity, int tokenCapacity, long requests, long hits,
+                        long misses, double hitRate, long replayedEvents, long truncated, long evictions) {
+
+        public static Stats disabled() {
+            return new Stats(false, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.matrixagents.service;
+
+import java.text.Normalizer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import com.matrixagents.history.ExecutionHistory;
+import com.matrixagents.model.ExecutionResult;
+
+/**
+ * Single-flight layer of {@link PatternExecutionService}: a request identical to an execution
+ * still in flight (same pattern, prompt and parameters) is attached to it instead of starting
+ * a run of its own. It shares the execution's events (see {@link EventPublisher#follow}) and
+ * completes with the same ExecutionResult, including the leader's executionId; its own
+ * executionId is an alias of the leader's in the {@link ExecutionHistory}.
+ *
+ * Prompts are compared after Unicode normalization and whitespace collapsing. Requests can
+ * opt out with {@value #FRESH_PARAMETER}=true when they need a fresh generation; human-in-loop
+ * executions are never coalesced, since their human input belongs to one user.
+ */
+public class ExecutionCoalescer {
+
+    public static final String FRESH_PARAMETER = "fresh";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final boolean enabled;
+    private final EventPublisher eventPublisher;
+    private final ExecutionHistory history;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public ExecutionCoalescer(boolean enabled, EventPublisher eventPublisher, ExecutionHistory history) {
+        this.enabled = enabled;
+        this.eventPublisher = eventPublisher;
+        this.history = history;
+    }
+
+    /**
+     * Attaches the request to an identical execution in flight, or starts it and lets later
+     * identical requests attach to it until it finishes.
+     */
+    public CompletableFuture<ExecutionResult> execute(ExecutionContext context, String prompt,
+                                                      Supplier<CompletableFuture<ExecutionResult>> start) {
+        if (!enabled || context.flag(FRESH_PARAMETER) || "human-in-loop".equals(context.patternId())) {
+            return start.get();
+        }
+        String key = keyOf(context, prompt);
+        Flight flight = new Flight(context, new CompletableFuture<>());
+        Flight leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            history.alias(context.executionId(), leader.context().executionId());
+            eventPublisher.follow(leader.context(), context);
+            return leader.result();
+        }
+        leaders.increment();
+        start.get().whenComplete((result, e) -> {
+            inFlight.remove(key, flight);
+            if (e == null) {
+                flight.result().complete(result);
+            } else {
+                flight.result().completeExceptionally(e);
+            }
+        });
+        return flight.result();
+    }
+
+    static String keyOf(ExecutionContext context, String prompt) {
+        String normalized = prompt == null ? "" : WHITESPACE.matcher(
+                Normalizer.normalize(prompt, Normalizer.Form.NFKC).strip()).replaceAll(" ");
+        Map<String, Object> parameters = new TreeMap<>(context.parameters());
+        parameters.remove(FRESH_PARAMETER);
+        return context.patternId() + '\n' + normalized + '\n' + parameters;
+    }
+
+    public Stats stats() {
+        return new Stats(enabled, inFlight.size(), leaders.sum(), coalesced.sum());
+    }
+
+    private record Flight(ExecutionContext context, CompletableFuture<ExecutionResult> result) {}
+
+    /**
+     * @param inFlight  executions other requests can currently attach to
+     * @param leaders   executions started with coalescing enabled
+     * @param coalesced requests attached to one of them instead of running
+     */
+    public record Stats(boolean enabled, int inFlight, long leaders, long coalesced) {}
+}
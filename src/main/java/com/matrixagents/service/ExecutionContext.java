@@ -0,0 +1,276 @@
+package com.matrixagents.service;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.matrixagents.model.EventFrame;
+
+import io.micrometer.tracing.Span;
+
+/**
+ * Per-execution state that has to reach code the pattern does not call directly,
+ * such as the ChatModel decorators underneath the agents.
+ *
+ * The context is bound to the worker thread for the duration of an execution and is
+ * carried over to sub-agent threads by {@link #wrap(Runnable)}, together with the span
+ * that is current on the calling thread, so spans started there keep their parent.
+ */
+public final class ExecutionContext {
+
+    private static final ThreadLocal<ExecutionContext> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<ArrayDeque<String>> AGENTS = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final ThreadLocal<Span> SPAN = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> SPECULATIVE = new ThreadLocal<>();
+
+    private final String executionId;
+    private final String patternId;
+    private final Map<String, Object> parameters;
+    private final Consumer<EventFrame> subscriber;
+    private final AtomicLong sequence = new AtomicLong();
+    private final TokenBudget tokens = new TokenBudget();
+    private final EventLog events = new EventLog();
+    private final List<Consumer<EventFrame>> followers = new CopyOnWriteArrayList<>();
+    private volatile Span span;
+
+    public ExecutionContext(String executionId, String patternId, Map<String, Object> parameters) {
+        this(executionId, patternId, parameters, null);
+    }
+
+    /**
+     * @param subscriber receives every event the execution publishes, e.g. an SSE client; may be null
+     */
+    public ExecutionContext(String executionId, String patternId, Map<String, Object> parameters,
+                            Consumer<EventFrame> subscriber) {
+        this.executionId = executionId;
+        this.patternId = patternId;
+        this.parameters = parameters == null ? Map.of() : Collections.unmodifiableMap(new HashMap<>(parameters));
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * The context bound to the calling thread, or null outside of an execution.
+     */
+    public static ExecutionContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * True when the current execution passed the parameter as true (boolean or "true").
+     */
+    public static boolean currentFlag(String parameter) {
+        ExecutionContext context = CURRENT.get();
+        return context != null && context.flag(parameter);
+    }
+
+    /**
+     * True when the current execution has spent its token budget; workflows check this to
+     * end before their next round instead of having the next model call refused.
+     */
+    public static boolean tokenBudgetExhausted() {
+        ExecutionContext context = CURRENT.get();
+        return context != null && context.tokens.exhausted();
+    }
+
+    /**
+     * Name of the innermost agent being invoked on the calling thread, or null outside of
+     * any agent.
+     */
+    public static String currentAgent() {
+        return AGENTS.get().peek();
+    }
+
+    /**
+     * Called by the agent listener when an agent starts on the calling thread.
+     */
+    public static void enterAgent(String agentName) {
+        AGENTS.get().push(agentName);
+    }
+
+    /**
+     * Called by the agent listener when the innermost agent on the calling thread finishes.
+     */
+    public static void exitAgent() {
+        ArrayDeque<String> agents = AGENTS.get();
+        agents.poll();
+        if (agents.isEmpty()) {
+            AGENTS.remove();
+        }
+    }
+
+    /**
+     * Runs the action as a speculative call, whose answer may be thrown away: model calls it
+     * makes on the calling thread publish no TOKEN events.
+     */
+    public static <T> T speculate(Supplier<T> action) {
+        SPECULATIVE.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            SPECULATIVE.remove();
+        }
+    }
+
+    /**
+     * True inside {@link #speculate}.
+     */
+    public static boolean speculative() {
+        return SPECULATIVE.get() != null;
+    }
+
+    /**
+     * The innermost span started on the calling thread (or handed over by {@link #wrap}),
+     * else the root span of the current execution, else null.
+     */
+    public static Span currentSpan() {
+        Span span = SPAN.get();
+        if (span != null) {
+            return span;
+        }
+        ExecutionContext context = CURRENT.get();
+        return context != null ? context.span : null;
+    }
+
+    /**
+     * Makes the span the innermost one on the calling thread and returns the previous one,
+     * which the caller restores when the span ends.
+     */
+    public static Span swapSpan(Span span) {
+        Span previous = SPAN.get();
+        if (span == null) {
+            SPAN.remove();
+        } else {
+            SPAN.set(span);
+        }
+        return previous;
+    }
+
+    /**
+     * Returns a task that runs with the caller's context, span and innermost agent bound,
+     * for hand-off to another thread.
+     */
+    public static Runnable wrap(Runnable task) {
+        ExecutionContext context = CURRENT.get();
+        if (context == null) {
+            return task;
+        }
+        Span parent = SPAN.get();
+        String agent = currentAgent();
+        return () -> context.run(() -> {
+            Span previous = swapSpan(parent);
+            if (agent != null) {
+                enterAgent(agent);
+            }
+            try {
+                task.run();
+            } finally {
+                if (agent != null) {
+                    exitAgent();
+                }
+                swapSpan(previous);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action with this context bound to the calling thread.
+     */
+    public <T> T run(Supplier<T> action) {
+        ExecutionContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public String executionId() {
+        return executionId;
+    }
+
+    public String patternId() {
+        return patternId;
+    }
+
+    public Map<String, Object> parameters() {
+        return parameters;
+    }
+
+    /**
+     * Token usage and budget of this execution.
+     */
+    public TokenBudget tokens() {
+        return tokens;
+    }
+
+    /**
+     * Events the execution has published so far, except TOKEN events, in the order they were
+     * recorded by {@link EventPublisher#publish}; they become the ExecutionResult's events.
+     */
+    public EventLog events() {
+        return events;
+    }
+
+    /**
+     * Sets the root span of the execution; called once by {@link ExecutionTracing}.
+     */
+    void bindSpan(Span span) {
+        this.span = span;
+    }
+
+    /**
+     * Trace id of the execution's root span, or null while it is not traced.
+     */
+    public String traceId() {
+        Span root = span;
+        if (root == null) {
+            return null;
+        }
+        String traceId = root.context().traceId();
+        return traceId == null || traceId.isEmpty() ? null : traceId;
+    }
+
+    /**
+     * Next event sequence number of this execution, starting at 1.
+     */
+    public long nextSequence() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Hands the event to the execution's subscriber, if it has one, and to the requests
+     * coalesced into this execution.
+     */
+    public void notifySubscriber(EventFrame frame) {
+        if (subscriber != null) {
+            subscriber.accept(frame);
+        }
+        for (Consumer<EventFrame> follower : followers) {
+            follower.accept(frame);
+        }
+    }
+
+    /**
+     * Has every event published from now on handed to the follower as well; see {@link ExecutionCoalescer}.
+     */
+    void addFollower(Consumer<EventFrame> follower) {
+        followers.add(follower);
+    }
+
+    public boolean flag(String parameter) {
+        Object value = parameters.get(parameter);
+        return value instanceof Boolean b ? b : value != null && Boolean.parseBoolean(value.toString());
+    }
+}
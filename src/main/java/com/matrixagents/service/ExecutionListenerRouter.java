@@ -0,0 +1,126 @@
+package com.matrixagents.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.langchain4j.agentic.observability.AgentInvocationError;
+import dev.langchain4j.agentic.observability.AgentListener;
+import dev.langchain4j.agentic.observability.AgentRequest;
+import dev.langchain4j.agentic.observability.AgentResponse;
+import dev.langchain4j.agentic.scope.AgenticScope;
+
+/**
+ * Single AgentListener attached to the agent graphs cached by {@link PatternGraphRegistry}.
+ *
+ * The cached graphs are shared by all executions, so they cannot hold a per-execution
+ * listener. Instead every execution seeds its AgenticScope with {@link #EXECUTION_KEY}
+ * and binds its own listener here; callbacks are routed by reading that key back from
+ * the scope, which works regardless of the thread the sub-agent runs on.
+ *
+ * It also tracks the agent currently running on each thread ({@link ExecutionContext#currentAgent()}),
+ * so model decorators can apply per-agent policies, and forwards every invocation to
+ * observers that see all executions, such as {@link ExecutionMetrics} and
+ * {@link ExecutionTracing}. Observers are notified in order before an agent runs and in
+ * reverse order after it, so they nest like the invocations themselves.
+ */
+public class ExecutionListenerRouter implements AgentListener {
+
+    /**
+     * Scope key carrying the execution id. Listeners should hide it from scope snapshots.
+     */
+    public static final String EXECUTION_KEY = "__executionId";
+
+    private final Map<String, AgentListener> listeners = new ConcurrentHashMap<>();
+    private final List<AgentListener> observers;
+
+    public ExecutionListenerRouter(AgentListener... observers) {
+        this.observers = List.of(observers);
+    }
+
+    /**
+     * Routes callbacks for the given execution to the listener until the binding is closed.
+     */
+    public Binding bind(String executionId, AgentListener listener) {
+        listeners.put(executionId, listener);
+        return () -> listeners.remove(executionId);
+    }
+
+    /**
+     * Returns the invocation inputs with the execution id added, ready for invokeWithAgenticScope().
+     */
+    public static Map<String, Object> inputs(String executionId, Map<String, Object> inputs) {
+        Map<String, Object> scoped = new HashMap<>(inputs);
+        scoped.put(EXECUTION_KEY, executionId);
+        return scoped;
+    }
+
+    @Override
+    public void beforeAgentInvocation(AgentRequest request) {
+        ExecutionContext.enterAgent(request.agent().name());
+        observers.forEach(observer -> observer.beforeAgentInvocation(request));
+        AgentListener listener = listenerFor(request.agenticScope());
+        if (listener != null) {
+            listener.beforeAgentInvocation(request);
+        }
+    }
+
+    @Override
+    public void afterAgentInvocation(AgentResponse response) {
+        ExecutionContext.exitAgent();
+        observers.reversed().forEach(observer -> observer.afterAgentInvocation(response));
+        AgentListener listener = listenerFor(response.agenticScope());
+        if (listener != null) {
+            listener.afterAgentInvocation(response);
+        }
+    }
+
+    @Override
+    public void onAgentInvocationError(AgentInvocationError error) {
+        ExecutionContext.exitAgent();
+        observers.reversed().forEach(observer -> observer.onAgentInvocationError(error));
+        AgentListener listener = listenerFor(error.agenticScope());
+        if (listener != null) {
+            listener.onAgentInvocationError(error);
+        }
+    }
+
+    @Override
+    public void afterAgenticScopeCreated(AgenticScope scope) {
+        AgentListener listener = listenerFor(scope);
+        if (listener != null) {
+            listener.afterAgenticScopeCreated(scope);
+        }
+    }
+
+    @Override
+    public void beforeAgenticScopeDestroyed(AgenticScope scope) {
+        AgentListener listener = listenerFor(scope);
+        if (listener != null) {
+            listener.beforeAgenticScopeDestroyed(scope);
+        }
+    }
+
+    @Override
+    public boolean inheritedBySubagents() {
+        return true;
+    }
+
+    private AgentListener listenerFor(AgenticScope scope) {
+        if (scope == null) {
+            return null;
+        }
+        String executionId = scope.readState(EXECUTION_KEY, "");
+        return executionId.isEmpty() ? null : listeners.get(executionId);
+    }
+
+    /**
+     * Handle returned by {@link #bind}; closing it stops routing to the listener.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
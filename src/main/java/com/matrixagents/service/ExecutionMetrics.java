@@ -0,0 +1,110 @@
+package com.matrixagents.service;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.matrixagents.model.ExecutionResult;
+
+import dev.langchain4j.agentic.observability.AgentInvocationError;
+import dev.langchain4j.agentic.observability.AgentListener;
+import dev.langchain4j.agentic.observability.AgentRequest;
+import dev.langchain4j.agentic.observability.AgentResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer instrumentation of executions and agents.
+ *
+ * <ul>
+ *   <li>matrix.pattern.executions: timer per pattern and final status</li>
+ *   <li>matrix.agent.invocations: timer per pattern, agent and outcome, fed by the agent
+ *       listener hooks through {@link ExecutionListenerRouter}</li>
+ *   <li>matrix.executions.active and matrix.human.pending: gauges</li>
+ * </ul>
+ *
+ * Agent invocations are timed on the thread that runs them; before/after callbacks of one
+ * invocation always arrive on the same thread, nested invocations in LIFO order.
+ */
+@Component
+public class ExecutionMetrics implements AgentListener {
+
+    private static final ThreadLocal<ArrayDeque<long[]>> STARTS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final MeterRegistry registry;
+    private final AtomicInteger activeExecutions = new AtomicInteger();
+
+    public ExecutionMetrics(MeterRegistry registry, HumanInputService humanInputService) {
+        this.registry = registry;
+        Gauge.builder("matrix.executions.active", activeExecutions, AtomicInteger::get)
+                .description("Pattern executions currently running")
+                .register(registry);
+        Gauge.builder("matrix.human.pending", humanInputService, service -> service.getPendingRequests().size())
+                .description("Human input requests waiting for an answer")
+                .register(registry);
+    }
+
+    /**
+     * Runs the execution, counting it as active and timing it by its final status.
+     */
+    public ExecutionResult timeExecution(String patternId, Supplier<ExecutionResult> execution) {
+        long start = System.nanoTime();
+        activeExecutions.incrementAndGet();
+        String status = "EXCEPTION";
+        try {
+            ExecutionResult result = execution.get();
+            status = result.status();
+            return result;
+        } finally {
+            activeExecutions.decrementAndGet();
+            Timer.builder("matrix.pattern.executions")
+                    .description("Pattern execution time")
+                    .tags("pattern", patternId, "status", status)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void beforeAgentInvocation(AgentRequest request) {
+        STARTS.get().push(new long[] {System.nanoTime()});
+    }
+
+    @Override
+    public void afterAgentInvocation(AgentResponse response) {
+        record(response.agent().name(), "success");
+    }
+
+    @Override
+    public void onAgentInvocationError(AgentInvocationError error) {
+        record(error.agent().name(), "error");
+    }
+
+    @Override
+    public boolean inheritedBySubagents() {
+        return true;
+    }
+
+    private void record(String agentName, String outcome) {
+        ArrayDeque<long[]> starts = STARTS.get();
+        long[] start = starts.poll();
+        if (starts.isEmpty()) {
+            STARTS.remove();
+        }
+        if (start == null) {
+            return;
+        }
+        ExecutionContext context = ExecutionContext.current();
+        Timer.builder("matrix.agent.invocations")
+                .description("Agent invocation time, including its sub-agents")
+                .tags("pattern", context != null ? context.patternId() : "none", "agent", agentName, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - start[0], TimeUnit.NANOSECONDS);
+    }
+}
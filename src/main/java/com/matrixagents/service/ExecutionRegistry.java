@@ -0,0 +1,188 @@
+package com.matrixagents.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
+import com.matrixagents.model.EventPage;
+import com.matrixagents.model.ExecutionRequest;
+import com.matrixagents.model.ExecutionResult;
+import com.matrixagents.model.ExecutionStatus;
+
+/**
+ * In-memory registry behind the asynchronous job API.
+ *
+ * Submitted executions are tracked from the moment they are accepted: their events are
+ * collected as they are published and their ExecutionResult is kept once they finish.
+ * Running executions are never evicted; finished ones are dropped after the retention
+ * period, or oldest first once more than max-finished of them are kept.
+ */
+@Service
+public class ExecutionRegistry {
+
+    private final PatternExecutionService executionService;
+    private final int maxFinished;
+    private final Duration retention;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Job> finished = new ConcurrentLinkedQueue<>();
+
+    public ExecutionRegistry(PatternExecutionService executionService,
+                             @Value("${matrix.executions.max-finished:500}") int maxFinished,
+                             @Value("${matrix.executions.retention:30m}") Duration retention) {
+        this.executionService = executionService;
+        this.maxFinished = maxFinished;
+        this.retention = retention;
+    }
+
+    /**
+     * Starts the execution and returns its RUNNING snapshot. Throws {@link BulkheadFullException},
+     * {@link DuplicateExecutionException} or IllegalArgumentException when the execution is
+     * refused outright.
+     */
+    public ExecutionResult submit(ExecutionRequest request) {
+        evictFinished();
+        Job job = new Job(request.executionIdOrRandom(), request.patternId());
+        if (jobs.putIfAbsent(job.executionId, job) != null) {
+            throw new DuplicateExecutionException(job.executionId);
+        }
+        ExecutionContext context = new ExecutionContext(job.executionId, job.patternId, request.parameters(), job::onEvent);
+        CompletableFuture<ExecutionResult> execution = executionService.execute(context, request.prompt());
+        if (execution.isCompletedExceptionally()) {
+            jobs.remove(job.executionId, job);
+            try {
+                execution.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        execution.whenComplete((result, e) -> {
+            job.finish(e == null ? result : ExecutionResult.error(job.executionId, job.patternId,
+                    e instanceof CompletionException && e.getCause() != null ? e.getCause().getMessage() : e.getMessage(),
+                    job.events(), job.startTime));
+            finished.add(job);
+            evictFinished();
+        });
+        return job.snapshot();
+    }
+
+    public Optional<ExecutionStatus> status(String executionId) {
+        return find(executionId).map(Job::status);
+    }
+
+    /**
+     * The final result, or the current RUNNING / PENDING_HUMAN_INPUT snapshot while the execution runs.
+     */
+    public Optional<ExecutionResult> result(String executionId) {
+        return find(executionId).map(Job::snapshot);
+    }
+
+    public Optional<EventPage> events(String executionId, int offset, int limit) {
+        return find(executionId).map(job -> job.page(offset, limit));
+    }
+
+    private Optional<Job> find(String executionId) {
+        Job job = jobs.get(executionId);
+        if (job != null && job.isExpired(retention)) {
+            jobs.remove(executionId, job);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private void evictFinished() {
+        Job oldest;
+        while ((oldest = finished.peek()) != null && (finished.size() > maxFinished || oldest.isExpired(retention))) {
+            if (finished.remove(oldest)) {
+                jobs.remove(oldest.executionId, oldest);
+            }
+        }
+    }
+
+    private static final class Job {
+        private final String executionId;
+        private final String patternId;
+        private final Instant startTime = Instant.now();
+        private final EventLog events = new EventLog();
+        private volatile String humanInputRequestId;
+        private volatile ExecutionResult result;
+
+        Job(String executionId, String patternId) {
+            this.executionId = executionId;
+            this.patternId = patternId;
+        }
+
+        void onEvent(EventFrame frame) {
+            AgentEvent event = frame.event();
+            if (event.eventType() == AgentEvent.EventType.TOKEN) {
+                // Tokens add up to the AGENT_COMPLETED result; keeping them would only bloat the job
+                return;
+            }
+            events.add(frame);
+            humanInputRequestId = event.eventType() == AgentEvent.EventType.HUMAN_INPUT_REQUIRED
+                    ? String.valueOf(event.data().get("requestId"))
+                    : null;
+        }
+
+        void finish(ExecutionResult result) {
+            this.result = result;
+            this.humanInputRequestId = null;
+        }
+
+        boolean isExpired(Duration retention) {
+            ExecutionResult done = result;
+            Instant endTime = done == null ? null : done.endTime();
+            return endTime != null && endTime.plus(retention).isBefore(Instant.now());
+        }
+
+        List<EventFrame> events() {
+            return events.snapshot();
+        }
+
+        ExecutionResult snapshot() {
+            ExecutionResult done = result;
+            if (done != null) {
+                return done;
+            }
+            String requestId = humanInputRequestId;
+            if (requestId != null) {
+                return ExecutionResult.pending(executionId, patternId, "Waiting for human input (requestId " + requestId + ")",
+                        events(), startTime);
+            }
+            return ExecutionResult.running(executionId, patternId, events(), startTime);
+        }
+
+        ExecutionStatus status() {
+            ExecutionResult done = result;
+            int eventCount = events.size();
+            if (done != null) {
+                return new ExecutionStatus(executionId, patternId, done.status(), eventCount, null,
+                        startTime, done.endTime(), done.durationMs());
+            }
+            String requestId = humanInputRequestId;
+            return new ExecutionStatus(executionId, patternId, requestId != null ? "PENDING_HUMAN_INPUT" : "RUNNING",
+                    eventCount, requestId, startTime, null, -1);
+        }
+
+        EventPage page(int offset, int limit) {
+            boolean done = result != null;
+            int total = events.size();
+            int from = Math.min(Math.max(offset, 0), total);
+            int to = Math.min(from + Math.max(limit, 0), total);
+            return new EventPage(executionId, from, total, done, events.range(from, to));
+        }
+    }
+}
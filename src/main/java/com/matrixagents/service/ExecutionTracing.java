@@ -0,0 +1,136 @@
+package com.matrixagents.service;
+
+import java.util.ArrayDeque;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.matrixagents.model.ExecutionResult;
+
+import dev.langchain4j.agentic.observability.AgentInvocationError;
+import dev.langchain4j.agentic.observability.AgentListener;
+import dev.langchain4j.agentic.observability.AgentRequest;
+import dev.langchain4j.agentic.observability.AgentResponse;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+/**
+ * Tracing of executions: one root span per execution, a child span per agent invocation
+ * (fed by the agent listener hooks through {@link ExecutionListenerRouter}) and spans for
+ * the work agents do, such as model requests and tool calls, through {@link #inSpan}.
+ *
+ * Parents are taken from {@link ExecutionContext#currentSpan()} rather than from the tracer
+ * alone, because sub-agents run on other threads and the context carries the span across.
+ * Without a tracer (tracing disabled) every span is a no-op and no trace id is reported.
+ */
+@Component
+public class ExecutionTracing implements AgentListener {
+
+    private static final ThreadLocal<ArrayDeque<Active>> AGENT_SPANS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final Tracer tracer;
+
+    @Autowired
+    public ExecutionTracing(ObjectProvider<Tracer> tracer) {
+        this(tracer.getIfAvailable(() -> Tracer.NOOP));
+    }
+
+    public ExecutionTracing(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Runs the execution under a new root span, bound to the context so its events and
+     * result carry the trace id.
+     */
+    @SuppressWarnings("try")
+    public ExecutionResult traceExecution(ExecutionContext context, Supplier<ExecutionResult> execution) {
+        Span span = tracer.nextSpan()
+                .name("pattern " + context.patternId())
+                .tag("matrix.pattern", context.patternId())
+                .tag("matrix.execution.id", context.executionId())
+                .start();
+        context.bindSpan(span);
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            ExecutionResult result = execution.get();
+            span.tag("matrix.status", result.status());
+            if ("ERROR".equals(result.status()) && result.result() != null) {
+                span.error(new IllegalStateException(result.result()));
+            }
+            return result.traced(context.traceId());
+        } catch (RuntimeException | Error e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Runs the action in a span that is a child of the current one; the action may tag it.
+     */
+    @SuppressWarnings("try")
+    public <T> T inSpan(String name, Function<Span, T> action) {
+        Span span = start(name);
+        Span previous = ExecutionContext.swapSpan(span);
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            return action.apply(span);
+        } catch (RuntimeException | Error e) {
+            span.error(e);
+            throw e;
+        } finally {
+            ExecutionContext.swapSpan(previous);
+            span.end();
+        }
+    }
+
+    @Override
+    public void beforeAgentInvocation(AgentRequest request) {
+        Span span = start("agent " + request.agent().name()).tag("matrix.agent", request.agent().name());
+        Span previous = ExecutionContext.swapSpan(span);
+        AGENT_SPANS.get().push(new Active(span, previous, tracer.withSpan(span)));
+    }
+
+    @Override
+    public void afterAgentInvocation(AgentResponse response) {
+        end(null);
+    }
+
+    @Override
+    public void onAgentInvocationError(AgentInvocationError error) {
+        end(error.error());
+    }
+
+    @Override
+    public boolean inheritedBySubagents() {
+        return true;
+    }
+
+    private Span start(String name) {
+        Span parent = ExecutionContext.currentSpan();
+        Span span = parent != null ? tracer.nextSpan(parent) : tracer.nextSpan();
+        return span.name(name).start();
+    }
+
+    private void end(Throwable error) {
+        ArrayDeque<Active> spans = AGENT_SPANS.get();
+        Active active = spans.poll();
+        if (spans.isEmpty()) {
+            AGENT_SPANS.remove();
+        }
+        if (active == null) {
+            return;
+        }
+        active.scope.close();
+        ExecutionContext.swapSpan(active.previous);
+        if (error != null) {
+            active.span.error(error);
+        }
+        active.span.end();
+    }
+
+    private record Active(Span span, Span previous, Tracer.SpanInScope scope) {}
+}
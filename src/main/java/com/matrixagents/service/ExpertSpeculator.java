@@ -0,0 +1,299 @@
+package com.matrixagents.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import com.matrixagents.agents.ConditionalAgents.RequestCategory;
+import com.matrixagents.config.SpeculationProperties;
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.TokenReport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Speculative variant of the conditional pattern. Instead of CategoryRouter and then the chosen
+ * expert, the expert of the most likely category (see {@link SpeculationProperties}) starts on a
+ * virtual thread at the same time as the router. If the router agrees, the speculative answer is
+ * used and the router's latency is saved; otherwise the speculative call is cancelled (its
+ * thread interrupted) and the right expert runs as usual. The speculative expert runs under
+ * {@link ExecutionContext#speculate}, so it publishes no TOKEN events even when it is a
+ * streaming agent; on a hit its answer arrives whole with its AGENT_COMPLETED event.
+ *
+ * <ul>
+ *   <li>matrix.conditional.speculations: counter per outcome, hit, miss, failed (right guess,
+ *       but the speculative call failed and the expert ran again) or skipped (no confident
+ *       guess, or the request is UNKNOWN)</li>
+ *   <li>matrix.conditional.speculation.wasted.tokens: usage reported by cancelled experts whose
+ *       call completed before the cancellation reached it. A streaming expert stops at its next
+ *       partial response and a blocking one when its HTTP call gives up on the interrupt; the
+ *       tokens the service generated until then are billed but never reported, so they are
+ *       not counted here</li>
+ *   <li>matrix.conditional.speculation.saved: timer of the latency hits saved, i.e. the
+ *       shorter of the router and expert calls</li>
+ * </ul>
+ */
+@Component
+public class ExpertSpeculator {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpertSpeculator.class);
+
+    public static final String SPECULATE_PARAMETER = "speculate";
+
+    private static final String PATTERN = "conditional";
+    private static final String ROUTER = "classify";
+
+    private final PatternGraphRegistry graphs;
+    private final SpeculationProperties properties;
+    private final ArrayDeque<RequestCategory> recent = new ArrayDeque<>();
+    private final Map<String, LongAdder> outcomes = Map.of(
+            "hit", new LongAdder(), "miss", new LongAdder(), "failed", new LongAdder(), "skipped", new LongAdder());
+    private final Map<String, Counter> outcomeCounters = new HashMap<>();
+    private final LongAdder wastedTokens = new LongAdder();
+    private final Counter wastedTokensCounter;
+    private final LongAdder savedNanos = new LongAdder();
+    private final Timer savedTimer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ExpertSpeculator(PatternGraphRegistry graphs, SpeculationProperties properties, MeterRegistry registry) {
+        this.graphs = graphs;
+        this.properties = properties;
+        for (String outcome : outcomes.keySet()) {
+            outcomeCounters.put(outcome, Counter.builder("matrix.conditional.speculations")
+                    .description("Speculative expert executions by outcome: hit, miss, failed or skipped")
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+        this.wastedTokensCounter = Counter.builder("matrix.conditional.speculation.wasted.tokens")
+                .description("Tokens spent on cancelled speculative experts")
+                .register(registry);
+        this.savedTimer = Timer.builder("matrix.conditional.speculation.saved")
+                .description("Latency saved by speculative expert execution")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Whether the current execution runs speculatively: parameters.speculate if set, else the configuration.
+     */
+    public boolean isEnabled() {
+        ExecutionContext context = ExecutionContext.current();
+        Object requested = context != null ? context.parameters().get(SPECULATE_PARAMETER) : null;
+        return requested != null ? Boolean.parseBoolean(requested.toString()) : properties.enabled();
+    }
+
+    /**
+     * Classifies the request and answers it, speculating on the expert.
+     *
+     * @param publish receives the agent events of the run
+     */
+    public Answer ask(String request, Consumer<AgentEvent> publish) {
+        RequestCategory guess = predict();
+        FutureTask<String> speculative = null;
+        CountDownLatch stopped = new CountDownLatch(1);
+        long[] expertNanos = new long[1];
+        if (guess != null) {
+            publish.accept(AgentEvent.agentInvoked(PATTERN, expertName(guess),
+                    "Speculatively answering as the " + expertName(guess) + " expert..."));
+            UnaryOperator<String> agent = graphs.experts().get(guess);
+            FutureTask<String> task = new FutureTask<>(() -> {
+                long start = System.nanoTime();
+                try {
+                    // Its answer may be thrown away, so none of it is streamed to the client
+                    return ExecutionContext.speculate(() -> agent.apply(request));
+                } finally {
+                    expertNanos[0] = System.nanoTime() - start;
+                }
+            });
+            // Counts down even when the task was cancelled before it started
+            executor.execute(ExecutionContext.wrap(() -> {
+                try {
+                    task.run();
+                } finally {
+                    stopped.countDown();
+                }
+            }));
+            speculative = task;
+        }
+
+        publish.accept(AgentEvent.agentInvoked(PATTERN, ROUTER, "Classifying request..."));
+        long start = System.nanoTime();
+        RequestCategory category;
+        try {
+            category = graphs.categoryRouter().classify(request);
+        } catch (RuntimeException e) {
+            if (speculative != null) {
+                speculative.cancel(true);
+            }
+            throw e;
+        }
+        long routerNanos = System.nanoTime() - start;
+        record(category);
+        publish.accept(AgentEvent.agentCompleted(PATTERN, ROUTER, String.valueOf(category)));
+        publish.accept(AgentEvent.stateUpdated(PATTERN, "category", String.valueOf(category)));
+
+        if (guess != null && guess == category) {
+            try {
+                String response = speculative.get();
+                Duration saved = Duration.ofNanos(Math.min(routerNanos, expertNanos[0]));
+                outcome("hit");
+                savedNanos.add(saved.toNanos());
+                savedTimer.record(saved);
+                publish.accept(AgentEvent.agentCompleted(PATTERN, expertName(category), response));
+                return new Answer(category, guess, response);
+            } catch (ExecutionException e) {
+                // The guess was right but the call failed; the expert gets the usual single attempt below
+                outcome("failed");
+                log.warn("Speculative {} expert failed, running it again: {}", expertName(guess),
+                        e.getCause().getMessage());
+                publish.accept(AgentEvent.stateUpdated(PATTERN, "speculation",
+                        "Speculative " + expertName(guess) + " failed; running it again"));
+            } catch (InterruptedException e) {
+                speculative.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the speculative expert", e);
+            }
+        } else if (guess != null) {
+            speculative.cancel(true);
+            outcome("miss");
+            publish.accept(AgentEvent.stateUpdated(PATTERN, "speculation",
+                    "Predicted " + guess + " but the request is " + category + "; cancelled " + expertName(guess)));
+            countWasted(ExecutionContext.current(), expertName(guess), stopped);
+        } else {
+            outcome("skipped");
+        }
+        String response;
+        UnaryOperator<String> expert = category != null ? graphs.experts().get(category) : null;
+        if (expert == null) {
+            response = "No expert covers this request (category " + category + ").";
+        } else {
+            publish.accept(AgentEvent.agentInvoked(PATTERN, expertName(category), "Answering..."));
+            response = expert.apply(request);
+            publish.accept(AgentEvent.agentCompleted(PATTERN, expertName(category), response));
+        }
+        return new Answer(category, guess, response);
+    }
+
+    /**
+     * The category worth speculating on, or null when no expert category is likely enough.
+     */
+    RequestCategory predict() {
+        Map<RequestCategory, Double> scores = new EnumMap<>(RequestCategory.class);
+        for (RequestCategory category : RequestCategory.values()) {
+            scores.put(category, properties.priorOf(category));
+        }
+        synchronized (recent) {
+            for (RequestCategory category : recent) {
+                scores.merge(category, 1.0, Double::sum);
+            }
+        }
+        double total = scores.values().stream().mapToDouble(Double::doubleValue).sum();
+        RequestCategory best = null;
+        for (RequestCategory category : graphs.experts().keySet()) {
+            if (best == null || scores.get(category) > scores.get(best)) {
+                best = category;
+            }
+        }
+        if (best == null || total <= 0 || scores.get(best) / total < properties.minConfidence()) {
+            return null;
+        }
+        return best;
+    }
+
+    private void record(RequestCategory category) {
+        if (category == null) {
+            return;
+        }
+        synchronized (recent) {
+            recent.addLast(category);
+            while (recent.size() > properties.window()) {
+                recent.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Charges whatever the cancelled expert reported to the waste counter once it has stopped,
+     * without holding up the response.
+     */
+    private void countWasted(ExecutionContext context, String expert, CountDownLatch stopped) {
+        if (context == null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                stopped.await();
+            } catch (InterruptedException e) {
+                // Shutting down; the waste of this one speculation goes uncounted
+                return;
+            }
+            TokenReport.AgentTokens tokens = context.tokens().agent(expert);
+            if (tokens == null) {
+                return;
+            }
+            long wasted = tokens.inputTokens() + tokens.outputTokens();
+            wastedTokens.add(wasted);
+            wastedTokensCounter.increment(wasted);
+        });
+    }
+
+    private void outcome(String outcome) {
+        outcomes.get(outcome).increment();
+        outcomeCounters.get(outcome).increment();
+    }
+
+    /**
+     * Agent name of the category's expert, i.e. its method name.
+     */
+    private static String expertName(RequestCategory category) {
+        return category.name().toLowerCase(Locale.ROOT);
+    }
+
+    public Stats stats() {
+        long hits = outcomes.get("hit").sum();
+        long misses = outcomes.get("miss").sum();
+        long failed = outcomes.get("failed").sum();
+        long made = hits + misses + failed;
+        return new Stats(properties.enabled(), hits, misses, failed, outcomes.get("skipped").sum(),
+                made == 0 ? 0.0 : (double) hits / made, wastedTokens.sum(),
+                savedNanos.sum() / 1_000_000, predict());
+    }
+
+    /**
+     * @param category  what the router classified the request as
+     * @param predicted the category speculated on, or null if none was
+     */
+    public record Answer(RequestCategory category, RequestCategory predicted, String response) {}
+
+    /**
+     * @param failed       right guesses whose speculative call failed, so the expert ran again
+     * @param accuracy     hits among the speculations that were made
+     * @param savedMillis  latency saved by all hits
+     * @param nextGuess    the category the next request would be speculated on
+     */
+    public record Stats(boolean enabled, long hits, long misses, long failed, long skipped, double accuracy,
+                        long wastedTokens, long savedMillis, RequestCategory nextGuess) {}
+}
@@ -0,0 +1,130 @@
+package com.matrixagents.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Application-scoped executor for parallel sub-agents (e.g. FoodExpert + MovieExpert).
+ *
+ * Every subtask runs on its own virtual thread with the caller's {@link ExecutionContext},
+ * and a semaphore caps how many run at once; tasks over the cap park cheaply until a slot
+ * frees up and are reported as queued.
+ * Declarative agents reach it through {@link #shared()} from their @ParallelExecutor method,
+ * and {@link PatternExecutionService#shutdown()} shuts it down after the executions drain.
+ */
+@Component
+public class ParallelAgentExecutor implements Executor {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelAgentExecutor.class);
+
+    private static volatile ParallelAgentExecutor instance;
+
+    private final ExecutorService threads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("parallel-agent-", 0).factory());
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ParallelAgentExecutor(@Value("${matrix.agents.parallel.max-concurrency:32}") int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        instance = this;
+    }
+
+    /**
+     * Executor handed out to @ParallelExecutor methods. Resolves the Spring-managed
+     * instance on each task, so it can be captured before the bean is created.
+     */
+    public static Executor shared() {
+        return task -> {
+            ParallelAgentExecutor executor = instance;
+            if (executor == null) {
+                throw new RejectedExecutionException("ParallelAgentExecutor has not been initialized");
+            }
+            executor.execute(task);
+        };
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        queued.incrementAndGet();
+        try {
+            threads.execute(ExecutionContext.wrap(() -> runBounded(task)));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void runBounded(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            queued.decrementAndGet();
+            failed.increment();
+            Thread.currentThread().interrupt();
+            // Dropping the task would leave the future its caller waits on incomplete forever, and
+            // cancelling it does not help: the parallel workflow submits CompletableFuture tasks,
+            // whose cancel() leaves the dependent future the workflow joins on untouched. Run it
+            // interrupted and unbounded instead: its first blocking call fails, and the task itself
+            // completes that future with the failure
+            task.run();
+            return;
+        }
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        try {
+            task.run();
+            completed.increment();
+        } catch (RuntimeException | Error e) {
+            failed.increment();
+            throw e;
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(maxConcurrency, active.get(), queued.get(), completed.sum(), failed.sum());
+    }
+
+    /**
+     * Stops accepting subtasks and waits for running ones. Safe to call more than once.
+     */
+    public void shutdown() {
+        if (threads.isShutdown()) {
+            return;
+        }
+        log.info("Shutting down parallel agent executor ({} active, {} queued)...", active.get(), queued.get());
+        threads.shutdown();
+        try {
+            if (!threads.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Parallel agent executor did not terminate gracefully, forcing shutdown...");
+                threads.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            threads.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (instance == this) {
+            instance = null;
+        }
+    }
+
+    public record Stats(int maxConcurrency, int active, int queued, long completed, long failed) {}
+}
@@ -0,0 +1,154 @@
+package com.matrixagents.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.matrixagents.config.BulkheadProperties;
+
+/**
+ * Per-pattern admission control in front of PatternExecutionService.
+ *
+ * Each pattern gets its own bulkhead: a fixed number of executions may run at once and a
+ * bounded number may wait for a slot. Anything beyond that is rejected straight away, so a
+ * burst of expensive p2p or loop runs cannot starve the cheap patterns or the model quota.
+ */
+@Component
+public class PatternBulkheads {
+
+    private final BulkheadProperties properties;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public PatternBulkheads(BulkheadProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Admits an execution of the pattern or throws {@link BulkheadFullException} when the
+     * bulkhead and its wait queue are full. The returned ticket must be awaited on the worker
+     * thread and closed when the execution finishes.
+     */
+    public Ticket admit(String patternId) {
+        return bulkheads.computeIfAbsent(patternId, id -> new Bulkhead(id, properties.limitsFor(id))).admit();
+    }
+
+    public Map<String, Stats> stats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        bulkheads.forEach((patternId, bulkhead) -> stats.put(patternId, bulkhead.stats()));
+        return stats;
+    }
+
+    private long retryAfterSeconds() {
+        return Math.max(1, properties.retryAfter().toSeconds());
+    }
+
+    private final class Bulkhead {
+        private final String patternId;
+        private final int maxConcurrent;
+        private final int maxQueued;
+        private final Duration maxWait;
+        private final Semaphore permits;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+
+        Bulkhead(String patternId, BulkheadProperties.Limits limits) {
+            this.patternId = patternId;
+            this.maxConcurrent = limits.maxConcurrent();
+            this.maxQueued = limits.maxQueued();
+            this.maxWait = limits.maxWait();
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        Ticket admit() {
+            if (permits.tryAcquire()) {
+                inFlight.incrementAndGet();
+                return new Ticket(this, true);
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                throw reject(patternId + " is at capacity (" + maxConcurrent + " running, "
+                        + maxQueued + " queued)");
+            }
+            return new Ticket(this, false);
+        }
+
+        void awaitSlot() {
+            try {
+                if (!permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw reject(patternId + " did not get an execution slot within " + maxWait.toSeconds() + "s");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(patternId + " was interrupted while waiting for an execution slot");
+            } finally {
+                queued.decrementAndGet();
+            }
+            inFlight.incrementAndGet();
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+            completed.increment();
+            permits.release();
+        }
+
+        private BulkheadFullException reject(String message) {
+            rejected.increment();
+            return new BulkheadFullException(patternId, message, retryAfterSeconds());
+        }
+
+        Stats stats() {
+            return new Stats(maxConcurrent, maxQueued, inFlight.get(), queued.get(), rejected.sum(), completed.sum());
+        }
+    }
+
+    /**
+     * Admission ticket for one execution.
+     */
+    public static final class Ticket implements AutoCloseable {
+        private final Bulkhead bulkhead;
+        private boolean queued;
+        private boolean acquired;
+
+        private Ticket(Bulkhead bulkhead, boolean acquired) {
+            this.bulkhead = bulkhead;
+            this.acquired = acquired;
+            this.queued = !acquired;
+        }
+
+        /**
+         * Blocks until the execution holds a slot; throws {@link BulkheadFullException} on timeout.
+         */
+        public void await() {
+            if (queued) {
+                queued = false;
+                bulkhead.awaitSlot();
+                acquired = true;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (queued) {
+                // Never awaited, e.g. the execution was not scheduled
+                queued = false;
+                bulkhead.queued.decrementAndGet();
+            }
+            if (acquired) {
+                acquired = false;
+                bulkhead.release();
+            }
+        }
+    }
+
+    public record Stats(int maxConcurrent, int maxQueued, int inFlight, int queued, long rejected, long completed) {}
+}
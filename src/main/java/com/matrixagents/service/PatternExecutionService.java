@@ -1,89 +1,96 @@
 package com.matrixagents.service;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PreDestroy;
 
-import com.matrixagents.agents.ConditionalAgents.ExpertChatbot;
-import com.matrixagents.agents.GOAPAgents.HoroscopeGenerator;
-import com.matrixagents.agents.GOAPAgents.SignExtractor;
-import com.matrixagents.agents.GOAPAgents.StoryFinder;
-import com.matrixagents.agents.GOAPAgents.WriterAgent;
-import com.matrixagents.agents.HumanInLoopAgents.HoroscopeAgent;
-import com.matrixagents.agents.HumanInLoopAgents.ZodiacExtractor;
-import com.matrixagents.agents.LoopAgents.StyleScorer;
-import com.matrixagents.agents.P2PAgents.CriticAgent;
-import com.matrixagents.agents.P2PAgents.HypothesisAgent;
-import com.matrixagents.agents.P2PAgents.LiteratureAgent;
-import com.matrixagents.agents.P2PAgents.ScorerAgent;
-import com.matrixagents.agents.P2PAgents.ValidationAgent;
 import com.matrixagents.agents.ParallelAgents.EveningPlan;
-import com.matrixagents.agents.ParallelAgents.EveningPlannerAgent;
-import com.matrixagents.agents.SequenceAgents;
-import com.matrixagents.agents.SequenceAgents.AudienceEditor;
 import com.matrixagents.agents.SupervisorAgents.BankTool;
-import com.matrixagents.agents.SupervisorAgents.CreditAgent;
-import com.matrixagents.agents.SupervisorAgents.ExchangeAgent;
-import com.matrixagents.agents.SupervisorAgents.ExchangeTool;
-import com.matrixagents.agents.SupervisorAgents.WithdrawAgent;
+import com.matrixagents.agents.SupervisorAgents.BoundBankTool;
+import com.matrixagents.config.LlmProperties;
+import com.matrixagents.history.ExecutionHistory;
 import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
 import com.matrixagents.model.ExecutionResult;
+import com.matrixagents.model.PatternInfo;
 
-import dev.langchain4j.agentic.AgenticServices;
-import dev.langchain4j.agentic.UntypedAgent;
 import dev.langchain4j.agentic.scope.ResultWithAgenticScope;
-import dev.langchain4j.agentic.supervisor.SupervisorAgent;
-import dev.langchain4j.agentic.supervisor.SupervisorResponseStrategy;
-import dev.langchain4j.agentic.patterns.goap.GoalOrientedPlanner;
-import dev.langchain4j.agentic.patterns.p2p.P2PPlanner;
-import dev.langchain4j.model.chat.ChatModel;
-import dev.langchain4j.service.AiServices;
 
 /**
  * Service that executes the 8 LangChain4j agentic patterns.
  * Uses the langchain4j-agentic module with proper AgenticServices.
  * Each pattern demonstrates a different workflow orchestration strategy.
+ * The agent graphs themselves are built once by {@link PatternGraphRegistry}.
  */
 @Service
 public class PatternExecutionService {
 
     private static final Logger log = LoggerFactory.getLogger(PatternExecutionService.class);
 
-    private final ChatModel chatModel;
-    private final ChatModel plannerModel;
+    private static final Set<String> PATTERN_IDS = PatternInfo.all().stream()
+            .map(PatternInfo::id)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final PatternGraphRegistry graphs;
     private final EventPublisher eventPublisher;
     private final HumanInputService humanInputService;
+    private final ParallelAgentExecutor parallelAgentExecutor;
+    private final PatternBulkheads bulkheads;
+    private final ExecutionHistory history;
+    private final ExecutionMetrics metrics;
+    private final ExecutionTracing tracing;
+    private final LlmProperties.Budget budget;
+    private final ExecutionCoalescer coalescer;
+    private final ExpertSpeculator speculator;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
     private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
     public PatternExecutionService(
-            ChatModel chatModel,
-            @Qualifier("plannerModel") ChatModel plannerModel,
+            PatternGraphRegistry graphs,
             EventPublisher eventPublisher,
-            HumanInputService humanInputService) {
-        this.chatModel = chatModel;
-        this.plannerModel = plannerModel;
+            HumanInputService humanInputService,
+            ParallelAgentExecutor parallelAgentExecutor,
+            PatternBulkheads bulkheads,
+            ExecutionHistory history,
+            ExecutionMetrics metrics,
+            ExecutionTracing tracing,
+            LlmProperties llmProperties,
+            ExpertSpeculator speculator,
+            @Value("${matrix.executions.coalescing.enabled:false}") boolean coalescing) {
+        this.graphs = graphs;
         this.eventPublisher = eventPublisher;
         this.humanInputService = humanInputService;
+        this.parallelAgentExecutor = parallelAgentExecutor;
+        this.bulkheads = bulkheads;
+        this.history = history;
+        this.metrics = metrics;
+        this.tracing = tracing;
+        this.budget = llmProperties.budget();
+        this.coalescer = new ExecutionCoalescer(coalescing, eventPublisher, history);
+        this.speculator = speculator;
     }
 
     /**
-     * Cleanup executor service on application shutdown.
+     * Cleanup executor services on application shutdown.
+     * Executions drain first, then the parallel sub-agent executor they depend on.
      */
     @PreDestroy
     public void shutdown() {
@@ -102,22 +109,118 @@ public class PatternExecutionService {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        parallelAgentExecutor.shutdown();
     }
 
     public CompletableFuture<ExecutionResult> executePattern(String patternId, String prompt) {
-        return CompletableFuture.supplyAsync(() -> {
-            return switch (patternId) {
-                case "sequence" -> executeSequence(prompt);
-                case "parallel" -> executeParallel(prompt);
-                case "loop" -> executeLoop(prompt);
-                case "conditional" -> executeConditional(prompt);
-                case "supervisor" -> executeSupervisor(prompt);
-                case "human-in-loop" -> executeHumanInLoop(prompt);
-                case "goap" -> executeGOAP(prompt);
-                case "p2p" -> executeP2P(prompt);
-                default -> throw new IllegalArgumentException("Unknown pattern: " + patternId);
-            };
-        }, executor);
+        return executePattern(patternId, prompt, Map.of());
+    }
+
+    /**
+     * Runs the pattern asynchronously behind its bulkhead.
+     * The parameters come from ExecutionRequest and are visible to the whole execution via {@link ExecutionContext}.
+     * The future fails with {@link BulkheadFullException} when the pattern is at capacity.
+     */
+    public CompletableFuture<ExecutionResult> executePattern(String patternId, String prompt, Map<String, Object> parameters) {
+        return executePattern(patternId, prompt, parameters, null);
+    }
+
+    /**
+     * Like {@link #executePattern(String, String, Map)}, additionally handing every event the
+     * execution publishes, including streamed tokens, to the subscriber as it happens.
+     */
+    public CompletableFuture<ExecutionResult> executePattern(String patternId, String prompt, Map<String, Object> parameters,
+                                                             Consumer<EventFrame> subscriber) {
+        return execute(new ExecutionContext(UUID.randomUUID().toString(), patternId, parameters, subscriber), prompt);
+    }
+
+    /**
+     * Runs the execution described by the context, for callers that need to know the
+     * executionId before the first event is published. Finished executions are handed to
+     * the {@link ExecutionHistory}. With matrix.executions.coalescing enabled, a request
+     * identical to one in flight shares its events and result instead (see {@link ExecutionCoalescer}).
+     * The future fails with {@link DuplicateExecutionException} while another execution with the
+     * same executionId runs, since both would publish to the same topic and replay buffer.
+     */
+    public CompletableFuture<ExecutionResult> execute(ExecutionContext context, String prompt) {
+        String executionId = context.executionId();
+        if (!running.add(executionId)) {
+            return CompletableFuture.failedFuture(new DuplicateExecutionException(executionId));
+        }
+        CompletableFuture<ExecutionResult> execution;
+        try {
+            execution = coalescer.execute(context, prompt, () -> start(context, prompt));
+        } catch (RuntimeException e) {
+            running.remove(executionId);
+            throw e;
+        }
+        // Released before callers see the result, so they can reuse the id right away
+        return execution.whenComplete((result, e) -> running.remove(executionId));
+    }
+
+    public ExecutionCoalescer.Stats coalescingStats() {
+        return coalescer.stats();
+    }
+
+    private CompletableFuture<ExecutionResult> start(ExecutionContext context, String prompt) {
+        String patternId = context.patternId();
+        if (!PATTERN_IDS.contains(patternId)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown pattern: " + patternId));
+        }
+        PatternBulkheads.Ticket ticket;
+        try {
+            ticket = bulkheads.admit(patternId);
+        } catch (BulkheadFullException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (ticket) {
+                    ticket.await();
+                    context.tokens().limit(tokenBudget(context));
+                    ExecutionResult result = context.run(() -> tracing.traceExecution(context, () ->
+                            metrics.timeExecution(patternId, () -> dispatch(context.executionId(), patternId, prompt)
+                                    .withTokens(context.tokens().report()))));
+                    history.record(result);
+                    return result;
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            ticket.close();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * The request's parameters.tokenBudget if set, else the budget configured for the pattern.
+     */
+    private long tokenBudget(ExecutionContext context) {
+        Object requested = context.parameters().get("tokenBudget");
+        if (requested instanceof Number number) {
+            return number.longValue();
+        }
+        if (requested != null) {
+            try {
+                return Long.parseLong(requested.toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring tokenBudget parameter '{}'", requested);
+            }
+        }
+        return budget.maxTokensFor(context.patternId());
+    }
+
+    private ExecutionResult dispatch(String executionId, String patternId, String prompt) {
+        return switch (patternId) {
+            case "sequence" -> executeSequence(executionId, prompt);
+            case "parallel" -> executeParallel(executionId, prompt);
+            case "loop" -> executeLoop(executionId, prompt);
+            case "conditional" -> executeConditional(executionId, prompt);
+            case "supervisor" -> executeSupervisor(executionId, prompt);
+            case "human-in-loop" -> executeHumanInLoop(executionId, prompt);
+            case "goap" -> executeGOAP(executionId, prompt);
+            case "p2p" -> executeP2P(executionId, prompt);
+            default -> throw new IllegalArgumentException("Unknown pattern: " + patternId);
+        };
     }
 
     /**
@@ -125,13 +228,15 @@ public class PatternExecutionService {
      * Uses AgenticServices.sequenceBuilder() with AgentListener for proper 
      * chaining where each agent's output feeds into the next via AgenticScope.
      */
-    private ExecutionResult executeSequence(String prompt) {
-        String executionId = UUID.randomUUID().toString();
+    @SuppressWarnings("try")
+    private ExecutionResult executeSequence(String executionId, String prompt) {
         Instant startTime = Instant.now();
-        List<AgentEvent> events = Collections.synchronizedList(new ArrayList<>());
+        EventLog events = ExecutionContext.current().events();
+        // Created up front so the output so far is at hand if the token budget runs out
+        WebSocketAgentListener listener = new WebSocketAgentListener(eventPublisher, "sequence");
 
         try {
-            events.add(publishEvent(AgentEvent.started("sequence", "Starting sequential workflow using AgenticServices.sequenceBuilder(): Writer → Audience Editor → Style Editor")));
+            publishEvent(AgentEvent.started("sequence", "Starting sequential workflow using AgenticServices.sequenceBuilder(): Writer → Audience Editor → Style Editor"));
 
             // Parse input: "topic" or "topic|audience|style"
             String topic = prompt;
@@ -145,49 +250,24 @@ public class PatternExecutionService {
                 if (parts.length > 2) style = parts[2].trim();
             }
 
-            // Create listener for real-time WebSocket events
-            WebSocketAgentListener listener = new WebSocketAgentListener(eventPublisher, "sequence", events);
-
-            // Build agents using AgenticServices.agentBuilder() - proper LangChain4j way
-            SequenceAgents.CreativeWriter writer = AgenticServices.agentBuilder(SequenceAgents.CreativeWriter.class)
-                    .chatModel(chatModel)
-                    .outputKey("story")
-                    .build();
-
-            AudienceEditor audienceEditor = AgenticServices.agentBuilder(AudienceEditor.class)
-                    .chatModel(chatModel)
-                    .outputKey("story")
-                    .build();
-
-            SequenceAgents.StyleEditor styleEditor = AgenticServices.agentBuilder(SequenceAgents.StyleEditor.class)
-                    .chatModel(chatModel)
-                    .outputKey("story")
-                    .build();
-
-            // Build sequence using AgenticServices.sequenceBuilder() with listener
-            UntypedAgent novelCreator = AgenticServices.sequenceBuilder()
-                    .name("novelCreator")
-                    .subAgents(writer, audienceEditor, styleEditor)
-                    .listener(listener)
-                    .outputKey("story")
-                    .build();
-
-            // Execute the sequence - AgenticScope handles state passing automatically
-            ResultWithAgenticScope<String> result = novelCreator.invokeWithAgenticScope(
-                    Map.of("topic", topic, "audience", audience, "style", style));
+            // Execute the cached sequence - AgenticScope handles state passing automatically
+            ResultWithAgenticScope<String> result;
+            try (var binding = graphs.listenerRouter().bind(executionId, listener)) {
+                result = graphs.novelCreator().invokeWithAgenticScope(ExecutionListenerRouter.inputs(
+                        executionId, Map.of("topic", topic, "audience", audience, "style", style)));
+            }
 
             String finalStory = String.valueOf(result.result());
-            Map<String, Object> scope = new ConcurrentHashMap<>(listener.getScopeSnapshot());
+            ScopeTracker scope = listener.scope();
             scope.put("topic", topic);
             scope.put("audience", audience);
             scope.put("style", style);
 
-            events.add(publishEvent(AgentEvent.completed("sequence", finalStory)));
-            return ExecutionResult.success(executionId, "sequence", finalStory, events, scope, startTime);
+            publishEvent(AgentEvent.completed("sequence", finalStory));
+            return ExecutionResult.success(executionId, "sequence", finalStory, events.snapshot(), scope.snapshot(), startTime);
 
         } catch (Exception e) {
-            events.add(publishEvent(AgentEvent.error("sequence", null, e.getMessage())));
-            return ExecutionResult.error(executionId, "sequence", e.getMessage(), events, startTime);
+            return failed(executionId, "sequence", e, events, startTime, listener.scope(), "story");
         }
     }
 
@@ -195,31 +275,26 @@ public class PatternExecutionService {
      * PARALLEL PATTERN: FoodExpert + MovieExpert run concurrently
      * Uses AgenticServices.parallelBuilder() for concurrent agent execution with result combination.
      */
-    private ExecutionResult executeParallel(String prompt) {
-        String executionId = UUID.randomUUID().toString();
+    private ExecutionResult executeParallel(String executionId, String prompt) {
         Instant startTime = Instant.now();
-        List<AgentEvent> events = Collections.synchronizedList(new ArrayList<>());
+        EventLog events = ExecutionContext.current().events();
         Map<String, Object> scope = new ConcurrentHashMap<>();
 
         try {
-            events.add(publishEvent(AgentEvent.started("parallel", "Starting parallel workflow using AgenticServices: Food + Movie experts running concurrently")));
+            publishEvent(AgentEvent.started("parallel", "Starting parallel workflow using AgenticServices: Food + Movie experts running concurrently"));
 
             String mood = prompt.isEmpty() ? "romantic" : prompt;
             scope.put("mood", mood);
-            events.add(publishEvent(AgentEvent.stateUpdated("parallel", "mood", mood)));
-
-            // Build parallel agents using createAgenticSystem for declarative API
-            // EveningPlannerAgent uses @ParallelAgent annotation with subAgents declared
-            EveningPlannerAgent planner = AgenticServices.createAgenticSystem(EveningPlannerAgent.class, chatModel);
+            publishEvent(AgentEvent.stateUpdated("parallel", "mood", mood));
 
             // Execute parallel agents - both FoodExpert and MovieExpert run concurrently
-            events.add(publishEvent(AgentEvent.agentInvoked("parallel", "foodExpert", "Suggesting meals for " + mood + " mood...")));
-            events.add(publishEvent(AgentEvent.agentInvoked("parallel", "movieExpert", "Recommending movies for " + mood + " mood...")));
+            publishEvent(AgentEvent.agentInvoked("parallel", "foodExpert", "Suggesting meals for " + mood + " mood..."));
+            publishEvent(AgentEvent.agentInvoked("parallel", "movieExpert", "Recommending movies for " + mood + " mood..."));
 
-            List<EveningPlan> plans = planner.plan(mood);
+            List<EveningPlan> plans = graphs.eveningPlanner().plan(mood);
             
-            events.add(publishEvent(AgentEvent.agentCompleted("parallel", "foodExpert", "Completed meal suggestions")));
-            events.add(publishEvent(AgentEvent.agentCompleted("parallel", "movieExpert", "Completed movie recommendations")));
+            publishEvent(AgentEvent.agentCompleted("parallel", "foodExpert", "Completed meal suggestions"));
+            publishEvent(AgentEvent.agentCompleted("parallel", "movieExpert", "Completed movie recommendations"));
 
             // Format results
             StringBuilder result = new StringBuilder("## Evening Plans for " + mood + " mood:\n\n");
@@ -232,14 +307,13 @@ public class PatternExecutionService {
             
             String finalResult = result.toString();
             scope.put("plans", plans);
-            events.add(publishEvent(AgentEvent.agentCompleted("parallel", "planCombiner", truncate(finalResult))));
+            publishEvent(AgentEvent.agentCompleted("parallel", "planCombiner", truncate(finalResult)));
 
-            events.add(publishEvent(AgentEvent.completed("parallel", finalResult)));
-            return ExecutionResult.success(executionId, "parallel", finalResult, events, scope, startTime);
+            publishEvent(AgentEvent.completed("parallel", finalResult));
+            return ExecutionResult.success(executionId, "parallel", finalResult, events.snapshot(), scope, startTime);
 
         } catch (Exception e) {
-            events.add(publishEvent(AgentEvent.error("parallel", null, e.getMessage())));
-            return ExecutionResult.error(executionId, "parallel", e.getMessage(), events, startTime);
+            return failed(executionId, "parallel", e, events, startTime, null);
         }
     }
 
@@ -248,13 +322,15 @@ public class PatternExecutionService {
      * Uses AgenticServices.loopBuilder() with AgentListener for iterative 
      * refinement with exit conditions based on AgenticScope state.
      */
-    private ExecutionResult executeLoop(String prompt) {
-        String executionId = UUID.randomUUID().toString();
+    @SuppressWarnings("try")
+    private ExecutionResult executeLoop(String executionId, String prompt) {
         Instant startTime = Instant.now();
-        List<AgentEvent> events = Collections.synchronizedList(new ArrayList<>());
+        EventLog events = ExecutionContext.current().events();
+        // Created up front so the output so far is at hand if the token budget runs out
+        WebSocketAgentListener listener = new WebSocketAgentListener(eventPublisher, "loop");
 
         try {
-            events.add(publishEvent(AgentEvent.started("loop", "Starting loop workflow using AgenticServices.loopBuilder(): Generate → Score → Refine (until score ≥ 0.8)")));
+            publishEvent(AgentEvent.started("loop", "Starting loop workflow using AgenticServices.loopBuilder(): Generate → Score → Refine (until score ≥ 0.8)"));
 
             // Parse input
             String topic = prompt;
@@ -265,51 +341,17 @@ public class PatternExecutionService {
                 if (parts.length > 1) style = parts[1].trim();
             }
 
-            // Create listener for real-time WebSocket events
-            WebSocketAgentListener listener = new WebSocketAgentListener(eventPublisher, "loop", events);
-
-            // Build agents using AgenticServices.agentBuilder() - proper LangChain4j way
-            com.matrixagents.agents.LoopAgents.CreativeWriter generator = AgenticServices
-                    .agentBuilder(com.matrixagents.agents.LoopAgents.CreativeWriter.class)
-                    .chatModel(chatModel)
-                    .outputKey("story")
-                    .build();
-
-            StyleScorer scorer = AgenticServices.agentBuilder(StyleScorer.class)
-                    .chatModel(chatModel)
-                    .outputKey("score")
-                    .build();
-
-            com.matrixagents.agents.LoopAgents.StyleEditor refiner = AgenticServices
-                    .agentBuilder(com.matrixagents.agents.LoopAgents.StyleEditor.class)
-                    .chatModel(chatModel)
-                    .outputKey("story")
-                    .build();
-
-            // Build loop agent for score->refine cycle
-            UntypedAgent styleReviewLoop = AgenticServices.loopBuilder()
-                    .name("styleReviewLoop")
-                    .subAgents(scorer, refiner)
-                    .maxIterations(5)
-                    .exitCondition(scope -> scope.readState("score", 0.0) >= 0.8)
-                    .build();
-
-            // Build sequence: generate first, then loop score->refine
-            UntypedAgent styledWriter = AgenticServices.sequenceBuilder()
-                    .name("styledWriter")
-                    .subAgents(generator, styleReviewLoop)
-                    .listener(listener)
-                    .outputKey("story")
-                    .build();
-
-            // Execute the workflow - AgenticScope handles all state automatically
-            ResultWithAgenticScope<String> result = styledWriter.invokeWithAgenticScope(
-                    Map.of("topic", topic, "style", style));
+            // Execute the cached generate -> loop(score -> refine) workflow
+            ResultWithAgenticScope<String> result;
+            try (var binding = graphs.listenerRouter().bind(executionId, listener)) {
+                result = graphs.styledWriter().invokeWithAgenticScope(ExecutionListenerRouter.inputs(
+                        executionId, Map.of("topic", topic, "style", style)));
+            }
 
             String finalStory = String.valueOf(result.result());
             
             // Get scope state from listener and AgenticScope
-            Map<String, Object> scope = new ConcurrentHashMap<>(listener.getScopeSnapshot());
+            ScopeTracker scope = listener.scope();
             scope.put("topic", topic);
             scope.put("style", style);
             
@@ -319,12 +361,11 @@ public class PatternExecutionService {
             scope.put("finalStory", finalStory);
 
             String output = String.format("**Final Story** (Score: %.2f)\n\n%s", finalScore, finalStory);
-            events.add(publishEvent(AgentEvent.completed("loop", output)));
-            return ExecutionResult.success(executionId, "loop", output, events, scope, startTime);
+            publishEvent(AgentEvent.completed("loop", output));
+            return ExecutionResult.success(executionId, "loop", output, events.snapshot(), scope.snapshot(), startTime);
 
         } catch (Exception e) {
-            events.add(publishEvent(AgentEvent.error("loop", null, e.getMessage())));
-            return ExecutionResult.error(executionId, "loop", e.getMessage(), events, startTime);
+            return failed(executionId, "loop", e, events, startTime, listener.scope(), "story");
         }
     }
 
@@ -332,39 +373,62 @@ public class PatternExecutionService {
      * CONDITIONAL PATTERN: Router -> Expert activation based on category
      * Uses fully declarative approach with @SequenceAgent composing @Agent (CategoryRouter) 
      * and @ConditionalAgent (ExpertRouterAgent) with @ActivationCondition methods.
+     * In speculative mode the likely expert runs alongside the router instead, see {@link ExpertSpeculator}.
      */
-    private ExecutionResult executeConditional(String prompt) {
-        String executionId = UUID.randomUUID().toString();
+    private ExecutionResult executeConditional(String executionId, String prompt) {
+        if (speculator.isEnabled()) {
+            return executeConditionalSpeculatively(executionId, prompt);
+        }
         Instant startTime = Instant.now();
-        List<AgentEvent> events = Collections.synchronizedList(new ArrayList<>());
+        EventLog events = ExecutionContext.current().events();
         Map<String, Object> scope = new ConcurrentHashMap<>();
 
         try {
-            events.add(publishEvent(AgentEvent.started("conditional", "Starting conditional workflow: CategoryRouter → ExpertRouterAgent (fully declarative)")));
+            publishEvent(AgentEvent.started("conditional", "Starting conditional workflow: CategoryRouter → ExpertRouterAgent (fully declarative)"));
 
             scope.put("request", prompt);
-            events.add(publishEvent(AgentEvent.stateUpdated("conditional", "request", truncate(prompt))));
-
-            // Build the full declarative expert chatbot using createAgenticSystem
-            // ExpertChatbot is defined with @SequenceAgent combining CategoryRouter and ExpertRouterAgent
-            // CategoryRouter has @Agent outputKey="category", ExpertRouterAgent has @ConditionalAgent with @ActivationCondition
-            ExpertChatbot expertChatbot = AgenticServices.createAgenticSystem(ExpertChatbot.class, chatModel);
+            publishEvent(AgentEvent.stateUpdated("conditional", "request", truncate(prompt)));
 
-            events.add(publishEvent(AgentEvent.agentInvoked("conditional", "categoryRouter", "Classifying request...")));
-            events.add(publishEvent(AgentEvent.agentInvoked("conditional", "expertRouter", "Routing to appropriate expert...")));
+            publishEvent(AgentEvent.agentInvoked("conditional", "categoryRouter", "Classifying request..."));
+            publishEvent(AgentEvent.agentInvoked("conditional", "expertRouter", "Routing to appropriate expert..."));
 
             // Execute the full sequence
-            String response = expertChatbot.ask(prompt);
+            // ExpertChatbot is defined with @SequenceAgent combining CategoryRouter and ExpertRouterAgent
+            String response = graphs.expertChatbot().ask(prompt);
 
             scope.put("response", response);
-            events.add(publishEvent(AgentEvent.agentCompleted("conditional", "expertChatbot", truncate(response))));
+            publishEvent(AgentEvent.agentCompleted("conditional", "expertChatbot", truncate(response)));
 
-            events.add(publishEvent(AgentEvent.completed("conditional", response)));
-            return ExecutionResult.success(executionId, "conditional", response, events, scope, startTime);
+            publishEvent(AgentEvent.completed("conditional", response));
+            return ExecutionResult.success(executionId, "conditional", response, events.snapshot(), scope, startTime);
 
         } catch (Exception e) {
-            events.add(publishEvent(AgentEvent.error("conditional", null, e.getMessage())));
-            return ExecutionResult.error(executionId, "conditional", e.getMessage(), events, startTime);
+            return failed(executionId, "conditional", e, events, startTime, null);
+        }
+    }
+
+    private ExecutionResult executeConditionalSpeculatively(String executionId, String prompt) {
+        Instant startTime = Instant.now();
+        EventLog events = ExecutionContext.current().events();
+        Map<String, Object> scope = new ConcurrentHashMap<>();
+
+        try {
+            publishEvent(AgentEvent.started("conditional", "Starting conditional workflow: CategoryRouter ∥ most likely expert (speculative)"));
+
+            scope.put("request", prompt);
+            publishEvent(AgentEvent.stateUpdated("conditional", "request", truncate(prompt)));
+
+            ExpertSpeculator.Answer answer = speculator.ask(prompt, this::publishEvent);
+
+            scope.put("category", String.valueOf(answer.category()));
+            scope.put("speculatedCategory", String.valueOf(answer.predicted()));
+            scope.put("response", answer.response());
+
+            publishEvent(AgentEvent.completed("conditional", answer.response()));
+            return ExecutionResult.success(executionId, "conditional", answer.response(), events.snapshot(), scope, startTime);
+
+        } catch (Exception e) {
+            return failed(executionId, "conditional", e, events, startTime, null);
         }
     }
 
@@ -372,63 +436,43 @@ public class PatternExecutionService {
      * SUPERVISOR PATTERN: Supervisor coordinates sub-agents with tools
      * Uses AgenticServices.supervisorBuilder() for autonomous agent orchestration.
      */
-    private ExecutionResult executeSupervisor(String prompt) {
-        String executionId = UUID.randomUUID().toString();
+    private ExecutionResult executeSupervisor(String executionId, String prompt) {
         Instant startTime = Instant.now();
-        List<AgentEvent> events = Collections.synchronizedList(new ArrayList<>());
+        EventLog events = ExecutionContext.current().events();
         Map<String, Object> scope = new ConcurrentHashMap<>();
 
         try {
-            events.add(publishEvent(AgentEvent.started("supervisor", "Starting supervisor workflow using AgenticServices: Orchestrating banking agents with tools")));
+            publishEvent(AgentEvent.started("supervisor", "Starting supervisor workflow using AgenticServices: Orchestrating banking agents with tools"));
 
-            // Create tools
+            // Create per-execution bank accounts
             BankTool bankTool = new BankTool();
-            ExchangeTool exchangeTool = new ExchangeTool();
 
             scope.put("request", prompt);
             scope.put("initialBalances", bankTool.getAllBalances());
-            events.add(publishEvent(AgentEvent.stateUpdated("supervisor", "request", truncate(prompt))));
-            events.add(publishEvent(AgentEvent.stateUpdated("supervisor", "balances", bankTool.getAllBalances().toString())));
-
-            // Build sub-agents using AgenticServices.agentBuilder() with tools
-            WithdrawAgent withdrawAgent = AgenticServices.agentBuilder(WithdrawAgent.class)
-                    .chatModel(chatModel)
-                    .tools(bankTool)
-                    .build();
-
-            CreditAgent creditAgent = AgenticServices.agentBuilder(CreditAgent.class)
-                    .chatModel(chatModel)
-                    .tools(bankTool)
-                    .build();
-
-            ExchangeAgent exchangeAgent = AgenticServices.agentBuilder(ExchangeAgent.class)
-                    .chatModel(chatModel)
-                    .tools(exchangeTool)
-                    .build();
-
-            // Build supervisor using AgenticServices.supervisorBuilder() with sub-agents
-            SupervisorAgent supervisor = AgenticServices.supervisorBuilder()
-                    .chatModel(plannerModel)
-                    .subAgents(withdrawAgent, creditAgent, exchangeAgent)
-                    .responseStrategy(SupervisorResponseStrategy.SUMMARY)
-                    .build();
-
-            events.add(publishEvent(AgentEvent.agentInvoked("supervisor", "bankSupervisor", "Analyzing and coordinating request...")));
+            publishEvent(AgentEvent.stateUpdated("supervisor", "request", truncate(prompt)));
+            publishEvent(AgentEvent.stateUpdated("supervisor", "balances", bankTool.getAllBalances().toString()));
+
+            publishEvent(AgentEvent.agentInvoked("supervisor", "bankSupervisor", "Analyzing and coordinating request..."));
             
-            // Supervisor autonomously plans and executes
-            String response = supervisor.invoke(prompt);
+            // Supervisor autonomously plans and executes, with this execution's accounts behind the bank tool
+            String response;
+            ExecutionContext.enterAgent(PatternGraphRegistry.BANK_SUPERVISOR);
+            try {
+                response = BoundBankTool.callWith(bankTool, () -> graphs.bankSupervisor().invoke(prompt));
+            } finally {
+                ExecutionContext.exitAgent();
+            }
             
             scope.put("response", response);
             scope.put("finalBalances", bankTool.getAllBalances());
-            events.add(publishEvent(AgentEvent.agentCompleted("supervisor", "bankSupervisor", truncate(response))));
-            events.add(publishEvent(AgentEvent.stateUpdated("supervisor", "finalBalances", bankTool.getAllBalances().toString())));
+            publishEvent(AgentEvent.agentCompleted("supervisor", "bankSupervisor", truncate(response)));
+            publishEvent(AgentEvent.stateUpdated("supervisor", "finalBalances", bankTool.getAllBalances().toString()));
 
-            events.add(publishEvent(AgentEvent.completed("supervisor", response)));
-            return ExecutionResult.success(executionId, "supervisor", response, events, scope, startTime);
+            publishEvent(AgentEvent.completed("supervisor", response));
+            return ExecutionResult.success(executionId, "supervisor", response, events.snapshot(), scope, startTime);
 
         } catch (Exception e) {
-            events.add(publishEvent(AgentEvent.error("supervisor", null, e.getMessage())));
-            return ExecutionResult.error(executionId, "supervisor", e.getMessage(), events, startTime);
+            return failed(executionId, "supervisor", e, events, startTime, null);
         }
     }
 
@@ -437,65 +481,54 @@ public class PatternExecutionService {
      * Uses AgenticServices.agentBuilder() for agents with human input integration.
      * Note: Human-in-the-loop requires manual orchestration for input waiting.
      */
-    private ExecutionResult executeHumanInLoop(String prompt) {
-        String executionId = UUID.randomUUID().toString();
+    private ExecutionResult executeHumanInLoop(String executionId, String prompt) {
         Instant startTime = Instant.now();
-        List<AgentEvent> events = Collections.synchronizedList(new ArrayList<>());
+        EventLog events = ExecutionContext.current().events();
         Map<String, Object> scope = new ConcurrentHashMap<>();
 
         try {
-            events.add(publishEvent(AgentEvent.started("human-in-loop", "Starting human-in-the-loop workflow using AgenticServices")));
+            publishEvent(AgentEvent.started("human-in-loop", "Starting human-in-the-loop workflow using AgenticServices"));
 
-            // Build agents using AgenticServices.agentBuilder() - proper LangChain4j way
-            ZodiacExtractor extractor = AgenticServices.agentBuilder(ZodiacExtractor.class)
-                    .chatModel(chatModel)
-                    .build();
-            
-            events.add(publishEvent(AgentEvent.agentInvoked("human-in-loop", "zodiacExtractor", "Checking for zodiac sign...")));
-            String extractedSign = extractor.extract(prompt).trim();
-            events.add(publishEvent(AgentEvent.agentCompleted("human-in-loop", "zodiacExtractor", "Found: " + extractedSign)));
+            publishEvent(AgentEvent.agentInvoked("human-in-loop", "zodiacExtractor", "Checking for zodiac sign..."));
+            String extractedSign = graphs.zodiacExtractor().extract(prompt).trim();
+            publishEvent(AgentEvent.agentCompleted("human-in-loop", "zodiacExtractor", "Found: " + extractedSign));
             
             String zodiacSign;
             if (extractedSign.equalsIgnoreCase("UNKNOWN") || extractedSign.isEmpty()) {
                 // Need human input
                 String requestId = UUID.randomUUID().toString();
                 scope.put("requestId", requestId);
-                events.add(publishEvent(AgentEvent.humanInputRequired("human-in-loop", 
-                        "What is your zodiac sign? (e.g., Aries, Taurus, Gemini...)", requestId)));
+                publishEvent(AgentEvent.humanInputRequired("human-in-loop", 
+                        "What is your zodiac sign? (e.g., Aries, Taurus, Gemini...)", requestId));
 
                 try {
                     CompletableFuture<String> inputFuture = humanInputService.requestInput(requestId, 
                             "Please provide your zodiac sign:");
                     zodiacSign = inputFuture.get(120, TimeUnit.SECONDS);
-                    events.add(publishEvent(AgentEvent.stateUpdated("human-in-loop", "humanInput", zodiacSign)));
+                    publishEvent(AgentEvent.stateUpdated("human-in-loop", "humanInput", zodiacSign));
                 } catch (TimeoutException e) {
                     // Default to Aries if timeout
                     zodiacSign = "Aries";
-                    events.add(publishEvent(AgentEvent.stateUpdated("human-in-loop", "timeout", "Using default: Aries")));
+                    publishEvent(AgentEvent.stateUpdated("human-in-loop", "timeout", "Using default: Aries"));
                 }
             } else {
                 zodiacSign = extractedSign;
             }
 
             scope.put("zodiacSign", zodiacSign);
-            events.add(publishEvent(AgentEvent.stateUpdated("human-in-loop", "zodiacSign", zodiacSign)));
+            publishEvent(AgentEvent.stateUpdated("human-in-loop", "zodiacSign", zodiacSign));
 
-            // Generate horoscope using AgenticServices.agentBuilder()
-            HoroscopeAgent horoscopeAgent = AgenticServices.agentBuilder(HoroscopeAgent.class)
-                    .chatModel(chatModel)
-                    .build();
-            
-            events.add(publishEvent(AgentEvent.agentInvoked("human-in-loop", "horoscopeAgent", "Generating horoscope for " + zodiacSign)));
-            String horoscope = horoscopeAgent.generateHoroscope(zodiacSign);
+            // Generate horoscope with the cached HoroscopeAgent
+            publishEvent(AgentEvent.agentInvoked("human-in-loop", "horoscopeAgent", "Generating horoscope for " + zodiacSign));
+            String horoscope = graphs.horoscopeAgent().generateHoroscope(zodiacSign);
             scope.put("horoscope", horoscope);
-            events.add(publishEvent(AgentEvent.agentCompleted("human-in-loop", "horoscopeAgent", truncate(horoscope))));
+            publishEvent(AgentEvent.agentCompleted("human-in-loop", "horoscopeAgent", truncate(horoscope)));
 
-            events.add(publishEvent(AgentEvent.completed("human-in-loop", horoscope)));
-            return ExecutionResult.success(executionId, "human-in-loop", horoscope, events, scope, startTime);
+            publishEvent(AgentEvent.completed("human-in-loop", horoscope));
+            return ExecutionResult.success(executionId, "human-in-loop", horoscope, events.snapshot(), scope, startTime);
 
         } catch (Exception e) {
-            events.add(publishEvent(AgentEvent.error("human-in-loop", null, e.getMessage())));
-            return ExecutionResult.error(executionId, "human-in-loop", e.getMessage(), events, startTime);
+            return failed(executionId, "human-in-loop", e, events, startTime, null);
         }
     }
 
@@ -505,73 +538,39 @@ public class PatternExecutionService {
      * input/output keys and calculates the shortest path from current state to the goal.
      * The planner then executes agents in the computed sequence automatically.
      */
-    private ExecutionResult executeGOAP(String prompt) {
-        String executionId = UUID.randomUUID().toString();
+    @SuppressWarnings("try")
+    private ExecutionResult executeGOAP(String executionId, String prompt) {
         Instant startTime = Instant.now();
-        List<AgentEvent> events = Collections.synchronizedList(new ArrayList<>());
-        Map<String, Object> scope = new ConcurrentHashMap<>();
+        EventLog events = ExecutionContext.current().events();
+        // Created up front so the output so far is at hand if the token budget runs out
+        WebSocketAgentListener listener = new WebSocketAgentListener(eventPublisher, "goap");
 
         try {
-            events.add(publishEvent(AgentEvent.started("goap", "Starting GOAP workflow using GoalOrientedPlanner: Automatic path planning to goal")));
-
-            // Create listener for real-time WebSocket events
-            WebSocketAgentListener listener = new WebSocketAgentListener(eventPublisher, "goap", events);
-
-            // Build agents using AgenticServices.agentBuilder() with proper output keys
-            // The GoalOrientedPlanner will analyze these to build the dependency graph:
-            // prompt -> sign -> horoscope, story -> writeup
-            SignExtractor signExtractor = AgenticServices.agentBuilder(SignExtractor.class)
-                    .chatModel(chatModel)
-                    .outputKey("sign")  // prompt -> sign
-                    .build();
-
-            HoroscopeGenerator horoscopeGenerator = AgenticServices.agentBuilder(HoroscopeGenerator.class)
-                    .chatModel(chatModel)
-                    .outputKey("horoscope")  // sign -> horoscope
-                    .build();
-
-            StoryFinder storyFinder = AgenticServices.agentBuilder(StoryFinder.class)
-                    .chatModel(chatModel)
-                    .outputKey("story")  // sign -> story
-                    .build();
-
-            WriterAgent writer = AgenticServices.agentBuilder(WriterAgent.class)
-                    .chatModel(chatModel)
-                    .outputKey("writeup")  // horoscope, story -> writeup (GOAL)
-                    .build();
-
-            // Build GOAP workflow using plannerBuilder with GoalOrientedPlanner
-            // The planner will:
-            // 1. Build dependency graph from agent input/output keys
-            // 2. Calculate shortest path from "prompt" to "writeup"
-            // 3. Execute agents in computed sequence: signExtractor -> horoscopeGenerator, storyFinder -> writer
-            UntypedAgent goapWorkflow = AgenticServices.plannerBuilder()
-                    .subAgents(signExtractor, horoscopeGenerator, storyFinder, writer)
-                    .outputKey("writeup")  // The goal state we want to reach
-                    .planner(GoalOrientedPlanner::new)  // Uses GOAP algorithm!
-                    .listener(listener)
-                    .build();
+            publishEvent(AgentEvent.started("goap", "Starting GOAP workflow using GoalOrientedPlanner: Automatic path planning to goal"));
+
+            ScopeTracker scope = listener.scope();
 
             scope.put("prompt", prompt);
-            events.add(publishEvent(AgentEvent.stateUpdated("goap", "prompt", truncate(prompt))));
+            publishEvent(AgentEvent.stateUpdated("goap", "prompt", truncate(prompt)));
 
             // Execute the GOAP workflow - the planner automatically determines and executes the path
-            events.add(publishEvent(AgentEvent.agentInvoked("goap", "goalOrientedPlanner", "Computing optimal agent path to goal...")));
-            ResultWithAgenticScope<String> result = goapWorkflow.invokeWithAgenticScope(Map.of("prompt", prompt));
+            publishEvent(AgentEvent.agentInvoked("goap", "goalOrientedPlanner", "Computing optimal agent path to goal..."));
+            ResultWithAgenticScope<String> result;
+            try (var binding = graphs.listenerRouter().bind(executionId, listener)) {
+                result = graphs.goapWorkflow().invokeWithAgenticScope(
+                        ExecutionListenerRouter.inputs(executionId, Map.of("prompt", prompt)));
+            }
 
             String writeup = result.result();
             
-            // Capture the final scope state
-            scope.putAll(listener.getScopeSnapshot());
             scope.put("writeup", writeup);
 
-            events.add(publishEvent(AgentEvent.completed("goap", writeup)));
-            return ExecutionResult.success(executionId, "goap", writeup, events, scope, startTime);
+            publishEvent(AgentEvent.completed("goap", writeup));
+            return ExecutionResult.success(executionId, "goap", writeup, events.snapshot(), scope.snapshot(), startTime);
 
         } catch (Exception e) {
             log.error("GOAP execution failed", e);
-            events.add(publishEvent(AgentEvent.error("goap", null, e.getMessage())));
-            return ExecutionResult.error(executionId, "goap", e.getMessage(), events, startTime);
+            return failed(executionId, "goap", e, events, startTime, listener.scope(), "writeup");
         }
     }
 
@@ -580,84 +579,38 @@ public class PatternExecutionService {
      * Uses P2PPlanner which automatically activates agents when their required inputs 
      * become available in shared state. Continues until exit condition (score threshold) is met.
      */
-    private ExecutionResult executeP2P(String prompt) {
-        String executionId = UUID.randomUUID().toString();
+    @SuppressWarnings("try")
+    private ExecutionResult executeP2P(String executionId, String prompt) {
         Instant startTime = Instant.now();
-        List<AgentEvent> events = Collections.synchronizedList(new ArrayList<>());
-        Map<String, Object> scope = new ConcurrentHashMap<>();
+        EventLog events = ExecutionContext.current().events();
+        // Created up front so the output so far is at hand if the token budget runs out
+        WebSocketAgentListener listener = new WebSocketAgentListener(eventPublisher, "p2p");
 
         try {
-            events.add(publishEvent(AgentEvent.started("p2p", "Starting P2P workflow using P2PPlanner: Reactive peer collaboration")));
-
-            // Create listener for real-time WebSocket events
-            WebSocketAgentListener listener = new WebSocketAgentListener(eventPublisher, "p2p", events);
-
-            // Build peer agents using AgenticServices.agentBuilder() with proper output keys
-            // P2PPlanner activates agents when their input dependencies become available
-            LiteratureAgent literatureAgent = AgenticServices.agentBuilder(LiteratureAgent.class)
-                    .chatModel(chatModel)
-                    .outputKey("researchFindings")  // topic -> researchFindings
-                    .build();
-
-            HypothesisAgent hypothesisAgent = AgenticServices.agentBuilder(HypothesisAgent.class)
-                    .chatModel(chatModel)
-                    .outputKey("hypothesis")  // researchFindings -> hypothesis
-                    .build();
-
-            CriticAgent criticAgent = AgenticServices.agentBuilder(CriticAgent.class)
-                    .chatModel(chatModel)
-                    .outputKey("critique")  // hypothesis -> critique
-                    .build();
-
-            ValidationAgent validationAgent = AgenticServices.agentBuilder(ValidationAgent.class)
-                    .chatModel(chatModel)
-                    .outputKey("hypothesis")  // hypothesis, critique -> refined hypothesis
-                    .build();
-
-            ScorerAgent scorerAgent = AgenticServices.agentBuilder(ScorerAgent.class)
-                    .chatModel(chatModel)
-                    .outputKey("score")  // hypothesis -> score
-                    .build();
-
-            // Build P2P workflow using plannerBuilder with P2PPlanner
-            // The planner will:
-            // 1. Activate agents reactively when their inputs become available
-            // 2. Continue iterating until exit condition is met (score >= 0.75)
-            // 3. Max 10 agent invocations to prevent infinite loops
-            final double targetScore = 0.75;
-            
-            UntypedAgent p2pWorkflow = AgenticServices.plannerBuilder()
-                    .subAgents(literatureAgent, hypothesisAgent, criticAgent, validationAgent, scorerAgent)
-                    .outputKey("hypothesis")  // Final output we want
-                    .planner(() -> new P2PPlanner(plannerModel, 10, agenticScope -> {
-                        // Exit condition: score threshold reached
-                        if (!agenticScope.hasState("score")) {
-                            return false;
-                        }
-                        Double score = agenticScope.readState("score", 0.0);
-                        log.info("P2P current hypothesis score: {}", score);
-                        return score >= targetScore;
-                    }))
-                    .listener(listener)
-                    .build();
+            publishEvent(AgentEvent.started("p2p", "Starting P2P workflow using P2PPlanner: Reactive peer collaboration"));
+
+            ScopeTracker scope = listener.scope();
+
+            final double targetScore = PatternGraphRegistry.P2P_TARGET_SCORE;
 
             scope.put("topic", prompt);
-            events.add(publishEvent(AgentEvent.stateUpdated("p2p", "topic", truncate(prompt))));
-            events.add(publishEvent(AgentEvent.stateUpdated("p2p", "targetScore", String.valueOf(targetScore))));
+            publishEvent(AgentEvent.stateUpdated("p2p", "topic", truncate(prompt)));
+            publishEvent(AgentEvent.stateUpdated("p2p", "targetScore", String.valueOf(targetScore)));
 
             // Execute the P2P workflow - agents activate reactively based on available state
-            events.add(publishEvent(AgentEvent.agentInvoked("p2p", "p2pPlanner", "Starting reactive peer collaboration...")));
-            ResultWithAgenticScope<String> result = p2pWorkflow.invokeWithAgenticScope(Map.of("topic", prompt));
+            publishEvent(AgentEvent.agentInvoked("p2p", "p2pPlanner", "Starting reactive peer collaboration..."));
+            ResultWithAgenticScope<String> result;
+            try (var binding = graphs.listenerRouter().bind(executionId, listener)) {
+                result = graphs.p2pWorkflow().invokeWithAgenticScope(
+                        ExecutionListenerRouter.inputs(executionId, Map.of("topic", prompt)));
+            }
 
             String hypothesis = result.result();
             
-            // Capture the final scope state
-            scope.putAll(listener.getScopeSnapshot());
-            
             // Get final score from scope
             Double finalScore = result.agenticScope().readState("score", 0.0);
             scope.put("finalScore", finalScore);
-            events.add(publishEvent(AgentEvent.stateUpdated("p2p", "finalScore", String.format("%.2f", finalScore))));
+            publishEvent(AgentEvent.stateUpdated("p2p", "finalScore", String.format("%.2f", finalScore)));
 
             // Format final output
             String finalOutput = String.format("""
@@ -671,23 +624,60 @@ public class PatternExecutionService {
                 """, 
                 hypothesis, 
                 finalScore, 
-                finalScore >= targetScore ? "✓ Target score reached!" : "Max iterations reached");
+                finalScore >= targetScore ? "✓ Target score reached!"
+                        : ExecutionContext.tokenBudgetExhausted() ? "Token budget exhausted" : "Max iterations reached");
 
-            events.add(publishEvent(AgentEvent.completed("p2p", finalOutput)));
-            return ExecutionResult.success(executionId, "p2p", finalOutput, events, scope, startTime);
+            publishEvent(AgentEvent.completed("p2p", finalOutput));
+            return ExecutionResult.success(executionId, "p2p", finalOutput, events.snapshot(), scope.snapshot(), startTime);
 
         } catch (Exception e) {
             log.error("P2P execution failed", e);
-            events.add(publishEvent(AgentEvent.error("p2p", null, e.getMessage())));
-            return ExecutionResult.error(executionId, "p2p", e.getMessage(), events, startTime);
+            return failed(executionId, "p2p", e, events, startTime, listener.scope(), "hypothesis");
         }
     }
 
     // Helper methods
 
-    private AgentEvent publishEvent(AgentEvent event) {
+    /**
+     * The result of an execution that threw. If it was stopped by its token budget, the first
+     * of the output keys with a value in the scope is returned as the (best so far) result;
+     * otherwise, or without any output yet, the execution failed.
+     */
+    private ExecutionResult failed(String executionId, String patternId, Exception e, EventLog events,
+                                   Instant startTime, ScopeTracker scope, String... outputKeys) {
+        TokenBudgetExceededException exhausted = budgetExceeded(e);
+        if (exhausted == null) {
+            publishEvent(AgentEvent.error(patternId, null, e.getMessage()));
+            return ExecutionResult.error(executionId, patternId, e.getMessage(), events.snapshot(), startTime);
+        }
+        publishEvent(AgentEvent.budgetExhausted(patternId, exhausted.getUsedTokens(), exhausted.getBudget()));
+        Map<String, Object> snapshot = scope != null ? scope.snapshot() : Map.of();
+        for (String key : outputKeys) {
+            Object output = snapshot.get(key);
+            if (output != null) {
+                String bestSoFar = String.valueOf(output);
+                publishEvent(AgentEvent.completed(patternId, bestSoFar));
+                return ExecutionResult.success(executionId, patternId, bestSoFar, events.snapshot(), snapshot, startTime);
+            }
+        }
+        publishEvent(AgentEvent.error(patternId, null, exhausted.getMessage()));
+        return ExecutionResult.error(executionId, patternId, exhausted.getMessage(), events.snapshot(), startTime);
+    }
+
+    /**
+     * The budget exception behind e; agent frameworks wrap what a model call throws.
+     */
+    private static TokenBudgetExceededException budgetExceeded(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TokenBudgetExceededException exhausted) {
+                return exhausted;
+            }
+        }
+        return null;
+    }
+
+    private void publishEvent(AgentEvent event) {
         eventPublisher.publish(event);
-        return event;
     }
 
     private String truncate(String text) {
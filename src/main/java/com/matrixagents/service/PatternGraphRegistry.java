@@ -0,0 +1,382 @@
+package com.matrixagents.service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import com.matrixagents.agents.ConditionalAgents.CategoryRouter;
+import com.matrixagents.agents.ConditionalAgents.ExpertChatbot;
+import com.matrixagents.agents.ConditionalAgents.LegalExpert;
+import com.matrixagents.agents.ConditionalAgents.MedicalExpert;
+import com.matrixagents.agents.ConditionalAgents.RequestCategory;
+import com.matrixagents.agents.ConditionalAgents.TechnicalExpert;
+import com.matrixagents.agents.GOAPAgents.HoroscopeGenerator;
+import com.matrixagents.agents.GOAPAgents.SignExtractor;
+import com.matrixagents.agents.GOAPAgents.StoryFinder;
+import com.matrixagents.agents.GOAPAgents.WriterAgent;
+import com.matrixagents.agents.HumanInLoopAgents.HoroscopeAgent;
+import com.matrixagents.agents.HumanInLoopAgents.ZodiacExtractor;
+import com.matrixagents.agents.LoopAgents;
+import com.matrixagents.agents.LoopAgents.StyleScorer;
+import com.matrixagents.agents.P2PAgents.CriticAgent;
+import com.matrixagents.agents.P2PAgents.HypothesisAgent;
+import com.matrixagents.agents.P2PAgents.LiteratureAgent;
+import com.matrixagents.agents.P2PAgents.ScorerAgent;
+import com.matrixagents.agents.P2PAgents.ValidationAgent;
+import com.matrixagents.agents.ParallelAgents.EveningPlannerAgent;
+import com.matrixagents.agents.SequenceAgents;
+import com.matrixagents.agents.SequenceAgents.AudienceEditor;
+import com.matrixagents.agents.SupervisorAgents.BoundBankTool;
+import com.matrixagents.agents.SupervisorAgents.CreditAgent;
+import com.matrixagents.agents.SupervisorAgents.ExchangeAgent;
+import com.matrixagents.agents.SupervisorAgents.ExchangeTool;
+import com.matrixagents.agents.SupervisorAgents.WithdrawAgent;
+
+import dev.langchain4j.agentic.AgenticServices;
+import dev.langchain4j.agentic.UntypedAgent;
+import dev.langchain4j.agentic.patterns.goap.GoalOrientedPlanner;
+import dev.langchain4j.agentic.patterns.p2p.P2PPlanner;
+import dev.langchain4j.agentic.supervisor.SupervisorAgent;
+import dev.langchain4j.agentic.supervisor.SupervisorResponseStrategy;
+import dev.langchain4j.model.chat.ChatModel;
+
+/**
+ * Builds the agent graph of every pattern once at startup and hands out the shared instances.
+ *
+ * Building agents costs reflection, annotation scanning and proxy generation, so doing it per
+ * request dominated orchestration overhead. The graphs are immutable after construction and
+ * every invocation gets its own AgenticScope, so they are safe to share between concurrent
+ * executions. Per-execution state is injected at invocation time instead:
+ * listeners through {@link ExecutionListenerRouter}, bank balances through {@link BoundBankTool}.
+ */
+@Component
+public class PatternGraphRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PatternGraphRegistry.class);
+
+    /**
+     * P2P exit threshold on the ScorerAgent output.
+     */
+    public static final double P2P_TARGET_SCORE = 0.75;
+
+    /**
+     * Agent name the supervisor's own planning calls are attributed to.
+     */
+    public static final String BANK_SUPERVISOR = "bankSupervisor";
+
+    private final ExecutionListenerRouter listenerRouter;
+
+    private final UntypedAgent novelCreator;
+    private final EveningPlannerAgent eveningPlanner;
+    private final UntypedAgent styledWriter;
+    private final ExpertChatbot expertChatbot;
+    private final CategoryRouter categoryRouter;
+    private final Map<RequestCategory, UnaryOperator<String>> experts;
+    private final SupervisorAgent bankSupervisor;
+    private final ZodiacExtractor zodiacExtractor;
+    private final HoroscopeAgent horoscopeAgent;
+    private final UntypedAgent goapWorkflow;
+    private final UntypedAgent p2pWorkflow;
+
+    public PatternGraphRegistry(
+            ChatModel chatModel,
+            @Qualifier("plannerModel") ChatModel plannerModel,
+            ExecutionMetrics metrics,
+            ExecutionTracing tracing) {
+        long start = System.nanoTime();
+        this.listenerRouter = new ExecutionListenerRouter(metrics, tracing);
+        this.novelCreator = buildSequence(chatModel);
+        this.eveningPlanner = AgenticServices.createAgenticSystem(EveningPlannerAgent.class, chatModel, this::listen);
+        this.styledWriter = buildLoop(chatModel);
+        this.expertChatbot = AgenticServices.createAgenticSystem(ExpertChatbot.class, chatModel, this::listen);
+        this.categoryRouter = AgenticServices.agentBuilder(CategoryRouter.class)
+                .chatModel(chatModel)
+                .listener(listenerRouter)
+                .build();
+        this.experts = buildExperts(chatModel);
+        this.bankSupervisor = buildSupervisor(chatModel, plannerModel, tracing);
+        this.zodiacExtractor = AgenticServices.agentBuilder(ZodiacExtractor.class)
+                .chatModel(chatModel)
+                .listener(listenerRouter)
+                .build();
+        this.horoscopeAgent = AgenticServices.agentBuilder(HoroscopeAgent.class)
+                .chatModel(chatModel)
+                .listener(listenerRouter)
+                .build();
+        this.goapWorkflow = buildGOAP(chatModel);
+        this.p2pWorkflow = buildP2P(chatModel, plannerModel);
+        log.info("Built agent graphs for all patterns in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public ExecutionListenerRouter listenerRouter() {
+        return listenerRouter;
+    }
+
+    public UntypedAgent novelCreator() {
+        return novelCreator;
+    }
+
+    public EveningPlannerAgent eveningPlanner() {
+        return eveningPlanner;
+    }
+
+    public UntypedAgent styledWriter() {
+        return styledWriter;
+    }
+
+    public ExpertChatbot expertChatbot() {
+        return expertChatbot;
+    }
+
+    /**
+     * The conditional pattern's classifier on its own, for speculative execution.
+     */
+    public CategoryRouter categoryRouter() {
+        return categoryRouter;
+    }
+
+    /**
+     * The conditional pattern's experts on their own, by the category they answer.
+     */
+    public Map<RequestCategory, UnaryOperator<String>> experts() {
+        return experts;
+    }
+
+    public SupervisorAgent bankSupervisor() {
+        return bankSupervisor;
+    }
+
+    public ZodiacExtractor zodiacExtractor() {
+        return zodiacExtractor;
+    }
+
+    public HoroscopeAgent horoscopeAgent() {
+        return horoscopeAgent;
+    }
+
+    public UntypedAgent goapWorkflow() {
+        return goapWorkflow;
+    }
+
+    public UntypedAgent p2pWorkflow() {
+        return p2pWorkflow;
+    }
+
+    /**
+     * Attaches the listener router to every agent of a declarative agentic system. Their
+     * invocations cannot be bound to an execution, but the router still tracks the running
+     * agent for the per-agent model policies and reports it to the observers.
+     */
+    @SuppressWarnings("rawtypes")
+    private void listen(AgenticServices.DeclarativeAgentCreationContext context) {
+        context.agentBuilder().listener(listenerRouter);
+    }
+
+    /**
+     * CONDITIONAL, speculative variant: each expert invocable without the router in front of it.
+     */
+    private Map<RequestCategory, UnaryOperator<String>> buildExperts(ChatModel chatModel) {
+        MedicalExpert medical = AgenticServices.agentBuilder(MedicalExpert.class)
+                .chatModel(chatModel)
+                .listener(listenerRouter)
+                .build();
+        LegalExpert legal = AgenticServices.agentBuilder(LegalExpert.class)
+                .chatModel(chatModel)
+                .listener(listenerRouter)
+                .build();
+        TechnicalExpert technical = AgenticServices.agentBuilder(TechnicalExpert.class)
+                .chatModel(chatModel)
+                .listener(listenerRouter)
+                .build();
+        Map<RequestCategory, UnaryOperator<String>> experts = new EnumMap<>(RequestCategory.class);
+        experts.put(RequestCategory.MEDICAL, medical::medical);
+        experts.put(RequestCategory.LEGAL, legal::legal);
+        experts.put(RequestCategory.TECHNICAL, technical::technical);
+        return Collections.unmodifiableMap(experts);
+    }
+
+    /**
+     * SEQUENCE: CreativeWriter -> AudienceEditor -> StyleEditor
+     */
+    private UntypedAgent buildSequence(ChatModel chatModel) {
+        SequenceAgents.CreativeWriter writer = AgenticServices.agentBuilder(SequenceAgents.CreativeWriter.class)
+                .chatModel(chatModel)
+                .outputKey("story")
+                .build();
+
+        AudienceEditor audienceEditor = AgenticServices.agentBuilder(AudienceEditor.class)
+                .chatModel(chatModel)
+                .outputKey("story")
+                .build();
+
+        SequenceAgents.StyleEditor styleEditor = AgenticServices.agentBuilder(SequenceAgents.StyleEditor.class)
+                .chatModel(chatModel)
+                .outputKey("story")
+                .build();
+
+        return AgenticServices.sequenceBuilder()
+                .name("novelCreator")
+                .subAgents(writer, audienceEditor, styleEditor)
+                .listener(listenerRouter)
+                .outputKey("story")
+                .build();
+    }
+
+    /**
+     * LOOP: CreativeWriter, then StyleScorer -> StyleEditor until score >= 0.8
+     */
+    private UntypedAgent buildLoop(ChatModel chatModel) {
+        LoopAgents.CreativeWriter generator = AgenticServices.agentBuilder(LoopAgents.CreativeWriter.class)
+                .chatModel(chatModel)
+                .outputKey("story")
+                .build();
+
+        StyleScorer scorer = AgenticServices.agentBuilder(StyleScorer.class)
+                .chatModel(chatModel)
+                .outputKey("score")
+                .build();
+
+        LoopAgents.StyleEditor refiner = AgenticServices.agentBuilder(LoopAgents.StyleEditor.class)
+                .chatModel(chatModel)
+                .outputKey("story")
+                .build();
+
+        UntypedAgent styleReviewLoop = AgenticServices.loopBuilder()
+                .name("styleReviewLoop")
+                .subAgents(scorer, refiner)
+                .maxIterations(5)
+                // Also ends the loop, with the story as it stands, once the token budget is spent
+                .exitCondition(scope -> scope.readState("score", 0.0) >= 0.8 || ExecutionContext.tokenBudgetExhausted())
+                .build();
+
+        return AgenticServices.sequenceBuilder()
+                .name("styledWriter")
+                .subAgents(generator, styleReviewLoop)
+                .listener(listenerRouter)
+                .outputKey("story")
+                .build();
+    }
+
+    /**
+     * SUPERVISOR: bank supervisor coordinating withdraw, credit and exchange agents.
+     * The bank tool is the shared {@link BoundBankTool} facade; balances are bound per execution.
+     * The supervisor builder takes no listener, so only the sub-agents report to the router;
+     * callers run the supervisor itself as agent {@value #BANK_SUPERVISOR}.
+     */
+    private SupervisorAgent buildSupervisor(ChatModel chatModel, ChatModel plannerModel, ExecutionTracing tracing) {
+        BoundBankTool bankTool = new BoundBankTool(tracing);
+        ExchangeTool exchangeTool = new ExchangeTool(tracing);
+
+        WithdrawAgent withdrawAgent = AgenticServices.agentBuilder(WithdrawAgent.class)
+                .chatModel(chatModel)
+                .tools(bankTool)
+                .listener(listenerRouter)
+                .build();
+
+        CreditAgent creditAgent = AgenticServices.agentBuilder(CreditAgent.class)
+                .chatModel(chatModel)
+                .tools(bankTool)
+                .listener(listenerRouter)
+                .build();
+
+        ExchangeAgent exchangeAgent = AgenticServices.agentBuilder(ExchangeAgent.class)
+                .chatModel(chatModel)
+                .tools(exchangeTool)
+                .listener(listenerRouter)
+                .build();
+
+        return AgenticServices.supervisorBuilder()
+                .chatModel(plannerModel)
+                .subAgents(withdrawAgent, creditAgent, exchangeAgent)
+                .responseStrategy(SupervisorResponseStrategy.SUMMARY)
+                .build();
+    }
+
+    /**
+     * GOAP: prompt -> sign -> horoscope, story -> writeup
+     */
+    private UntypedAgent buildGOAP(ChatModel chatModel) {
+        SignExtractor signExtractor = AgenticServices.agentBuilder(SignExtractor.class)
+                .chatModel(chatModel)
+                .outputKey("sign")
+                .build();
+
+        HoroscopeGenerator horoscopeGenerator = AgenticServices.agentBuilder(HoroscopeGenerator.class)
+                .chatModel(chatModel)
+                .outputKey("horoscope")
+                .build();
+
+        StoryFinder storyFinder = AgenticServices.agentBuilder(StoryFinder.class)
+                .chatModel(chatModel)
+                .outputKey("story")
+                .build();
+
+        WriterAgent writer = AgenticServices.agentBuilder(WriterAgent.class)
+                .chatModel(chatModel)
+                .outputKey("writeup")
+                .build();
+
+        // The planner supplier runs per invocation, so each execution gets a fresh GoalOrientedPlanner
+        return AgenticServices.plannerBuilder()
+                .subAgents(signExtractor, horoscopeGenerator, storyFinder, writer)
+                .outputKey("writeup")
+                .planner(GoalOrientedPlanner::new)
+                .listener(listenerRouter)
+                .build();
+    }
+
+    /**
+     * P2P: peers activate reactively until the hypothesis score reaches {@link #P2P_TARGET_SCORE}.
+     */
+    private UntypedAgent buildP2P(ChatModel chatModel, ChatModel plannerModel) {
+        LiteratureAgent literatureAgent = AgenticServices.agentBuilder(LiteratureAgent.class)
+                .chatModel(chatModel)
+                .outputKey("researchFindings")
+                .build();
+
+        HypothesisAgent hypothesisAgent = AgenticServices.agentBuilder(HypothesisAgent.class)
+                .chatModel(chatModel)
+                .outputKey("hypothesis")
+                .build();
+
+        CriticAgent criticAgent = AgenticServices.agentBuilder(CriticAgent.class)
+                .chatModel(chatModel)
+                .outputKey("critique")
+                .build();
+
+        ValidationAgent validationAgent = AgenticServices.agentBuilder(ValidationAgent.class)
+                .chatModel(chatModel)
+                .outputKey("hypothesis")
+                .build();
+
+        ScorerAgent scorerAgent = AgenticServices.agentBuilder(ScorerAgent.class)
+                .chatModel(chatModel)
+                .outputKey("score")
+                .build();
+
+        // The planner supplier runs per invocation, so each execution gets a fresh P2PPlanner
+        return AgenticServices.plannerBuilder()
+                .subAgents(literatureAgent, hypothesisAgent, criticAgent, validationAgent, scorerAgent)
+                .outputKey("hypothesis")
+                .planner(() -> new P2PPlanner(plannerModel, 10, agenticScope -> {
+                    if (ExecutionContext.tokenBudgetExhausted()) {
+                        log.info("P2P stopping: token budget exhausted");
+                        return true;
+                    }
+                    if (!agenticScope.hasState("score")) {
+                        return false;
+                    }
+                    Double score = agenticScope.readState("score", 0.0);
+                    log.info("P2P current hypothesis score: {}", score);
+                    return score >= P2P_TARGET_SCORE;
+                }))
+                .listener(listenerRouter)
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.matrixagents.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The scope state of one execution, tracked as a sequence of versioned changes.
+ *
+ * An agent only writes its output key, so after each agent just that key is compared with
+ * what is already known; the whole agentic scope is walked only when it is created or
+ * destroyed. Only keys whose value changed are recorded, so listeners publish deltas
+ * instead of the whole state. The snapshot for the ExecutionResult is built on demand and
+ * reused until the next change.
+ *
+ * Agents of one execution may finish on several threads at once. Changes are serialized by
+ * a ReentrantLock rather than a monitor, so virtual threads waiting for it do not pin their
+ * carrier, and the version can be read without taking the lock.
+ */
+public final class ScopeTracker {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private volatile long version;
+    private Map<String, Object> snapshot = Map.of();
+    private long snapshotVersion;
+
+    /**
+     * Records the keys of the agentic scope state whose value differs from the last captured one.
+     */
+    public Delta capture(Map<String, Object> state) {
+        if (state == null) {
+            return Delta.NONE;
+        }
+        lock.lock();
+        try {
+            Map<String, Object> changed = new LinkedHashMap<>();
+            state.forEach((key, value) -> {
+                if (!ExecutionListenerRouter.EXECUTION_KEY.equals(key)) {
+                    track(key, value, changed);
+                }
+            });
+            return changed.isEmpty() ? Delta.NONE : new Delta(++version, Collections.unmodifiableMap(changed));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a single key, such as an agent's output or a parsed pattern input.
+     */
+    public Delta put(String key, Object value) {
+        if (value == null) {
+            return Delta.NONE;
+        }
+        lock.lock();
+        try {
+            Object previous = values.put(key, value);
+            return Objects.equals(previous, value) ? Delta.NONE : new Delta(++version, Map.of(key, value));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Current state as an unmodifiable map.
+     */
+    public Map<String, Object> snapshot() {
+        lock.lock();
+        try {
+            if (snapshotVersion != version) {
+                snapshot = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+                snapshotVersion = version;
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void track(String key, Object value, Map<String, Object> changed) {
+        if (value == null) {
+            return;
+        }
+        Object previous = values.put(key, value);
+        if (!Objects.equals(previous, value)) {
+            changed.put(key, value);
+        }
+    }
+
+    /**
+     * Keys that changed in one capture, and the scope version they produced.
+     */
+    public record Delta(long version, Map<String, Object> changed) {
+
+        static final Delta NONE = new Delta(0, Map.of());
+
+        public boolean isEmpty() {
+            return changed.isEmpty();
+        }
+    }
+}
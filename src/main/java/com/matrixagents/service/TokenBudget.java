@@ -0,0 +1,113 @@
+package com.matrixagents.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.matrixagents.model.TokenReport;
+
+/**
+ * Token usage of one execution, added up per agent and checked against its budget.
+ *
+ * The budget is checked before a model call and usage recorded after it, so the calls in
+ * flight when the budget runs out may overshoot it; no call starts after that. Thread-safe:
+ * parallel agents record concurrently.
+ */
+public final class TokenBudget {
+
+    private static final String UNKNOWN_AGENT = "unknown";
+
+    private final Map<String, AgentCounter> agents = new ConcurrentHashMap<>();
+    private final LongAdder input = new LongAdder();
+    private final LongAdder output = new LongAdder();
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile long limit;
+    private volatile boolean refused;
+
+    /**
+     * Sets the budget in input plus output tokens; 0 means unlimited.
+     */
+    public void limit(long tokens) {
+        this.limit = Math.max(0, tokens);
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    public long used() {
+        return input.sum() + output.sum();
+    }
+
+    /**
+     * True once the budget is spent; workflows check this to stop before the next round.
+     */
+    public boolean exhausted() {
+        long budget = limit;
+        return budget > 0 && used() >= budget;
+    }
+
+    /**
+     * True if a model call was refused because the budget was spent.
+     */
+    public boolean refused() {
+        return refused;
+    }
+
+    /**
+     * Called before a model call.
+     *
+     * @throws TokenBudgetExceededException if the budget is spent
+     */
+    public void checkAvailable() {
+        if (exhausted()) {
+            refused = true;
+            throw new TokenBudgetExceededException(used(), limit);
+        }
+    }
+
+    /**
+     * Called after a model call with the tokens it reported.
+     */
+    public void record(String agentName, long inputTokens, long outputTokens) {
+        input.add(inputTokens);
+        output.add(outputTokens);
+        calls.incrementAndGet();
+        agents.computeIfAbsent(agentName != null ? agentName : UNKNOWN_AGENT, name -> new AgentCounter())
+                .add(inputTokens, outputTokens);
+    }
+
+    /**
+     * Usage of a single agent so far, or null if it made no model calls.
+     */
+    public TokenReport.AgentTokens agent(String agentName) {
+        AgentCounter counter = agents.get(agentName);
+        return counter != null ? counter.snapshot() : null;
+    }
+
+    public TokenReport report() {
+        Map<String, TokenReport.AgentTokens> byAgent = new TreeMap<>();
+        agents.forEach((name, counter) -> byAgent.put(name, counter.snapshot()));
+        long in = input.sum();
+        long out = output.sum();
+        return new TokenReport(in, out, in + out, calls.get(), limit, refused || exhausted(), byAgent);
+    }
+
+    private static final class AgentCounter {
+        private final LongAdder input = new LongAdder();
+        private final LongAdder output = new LongAdder();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        void add(long inputTokens, long outputTokens) {
+            input.add(inputTokens);
+            output.add(outputTokens);
+            calls.incrementAndGet();
+        }
+
+        TokenReport.AgentTokens snapshot() {
+            return new TokenReport.AgentTokens(input.sum(), output.sum(), calls.get());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.matrixagents.service;
+
+/**
+ * Thrown instead of a model call once the execution has spent its token budget.
+ */
+public class TokenBudgetExceededException extends RuntimeException {
+
+    private final long usedTokens;
+    private final long budget;
+
+    public TokenBudgetExceededException(long usedTokens, long budget) {
+        super("Token budget exhausted: " + usedTokens + " of " + budget + " tokens used");
+        this.usedTokens = usedTokens;
+        this.budget = budget;
+    }
+
+    public long getUsedTokens() {
+        return usedTokens;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+}
@@ -1,15 +1,13 @@
 package com.matrixagents.service;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.TokenReport;
 
 import dev.langchain4j.agentic.observability.AgentInvocationError;
 import dev.langchain4j.agentic.observability.AgentListener;
@@ -21,10 +19,13 @@ import dev.langchain4j.agentic.scope.AgenticScope;
  * AgentListener implementation that publishes real-time events to WebSocket clients.
  * This is the proper LangChain4j way to observe agent executions instead of manual loops.
  * 
- * Usage:
- * AgenticServices.loopBuilder()
- *     .listener(new WebSocketAgentListener(eventPublisher, "loop", events))
- *     .build();
+ * Usage (the agent graphs are cached, so the listener is bound per execution):
+ * try (var binding = listenerRouter.bind(executionId, new WebSocketAgentListener(eventPublisher, "loop"))) {
+ *     workflow.invokeWithAgenticScope(ExecutionListenerRouter.inputs(executionId, inputs));
+ * }
+ *
+ * Scope state is tracked by a {@link ScopeTracker}: after each agent only the keys that
+ * changed are published, as one STATE_UPDATED event, and the final snapshot is built once.
  */
 public class WebSocketAgentListener implements AgentListener {
     
@@ -32,21 +33,19 @@ public class WebSocketAgentListener implements AgentListener {
     
     private final EventPublisher eventPublisher;
     private final String patternId;
-    private final List<AgentEvent> events;
-    private final Map<String, Object> scopeSnapshot;
+    private final ScopeTracker scope = new ScopeTracker();
     
-    public WebSocketAgentListener(EventPublisher eventPublisher, String patternId, List<AgentEvent> events) {
+    public WebSocketAgentListener(EventPublisher eventPublisher, String patternId) {
         this.eventPublisher = eventPublisher;
         this.patternId = patternId;
-        this.events = events;
-        this.scopeSnapshot = new ConcurrentHashMap<>();
     }
     
     /**
-     * Returns a snapshot of the scope state captured during agent invocations.
+     * The scope state captured during agent invocations; patterns add their own inputs
+     * with {@link ScopeTracker#put} and take the final snapshot from it.
      */
-    public Map<String, Object> getScopeSnapshot() {
-        return Collections.unmodifiableMap(scopeSnapshot);
+    public ScopeTracker scope() {
+        return scope;
     }
     
     @Override
@@ -58,7 +57,6 @@ public class WebSocketAgentListener implements AgentListener {
         
         String description = formatInputs(inputs);
         AgentEvent event = AgentEvent.agentInvoked(patternId, agentName, description);
-        events.add(event);
         eventPublisher.publish(event);
     }
     
@@ -66,25 +64,32 @@ public class WebSocketAgentListener implements AgentListener {
     public void afterAgentInvocation(AgentResponse response) {
         String agentName = response.agent().name();
         Object output = response.output();
-        AgenticScope scope = response.agenticScope();
+        AgenticScope agenticScope = response.agenticScope();
         
         // Handle null output gracefully
         String outputStr = output != null ? truncate(String.valueOf(output)) : "(completed with no output)";
         log.debug("Agent {} completed with output: {}", agentName, outputStr);
         
-        // Capture scope state
-        captureScope(scope);
+        // An agent only writes its output key, possibly not to the scope yet; compare the whole
+        // state only for agents without one, such as workflows
+        String outputKey = response.agent().outputKey();
+        ScopeTracker.Delta delta = outputKey != null
+                ? scope.put(outputKey, output)
+                : scope.capture(stateOf(agenticScope));
         
-        // Publish completion event
-        AgentEvent event = AgentEvent.agentCompleted(patternId, agentName, outputStr);
-        events.add(event);
+        // Publish completion event, with the agent's token usage when it called a model
+        ExecutionContext context = ExecutionContext.current();
+        TokenReport.AgentTokens tokens = context != null ? context.tokens().agent(agentName) : null;
+        AgentEvent event = tokens != null
+                ? AgentEvent.agentCompleted(patternId, agentName, outputStr, tokens)
+                : AgentEvent.agentCompleted(patternId, agentName, outputStr);
         eventPublisher.publish(event);
         
-        // Publish state update for key outputs
-        String outputKey = response.agent().outputKey();
-        if (outputKey != null && output != null) {
-            AgentEvent stateEvent = AgentEvent.stateUpdated(patternId, outputKey, truncate(String.valueOf(output)));
-            events.add(stateEvent);
+        // Publish the changed keys only
+        if (!delta.isEmpty()) {
+            Map<String, Object> changes = new LinkedHashMap<>();
+            delta.changed().forEach((key, value) -> changes.put(key, truncate(String.valueOf(value))));
+            AgentEvent stateEvent = AgentEvent.stateChanged(patternId, agentName, delta.version(), changes);
             eventPublisher.publish(stateEvent);
         }
     }
@@ -97,20 +102,19 @@ public class WebSocketAgentListener implements AgentListener {
         log.error("Agent {} failed: {}", agentName, errorMessage, error.error());
         
         AgentEvent event = AgentEvent.error(patternId, agentName, errorMessage);
-        events.add(event);
         eventPublisher.publish(event);
     }
     
     @Override
-    public void afterAgenticScopeCreated(AgenticScope scope) {
-        log.debug("AgenticScope created with memoryId: {}", scope.memoryId());
-        captureScope(scope);
+    public void afterAgenticScopeCreated(AgenticScope agenticScope) {
+        log.debug("AgenticScope created with memoryId: {}", agenticScope.memoryId());
+        scope.capture(stateOf(agenticScope));
     }
     
     @Override
-    public void beforeAgenticScopeDestroyed(AgenticScope scope) {
+    public void beforeAgenticScopeDestroyed(AgenticScope agenticScope) {
         log.debug("AgenticScope being destroyed, final state capture");
-        captureScope(scope);
+        scope.capture(stateOf(agenticScope));
     }
     
     @Override
@@ -119,16 +123,8 @@ public class WebSocketAgentListener implements AgentListener {
         return true;
     }
     
-    /**
-     * Capture all state from the AgenticScope for return in ExecutionResult.
-     */
-    private void captureScope(AgenticScope scope) {
-        if (scope != null) {
-            Map<String, Object> state = scope.state();
-            if (state != null) {
-                scopeSnapshot.putAll(state);
-            }
-        }
+    private static Map<String, Object> stateOf(AgenticScope agenticScope) {
+        return agenticScope != null ? agenticScope.state() : null;
     }
     
     private String formatInputs(Map<String, Object> inputs) {
@@ -137,10 +133,12 @@ public class WebSocketAgentListener implements AgentListener {
         }
         StringBuilder sb = new StringBuilder();
         for (Map.Entry<String, Object> entry : inputs.entrySet()) {
+            // Routing key added by ExecutionListenerRouter.inputs, not an input of the agent
+            if (ExecutionListenerRouter.EXECUTION_KEY.equals(entry.getKey())) continue;
             if (sb.length() > 0) sb.append(", ");
             sb.append(entry.getKey()).append("=").append(truncate(String.valueOf(entry.getValue())));
         }
-        return sb.toString();
+        return sb.length() > 0 ? sb.toString() : "Processing...";
     }
     
     private String truncate(String text) {
@@ -0,0 +1,121 @@
+package com.matrixagents.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.matrixagents.config.HistoryProperties;
+import com.matrixagents.model.ExecutionResult;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class ExecutionHistoryTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reloadsRecordedExecutionsOnStartup() {
+        write("first", "second");
+
+        ExecutionHistory history = open();
+
+        assertThat(history.status("first")).isPresent();
+        assertThat(history.status("second")).isPresent();
+        assertThat(history.resultJson("second")).isPresent();
+        history.shutdown();
+    }
+
+    @Test
+    void stopsRecoveryAtACorruptHeaderAndKeepsAppending() throws IOException {
+        write("first", "second");
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int second = secondRecordOffset(channel);
+            channel.write(ByteBuffer.wrap("garbage".getBytes()), second + HistorySegment.RECORD_OVERHEAD);
+        }
+
+        ExecutionHistory history = open();
+        assertThat(history.status("first")).isPresent();
+        assertThat(history.status("second")).isEmpty();
+        history.record(result("third"));
+        history.shutdown();
+
+        ExecutionHistory reopened = open();
+        assertThat(reopened.status("first")).isPresent();
+        assertThat(reopened.status("second")).isEmpty();
+        assertThat(reopened.status("third")).isPresent();
+        reopened.shutdown();
+    }
+
+    @Test
+    void dropsARecordTruncatedByACrash() throws IOException {
+        write("first", "second");
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.truncate(secondRecordOffset(channel) + HistorySegment.RECORD_OVERHEAD + 4);
+        }
+
+        ExecutionHistory history = open();
+        assertThat(history.status("first")).isPresent();
+        assertThat(history.status("second")).isEmpty();
+        history.record(result("third"));
+        history.shutdown();
+
+        ExecutionHistory reopened = open();
+        assertThat(reopened.status("third")).isPresent();
+        reopened.shutdown();
+    }
+
+    @Test
+    void rejectsSegmentsOfTwoGigabytesOrMore() {
+        assertThatThrownBy(() -> new HistoryProperties(true, directory, DataSize.ofGigabytes(2), 0, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void write(String... executionIds) {
+        ExecutionHistory history = open();
+        for (String executionId : executionIds) {
+            history.record(result(executionId));
+        }
+        history.shutdown();
+    }
+
+    private ExecutionHistory open() {
+        return new ExecutionHistory(
+                new HistoryProperties(true, directory, DataSize.ofKilobytes(64), 0, Duration.ofDays(1), 0), jsonMapper);
+    }
+
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> HistorySegment.idOf(path) >= 0).findFirst().orElseThrow();
+        }
+    }
+
+    private static int secondRecordOffset(FileChannel channel) throws IOException {
+        ByteBuffer lengths = ByteBuffer.allocate(HistorySegment.RECORD_OVERHEAD);
+        channel.read(lengths, 0);
+        return HistorySegment.RECORD_OVERHEAD + lengths.getInt(0) + lengths.getInt(4);
+    }
+
+    private static ExecutionResult result(String executionId) {
+        Instant start = Instant.now();
+        return new ExecutionResult(executionId, "sequence", "COMPLETED", "A story", List.of(), Map.of(),
+                start, start.plusMillis(10), 10, null, null);
+    }
+}
@@ -0,0 +1,108 @@
+package com.matrixagents.llm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.matrixagents.config.LlmProperties;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(20);
+
+    private final List<CircuitBreaker.State> changes = new CopyOnWriteArrayList<>();
+    private final CircuitBreaker breaker = new CircuitBreaker("gpt",
+            new LlmProperties.Breaker(true, 4, 2, 0.5, OPEN_DURATION), changes::add);
+
+    @Test
+    void opensOnceTheFailureRateReachesTheThreshold() {
+        breaker.onSuccess(breaker.acquire());
+        breaker.onFailure(breaker.acquire());
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CircuitOpenException.class);
+        assertThat(breaker.stats().rejected()).isEqualTo(1);
+        assertThat(changes).containsExactly(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void closesWhenTheTrialSucceeds() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.multipliedBy(2));
+
+        long trial = breaker.acquire();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CircuitOpenException.class);
+        breaker.onSuccess(trial);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(changes).containsExactly(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN,
+                CircuitBreaker.State.CLOSED);
+        breaker.onSuccess(breaker.acquire());
+    }
+
+    @Test
+    void reopensWhenTheTrialFails() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.multipliedBy(2));
+
+        breaker.onFailure(breaker.acquire());
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CircuitOpenException.class);
+    }
+
+    @Test
+    void letsAnotherTrialInWhenTheTrialIsIgnored() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.multipliedBy(2));
+
+        breaker.onIgnored(breaker.acquire());
+        long trial = breaker.acquire();
+        breaker.onSuccess(trial);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void dropsOutcomesOfCallsAdmittedBeforeTheTrial() throws InterruptedException {
+        long succeeding = breaker.acquire();
+        long failing = breaker.acquire();
+        long ignored = breaker.acquire();
+        open();
+        Thread.sleep(OPEN_DURATION.multipliedBy(2));
+        long trial = breaker.acquire();
+
+        breaker.onSuccess(succeeding);
+        breaker.onFailure(failing);
+        breaker.onIgnored(ignored);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CircuitOpenException.class);
+        breaker.onSuccess(trial);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        CircuitBreaker disabled = new CircuitBreaker("gpt",
+                new LlmProperties.Breaker(false, 4, 2, 0.5, OPEN_DURATION), changes::add);
+        for (int i = 0; i < 10; i++) {
+            disabled.onFailure(disabled.acquire());
+        }
+
+        assertThat(disabled.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(changes).isEmpty();
+    }
+
+    private void open() {
+        breaker.onFailure(breaker.acquire());
+        breaker.onFailure(breaker.acquire());
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,89 @@
+package com.matrixagents.llm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.matrixagents.config.LlmProperties;
+
+class DeploymentRateLimiterTest {
+
+    @Test
+    void waitsForARequestOnceTheyRunOut() {
+        // 600 RPM: one request every 100 ms once the minute's worth is spent
+        DeploymentRateLimiter limiter = limiter(1_000_000, 600, Duration.ofSeconds(5));
+        for (int i = 0; i < 600; i++) {
+            limiter.acquire(1);
+        }
+
+        long start = System.nanoTime();
+        limiter.acquire(1);
+
+        assertThat(elapsedMillis(start)).isGreaterThanOrEqualTo(50);
+        assertThat(limiter.stats().throttled()).isPositive();
+    }
+
+    @Test
+    void goesNegativeAfterAnUnderestimateAndRecovers() {
+        // 60,000 TPM: one token per millisecond
+        DeploymentRateLimiter limiter = limiter(60_000, 6_000, Duration.ofSeconds(5));
+        long taken = limiter.acquire(100);
+        limiter.settle(taken, 60_600);
+
+        assertThat(limiter.stats().availableTokens()).isNegative();
+
+        long start = System.nanoTime();
+        limiter.acquire(1);
+
+        assertThat(elapsedMillis(start)).isGreaterThanOrEqualTo(400);
+        assertThat(limiter.stats().availableTokens()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void givesBackTheTokensOfAFailedCall() {
+        DeploymentRateLimiter limiter = limiter(60_000, 6_000, Duration.ofSeconds(5));
+        long taken = limiter.acquire(50_000);
+        limiter.release(taken);
+
+        assertThat(limiter.stats().availableTokens()).isEqualTo(60_000);
+    }
+
+    @Test
+    void holdsCallersBackWhilePaused() {
+        DeploymentRateLimiter limiter = limiter(1_000_000, 6_000, Duration.ofSeconds(5));
+        limiter.pause(Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        limiter.acquire(1);
+
+        assertThat(elapsedMillis(start)).isGreaterThanOrEqualTo(150);
+    }
+
+    @Test
+    void failsOnceMaxWaitWouldPass() {
+        DeploymentRateLimiter limiter = limiter(1_000_000, 6_000, Duration.ofMillis(100));
+        limiter.pause(Duration.ofSeconds(10));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> limiter.acquire(1))
+                .isInstanceOf(RateLimitTimeoutException.class)
+                .hasFieldOrPropertyWithValue("maxWaitMillis", 100L);
+
+        assertThat(elapsedMillis(start)).isLessThan(TimeUnit.SECONDS.toMillis(5));
+        assertThat(limiter.stats().throttled()).isEqualTo(1);
+        assertThat(limiter.stats().queued()).isZero();
+    }
+
+    private static DeploymentRateLimiter limiter(long tokensPerMinute, long requestsPerMinute, Duration maxWait) {
+        return new DeploymentRateLimiter("gpt",
+                new LlmProperties.RateLimit(true, tokensPerMinute, requestsPerMinute, 1000, maxWait));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,87 @@
+package com.matrixagents.llm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class LshIndexTest {
+
+    private static final int DIMENSION = 64;
+
+    private final LshIndex<String> index = new LshIndex<>(8, 10, 100, Duration.ofHours(1));
+
+    @Test
+    void findsAnEntryExactlyAtTheMinimumSimilarity() {
+        float[] stored = unit(0.2);
+        float[] query = unit(0.25);
+        index.add("p", stored, "stored");
+        double similarity = dot(query, stored);
+
+        LshIndex.Match<String> match = index.nearest("p", query, similarity);
+
+        assertThat(match).isNotNull();
+        assertThat(match.value()).isEqualTo("stored");
+        assertThat(match.similarity()).isEqualTo(similarity);
+        assertThat(index.nearest("p", query, Math.nextUp(similarity))).isNull();
+    }
+
+    @Test
+    void returnsTheMostSimilarEntry() {
+        index.add("p", unit(0.3), "far");
+        index.add("p", unit(0.05), "near");
+
+        assertThat(index.nearest("p", unit(0.0), 0.5).value()).isEqualTo("near");
+    }
+
+    @Test
+    void neverMatchesAcrossPartitions() {
+        float[] vector = unit(0.1);
+        index.add("model|medical", vector, "medical answer");
+
+        assertThat(index.nearest("model|legal", vector, 0.0)).isNull();
+        assertThat(index.nearest("model|medical", vector, 0.0).value()).isEqualTo("medical answer");
+    }
+
+    @Test
+    void evictsTheOldestEntriesOverTheLimit() {
+        LshIndex<Integer> bounded = new LshIndex<>(8, 10, 3, Duration.ofHours(1));
+        for (int i = 0; i < 10; i++) {
+            bounded.add("p", unit(i * 0.5), i);
+        }
+
+        assertThat(bounded.size()).isEqualTo(3);
+        assertThat(bounded.evictions()).isEqualTo(7);
+        assertThat(bounded.nearest("p", unit(0.0), 0.999)).isNull();
+        assertThat(bounded.nearest("p", unit(4.5), 0.999).value()).isEqualTo(9);
+    }
+
+    @Test
+    void rejectsVectorsOfAnotherDimension() {
+        index.add("p", unit(0.0), "stored");
+
+        assertThatThrownBy(() -> index.add("p", new float[] {1f}, "short"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(index.nearest("p", new float[] {1f}, 0.0)).isNull();
+    }
+
+    /**
+     * Unit vector at the given angle, in radians, from the first axis within the plane of the first two.
+     */
+    private static float[] unit(double angle) {
+        float[] vector = new float[DIMENSION];
+        vector[0] = (float) Math.cos(angle);
+        vector[1] = (float) Math.sin(angle);
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
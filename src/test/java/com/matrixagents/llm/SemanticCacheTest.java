@@ -0,0 +1,96 @@
+package com.matrixagents.llm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.matrixagents.config.LlmProperties;
+import com.matrixagents.config.LlmProperties.Policy;
+
+import dev.langchain4j.data.message.AiMessage;
+
+class SemanticCacheTest {
+
+    private static final String QUESTION = "What are the symptoms of a common cold in adults?";
+    private static final String REPHRASED = "What are the usual symptoms of a common cold in adults?";
+    private static final String PARTITION = "gpt-4o|medical|0";
+
+    @Test
+    void answersTheSamePrompt() {
+        SemanticCache cache = cache(100, Map.of());
+        cache.put(PARTITION, cache.embed(QUESTION), AiMessage.from("Rest and fluids."));
+
+        assertThat(cache.lookup("medical", PARTITION, cache.embed(QUESTION)).text()).isEqualTo("Rest and fluids.");
+    }
+
+    @Test
+    void hitsExactlyAtTheAgentThreshold() {
+        SemanticCache probe = cache(100, Map.of());
+        double similarity = dot(probe.embed(QUESTION), probe.embed(REPHRASED));
+        assertThat(similarity).isBetween(0.5, 0.999);
+
+        SemanticCache atThreshold = cache(100, Map.of("medical", new Policy(null, similarity)));
+        atThreshold.put(PARTITION, atThreshold.embed(QUESTION), AiMessage.from("Rest and fluids."));
+        assertThat(atThreshold.lookup("medical", PARTITION, atThreshold.embed(REPHRASED))).isNotNull();
+
+        SemanticCache aboveThreshold = cache(100, Map.of("medical", new Policy(null, Math.nextUp(similarity))));
+        aboveThreshold.put(PARTITION, aboveThreshold.embed(QUESTION), AiMessage.from("Rest and fluids."));
+        assertThat(aboveThreshold.lookup("medical", PARTITION, aboveThreshold.embed(REPHRASED))).isNull();
+
+        assertThat(aboveThreshold.stats().agents().get("medical").misses()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsPartitionsApart() {
+        SemanticCache cache = cache(100, Map.of());
+        cache.put(PARTITION, cache.embed(QUESTION), AiMessage.from("Rest and fluids."));
+
+        assertThat(cache.lookup("legal", "gpt-4o|legal|0", cache.embed(QUESTION))).isNull();
+        assertThat(cache.lookup("medical", "gpt-4o-mini|medical|0", cache.embed(QUESTION))).isNull();
+        assertThat(cache.stats().hits()).isZero();
+        assertThat(cache.stats().misses()).isEqualTo(2);
+    }
+
+    @Test
+    void appliesThePolicyOfTheAgent() {
+        SemanticCache cache = cache(100, Map.of("generateStory", new Policy(false, null)));
+
+        assertThat(cache.isEnabledFor("generateStory")).isFalse();
+        assertThat(cache.isEnabledFor("medical")).isTrue();
+    }
+
+    @Test
+    void staysWithinMaxEntries() {
+        SemanticCache cache = cache(3, Map.of());
+        for (int i = 0; i < 10; i++) {
+            cache.put(PARTITION, cache.embed("question number " + i), AiMessage.from("answer " + i));
+        }
+
+        assertThat(cache.stats().size()).isEqualTo(3);
+        assertThat(cache.stats().evictions()).isEqualTo(7);
+        assertThat(cache.lookup("medical", PARTITION, cache.embed("question number 0"))).isNull();
+        assertThat(cache.lookup("medical", PARTITION, cache.embed("question number 9")).text()).isEqualTo("answer 9");
+    }
+
+    @Test
+    void cannotEmbedTextWithoutWords() {
+        assertThat(cache(100, Map.of()).embed("?!")).isNull();
+    }
+
+    private static SemanticCache cache(long maxEntries, Map<String, Policy> agents) {
+        LlmProperties.SemanticCache properties = new LlmProperties.SemanticCache(true, LlmProperties.Embedding.HASHING,
+                256, maxEntries, Duration.ofHours(1), 8, 10, new Policy(true, 0.95), agents);
+        return new SemanticCache(properties, new HashingEmbeddingModel(properties.dimension()));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
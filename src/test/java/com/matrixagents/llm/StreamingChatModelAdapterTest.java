@@ -0,0 +1,149 @@
+package com.matrixagents.llm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.AgentEvent.EventType;
+import com.matrixagents.service.ExecutionContext;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+
+class StreamingChatModelAdapterTest {
+
+    private static final ChatRequest REQUEST = ChatRequest.builder()
+            .messages(UserMessage.from("My head hurts"))
+            .build();
+
+    private final ExecutionContext context = new ExecutionContext("execution-1", "conditional", Map.of());
+    private final List<AgentEvent> published = new CopyOnWriteArrayList<>();
+
+    @Test
+    void publishesTheTokensOfAStreamingAgent() {
+        StreamingChatModelAdapter adapter = adapter(new EndlessStream(3));
+
+        ChatResponse response = context.run(() -> call(adapter));
+
+        assertThat(response.aiMessage().text()).isEqualTo("token token token ");
+        assertThat(published).hasSize(3);
+        published.forEach(event -> assertThat(event.eventType()).isEqualTo(EventType.TOKEN));
+    }
+
+    @Test
+    void cancelledSpeculativeExpertPublishesNoTokensAndStopsStreaming() throws Exception {
+        EndlessStream stream = new EndlessStream(Integer.MAX_VALUE);
+        StreamingChatModelAdapter adapter = adapter(stream);
+        // As ExpertSpeculator runs a guessed expert, and cancels it when the router disagrees
+        FutureTask<ChatResponse> speculative = new FutureTask<>(() -> ExecutionContext.speculate(() -> call(adapter)));
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            executor.execute(() -> context.run(() -> {
+                speculative.run();
+                return null;
+            }));
+            assertThat(stream.streaming.await(5, TimeUnit.SECONDS)).isTrue();
+
+            speculative.cancel(true);
+
+            assertThat(stream.cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(published).isEmpty();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void interruptedCallStopsWaitingAndCancelsTheStream() throws Exception {
+        EndlessStream stream = new EndlessStream(Integer.MAX_VALUE);
+        StreamingChatModelAdapter adapter = adapter(stream);
+        Thread.currentThread().interrupt();
+
+        assertThatThrownBy(() -> context.run(() -> call(adapter))).isInstanceOf(IllegalStateException.class);
+
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(stream.cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private StreamingChatModelAdapter adapter(StreamingChatModel stream) {
+        return new StreamingChatModelAdapter(new ChatModel() {}, stream, Set.of("medical"), published::add);
+    }
+
+    private static ChatResponse call(ChatModel model) {
+        ExecutionContext.enterAgent("medical");
+        try {
+            return model.chat(REQUEST);
+        } finally {
+            ExecutionContext.exitAgent();
+        }
+    }
+
+    /**
+     * Streams "token " every millisecond from its own thread until limit partial responses
+     * were sent, then completes; stops early once the stream is cancelled.
+     */
+    private static final class EndlessStream implements StreamingChatModel {
+
+        private final int limit;
+        private final CountDownLatch streaming = new CountDownLatch(1);
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+
+        EndlessStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            AtomicBoolean stopped = new AtomicBoolean();
+            StreamingHandle handle = new StreamingHandle() {
+                @Override
+                public void cancel() {
+                    stopped.set(true);
+                    cancelled.countDown();
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return stopped.get();
+                }
+            };
+            Thread.ofPlatform().daemon().start(() -> {
+                StringBuilder text = new StringBuilder();
+                for (int i = 0; i < limit && !stopped.get(); i++) {
+                    handler.onPartialResponse(new PartialResponse("token "), new PartialResponseContext(handle));
+                    text.append("token ");
+                    streaming.countDown();
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!stopped.get()) {
+                    handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(text.toString())).build());
+                }
+            });
+        }
+    }
+}
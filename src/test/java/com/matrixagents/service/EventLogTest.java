@@ -0,0 +1,126 @@
+package com.matrixagents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class EventLogTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int READERS = 4;
+    private static final int FRAMES_PER_PRODUCER = 20_000;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final EventLog log = new EventLog();
+
+    @Test
+    void keepsEveryEventOfConcurrentProducersInTheirOrder() throws Exception {
+        List<EventFrame[]> frames = new ArrayList<>();
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            frames.add(framesOf("producer-" + producer));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        List<Future<?>> producers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + READERS);
+        try {
+            for (EventFrame[] own : frames) {
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (EventFrame frame : own) {
+                        log.add(frame);
+                    }
+                    return null;
+                }));
+            }
+            for (int reader = 0; reader < READERS; reader++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    int seen = 0;
+                    while (producing.get()) {
+                        List<EventFrame> events = log.snapshot();
+                        assertThat(events.size()).isGreaterThanOrEqualTo(seen);
+                        assertInProducerOrder(events);
+                        // A range read from the middle sees the same events as the snapshot
+                        int from = events.size() / 2;
+                        assertThat(log.range(from, events.size())).containsExactlyElementsOf(
+                                events.subList(from, events.size()));
+                        seen = events.size();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> producer : producers) {
+                producer.get();
+            }
+            producing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            producing.set(false);
+            executor.shutdownNow();
+        }
+
+        List<EventFrame> events = log.snapshot();
+        assertThat(log.size()).isEqualTo(PRODUCERS * FRAMES_PER_PRODUCER);
+        assertThat(events).hasSize(PRODUCERS * FRAMES_PER_PRODUCER);
+        Map<String, Long> last = assertInProducerOrder(events);
+        assertThat(last.size()).isEqualTo(PRODUCERS);
+        last.values().forEach(sequence -> assertThat(sequence).isEqualTo((long) FRAMES_PER_PRODUCER));
+    }
+
+    @Test
+    void clampsRangesToWhatHasBeenAppended() {
+        EventFrame[] frames = framesOf("producer");
+        for (int i = 0; i < 100; i++) {
+            log.add(frames[i]);
+        }
+
+        assertThat(log.range(-5, 3)).containsExactlyElementsOf(List.of(frames[0], frames[1], frames[2]));
+        assertThat(log.range(98, 500)).containsExactlyElementsOf(List.of(frames[98], frames[99]));
+        assertThat(log.range(60, 60)).isEmpty();
+        assertThat(log.range(200, 300)).isEmpty();
+    }
+
+    /**
+     * Checks that each producer's frames, numbered 1..n with the producer as executionId, are
+     * in order without gaps, and returns the last sequence seen per producer.
+     */
+    private static Map<String, Long> assertInProducerOrder(List<EventFrame> events) {
+        Map<String, Long> last = new HashMap<>();
+        for (EventFrame frame : events) {
+            AgentEvent event = frame.event();
+            Long previous = last.put(event.executionId(), event.sequence());
+            assertThat(event.sequence()).isEqualTo(previous == null ? 1L : previous + 1);
+        }
+        return last;
+    }
+
+    private EventFrame[] framesOf(String producer) {
+        EventFrame[] frames = new EventFrame[FRAMES_PER_PRODUCER];
+        for (int i = 0; i < FRAMES_PER_PRODUCER; i++) {
+            AgentEvent event = AgentEvent.token("parallel", producer, producer, "token " + i)
+                    .sequenced(producer, i + 1, null);
+            frames[i] = EventFrame.render(event, jsonMapper);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,71 @@
+package com.matrixagents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.matrixagents.model.AgentEvent;
+import com.matrixagents.model.EventFrame;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class EventReplayBufferTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final EventReplayBuffer buffer = new EventReplayBuffer(4, 2, 2, Duration.ofHours(1));
+
+    @Test
+    void replaysTheEventsAfterTheLastSequence() {
+        EventFrame started = frame("leader", 1, AgentEvent.started("sequence", "Starting"));
+        EventFrame invoked = frame("leader", 2, AgentEvent.agentInvoked("sequence", "write", "Writing..."));
+        buffer.append("leader", started);
+        buffer.append("leader", invoked);
+
+        assertThat(buffer.after("leader", 0)).containsExactlyElementsOf(List.of(started, invoked));
+        assertThat(buffer.after("leader", 1)).containsExactlyElementsOf(List.of(invoked));
+        assertThat(buffer.after("unknown", 0)).isEmpty();
+    }
+
+    @Test
+    void keepsAgentEventsWhenTokensOverflowTheirRing() {
+        EventFrame invoked = frame("leader", 1, AgentEvent.agentInvoked("sequence", "write", "Writing..."));
+        buffer.append("leader", invoked);
+        for (int i = 2; i <= 10; i++) {
+            buffer.append("leader", frame("leader", i, AgentEvent.token("sequence", "write", "stream", "t" + i)));
+        }
+
+        List<EventFrame> replayed = buffer.after("leader", 0);
+
+        assertThat(replayed).hasSize(3);
+        assertThat(replayed.get(0)).isEqualTo(invoked);
+        assertThat(buffer.stats().truncated()).isEqualTo(1L);
+    }
+
+    @Test
+    void replaysTheLeaderForACoalescedFollower() {
+        EventFrame started = frame("leader", 1, AgentEvent.started("sequence", "Starting"));
+        buffer.append("leader", started);
+        buffer.alias("follower", "leader");
+
+        assertThat(buffer.after("follower", 0)).containsExactlyElementsOf(List.of(started));
+    }
+
+    @Test
+    void dropsTheAliasWithTheLeader() {
+        buffer.append("leader", frame("leader", 1, AgentEvent.started("sequence", "Starting")));
+        buffer.alias("follower", "leader");
+        buffer.append("second", frame("second", 1, AgentEvent.started("sequence", "Starting")));
+        buffer.append("third", frame("third", 1, AgentEvent.started("sequence", "Starting")));
+
+        assertThat(buffer.after("leader", 0)).isEmpty();
+        assertThat(buffer.after("follower", 0)).isEmpty();
+        assertThat(buffer.stats().evictions()).isEqualTo(1L);
+    }
+
+    private EventFrame frame(String executionId, long sequence, AgentEvent event) {
+        return EventFrame.render(event.sequenced(executionId, sequence, null), jsonMapper);
+    }
+}